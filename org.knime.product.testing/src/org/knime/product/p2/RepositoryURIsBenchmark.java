@@ -0,0 +1,116 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the checks and rewrites that {@link RepositoryUpdater} applies to every repository URI and repository
+ * event: matching the KNIME ID and host patterns and appending the KNIME ID.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryURIsBenchmark {
+    private static final String INSTANCE_ID = "01-0123456789abcdef-42"; //$NON-NLS-1$
+
+    private final URI[] m_uris = {URI.create("https://update.knime.com/analytics-platform/4.2"), //$NON-NLS-1$
+        URI.create("https://update.knime.com/community-contributions/trusted/4.2/"), //$NON-NLS-1$
+        URI.create("https://update.knime.com/analytics-platform/4.2/knid=01-0123456789abcdef-42/"), //$NON-NLS-1$
+        URI.create("http://www.knime.org/update/3.7"), //$NON-NLS-1$
+        URI.create("https://download.eclipse.org/releases/2019-12"), //$NON-NLS-1$
+        URI.create("file:/opt/knime/local-update-site/")}; //$NON-NLS-1$
+
+    /**
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void urlContainsID(final Blackhole bh) {
+        for (URI uri : m_uris) {
+            bh.consume(RepositoryURIs.urlContainsID(uri));
+        }
+    }
+
+    /**
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void isKnimeURI(final Blackhole bh) {
+        for (URI uri : m_uris) {
+            bh.consume(RepositoryURIs.isKnimeURI(uri));
+        }
+    }
+
+    /**
+     * @param bh consumes the results
+     * @throws URISyntaxException never
+     */
+    @Benchmark
+    public void withID(final Blackhole bh) throws URISyntaxException {
+        for (URI uri : m_uris) {
+            if ((uri.getPath() != null) && RepositoryURIs.isKnimeURI(uri)) {
+                bh.consume(RepositoryURIs.withID(uri, INSTANCE_ID));
+            }
+        }
+    }
+}
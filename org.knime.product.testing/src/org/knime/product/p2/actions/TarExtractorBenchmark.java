@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2.actions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the extraction of generated tar archives as done by the {@link ExtractTarGz} p2 action, e.g. for bundled
+ * JREs. The archives are held in memory, so that only decompression and writing the files are measured.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TarExtractorBenchmark {
+    @Param({"100", "1000"})
+    public int m_files;
+
+    /** Size of each file in KiB. */
+    @Param({"4", "64"})
+    public int m_fileSize;
+
+    @Param({"tar", "tar.gz"})
+    public String m_format;
+
+    private byte[] m_archive;
+
+    private Path m_destDir;
+
+    /**
+     * Generates the archive with half compressible and half random content in ten directories.
+     *
+     * @throws IOException if the archive cannot be created
+     */
+    @Setup(Level.Trial)
+    public void createArchive() throws IOException {
+        Random rand = new Random(m_files + m_fileSize);
+        byte[] content = new byte[m_fileSize * 1024];
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream out = "tar.gz".equals(m_format) ? new GzipCompressorOutputStream(bos) : bos; //$NON-NLS-1$
+                TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+            for (int d = 0; d < 10; d++) {
+                TarArchiveEntry dir = new TarArchiveEntry("dir" + d + "/"); //$NON-NLS-1$ //$NON-NLS-2$
+                dir.setMode(0755);
+                tar.putArchiveEntry(dir);
+                tar.closeArchiveEntry();
+            }
+            for (int i = 0; i < m_files; i++) {
+                rand.nextBytes(content);
+                for (int j = 0; j < content.length / 2; j++) {
+                    content[j] = (byte)(j % 64);
+                }
+                TarArchiveEntry entry = new TarArchiveEntry("dir" + (i % 10) + "/file" + i + ".bin"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                entry.setSize(content.length);
+                entry.setMode((i % 5 == 0) ? 0755 : 0644);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        m_archive = bos.toByteArray();
+    }
+
+    /**
+     * Creates an empty destination directory for the next extraction.
+     *
+     * @throws IOException if the directory cannot be created
+     */
+    @Setup(Level.Invocation)
+    public void createDestination() throws IOException {
+        m_destDir = Files.createTempDirectory("untar-benchmark"); //$NON-NLS-1$
+    }
+
+    /**
+     * Deletes the extracted files.
+     *
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown(Level.Invocation)
+    public void deleteDestination() throws IOException {
+        try (Stream<Path> files = Files.walk(m_destDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * @return the destination directory
+     * @throws IOException if the archive cannot be extracted
+     */
+    @Benchmark
+    public File untar() throws IOException {
+        File destDir = m_destDir.toFile();
+        TarExtractor.untar(TarExtractor.decompress(new ByteArrayInputStream(m_archive), "archive." + m_format), //$NON-NLS-1$
+            destDir);
+        return destDir;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.profiles;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ProfileManager#combinePreferences(List, IProfileProvider, List)}, i.e. reading the preference files
+ * of several profiles, replacing variables, and merging them, over synthetic profiles. Every fourth preference
+ * contains a variable.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileManagerBenchmark {
+    private static final String[] VALUES = {"plain value", "${sysprop:java.home}/lib", "${profile:location}/drivers",
+        "${origin:X-Server}", "$${custom:escaped}", "${env:PATH}"};
+
+    @Param({"1", "4"})
+    public int m_profiles;
+
+    @Param({"100", "2000"})
+    public int m_keysPerProfile;
+
+    private Path m_root;
+
+    private List<Path> m_profileDirs;
+
+    private final IProfileProvider m_provider = new EmptyProfileProvider();
+
+    private final VariableReplacer m_syspropReplacer =
+        new VariableReplacer.SyspropVariableReplacer(new ArrayList<>());
+
+    /**
+     * Writes the synthetic profiles, each with two preference files.
+     *
+     * @throws IOException if a file cannot be written
+     */
+    @Setup
+    public void createProfiles() throws IOException {
+        m_root = Files.createTempDirectory("profile-benchmark"); //$NON-NLS-1$
+        Files.write(m_root.resolve(".originHeaders"), "X-Server=https://server.example.com\n" //$NON-NLS-1$ //$NON-NLS-2$
+            .getBytes(StandardCharsets.ISO_8859_1));
+        m_profileDirs = new ArrayList<>();
+        for (int p = 0; p < m_profiles; p++) {
+            Path dir = Files.createDirectories(m_root.resolve("profile" + p)); //$NON-NLS-1$
+            for (int f = 0; f < 2; f++) {
+                try (Writer out = Files.newBufferedWriter(dir.resolve("prefs" + f + ".epf"), //$NON-NLS-1$ //$NON-NLS-2$
+                    StandardCharsets.UTF_8)) {
+                    for (int k = f; k < m_keysPerProfile; k += 2) {
+                        String value = (k % 4 == 0) ? VALUES[1 + (k / 4) % (VALUES.length - 1)] : VALUES[0];
+                        out.write("/instance/org.knime.bundle" + (k % 37) + "/key" + k + "=" + value + "\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                    }
+                }
+            }
+            m_profileDirs.add(dir);
+        }
+    }
+
+    /**
+     * Deletes the synthetic profiles.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown
+    public void deleteProfiles() throws IOException {
+        try (Stream<Path> files = Files.walk(m_root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * @return the combined preferences
+     * @throws IOException if a file cannot be read
+     */
+    @Benchmark
+    public Properties combinePreferences() throws IOException {
+        return ProfileManager.combinePreferences(m_profileDirs, m_provider, new ArrayList<>());
+    }
+
+    /**
+     * @return the value with the variable replaced
+     */
+    @Benchmark
+    public String replaceVariable() {
+        return m_syspropReplacer.replaceVariables("prefix/${sysprop:java.home}/suffix"); //$NON-NLS-1$
+    }
+}
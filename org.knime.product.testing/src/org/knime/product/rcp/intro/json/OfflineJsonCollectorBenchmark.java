@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures loading the offline welcome page tiles from the tile index generated during the build, i.e. parsing the
+ * index into {@link JSONTile}s and serializing each directory once.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfflineJsonCollectorBenchmark {
+    /** Number of tiles in each of the two directories; the product ships less than ten. */
+    @Param({"8", "200"})
+    public int m_tilesPerDirectory;
+
+    private final ObjectMapper m_mapper = new ObjectMapper();
+
+    private byte[] m_index;
+
+    /**
+     * Generates an index with the same structure as <tt>intro4.0/tiles/index.json</tt>.
+     *
+     * @throws IOException if the index cannot be serialized
+     */
+    @Setup
+    public void createIndex() throws IOException {
+        Map<String, List<Map<String, Object>>> index = new LinkedHashMap<>();
+        for (String dir : new String[]{"first", "offline"}) { //$NON-NLS-1$ //$NON-NLS-2$
+            List<Map<String, Object>> entries = new ArrayList<>();
+            for (int i = 0; i < m_tilesPerDirectory; i++) {
+                Map<String, Object> tile = new LinkedHashMap<>();
+                tile.put("tile-title", "Tile number " + i + " in " + dir); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                tile.put("tile-image", "img/tile" + i + ".png"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                tile.put("tile-tag", "Tag"); //$NON-NLS-1$ //$NON-NLS-2$
+                tile.put("tile-text", "Some longer description of what the tile links to, number " + i); //$NON-NLS-1$ //$NON-NLS-2$
+                tile.put("tile-button-text", "Learn more"); //$NON-NLS-1$ //$NON-NLS-2$
+                tile.put("tile-link", "https://www.knime.com/tile/" + i + "?src=knimeapp"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("file", "C" + i + "-tile.json"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                entry.put("tile", tile); //$NON-NLS-1$
+                entries.add(entry);
+            }
+            index.put(dir, entries);
+        }
+        m_index = m_mapper.writeValueAsBytes(index);
+    }
+
+    /**
+     * @return the loaded tile index
+     * @throws IOException if the index cannot be read
+     */
+    @Benchmark
+    public Object loadTiles() throws IOException {
+        Map<String, OfflineJsonCollector.TileDirectory> tileIndex =
+            OfflineJsonCollector.readIndex(new ByteArrayInputStream(m_index), m_mapper);
+        OfflineJsonCollector.serializeTiles(tileIndex, m_mapper);
+        return tileIndex;
+    }
+}
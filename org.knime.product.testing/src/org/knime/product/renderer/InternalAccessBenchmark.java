@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.renderer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the overhead of accessing non-public members the way the tab renderer's wrappers used to (reflection with
+ * <tt>setAccessible</tt> around every call) against the cached method handles of {@link InternalAccess}. A plain class
+ * with the same kind of members as <tt>CTabFolder</tt> and <tt>CTabFolderRenderer</tt> stands in for the SWT widgets,
+ * so that no display is needed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InternalAccessBenchmark {
+    /**
+     * Stand-in for the SWT classes, with a private field and a private method.
+     */
+    static class Target {
+        private boolean gradientVertical = true;
+
+        private int m_calls;
+
+        private void drawBackground(final int x, final int y, final int width, final int height,
+            final boolean vertical) {
+            m_calls += x + y + width + height + (vertical ? 1 : 0);
+        }
+    }
+
+    private static final MethodHandle GRADIENT_VERTICAL =
+        InternalAccess.findGetter(Target.class, "gradientVertical"); //$NON-NLS-1$
+
+    private static final MethodHandle DRAW_BACKGROUND = InternalAccess.findVirtual(Target.class, "drawBackground", //$NON-NLS-1$
+        MethodType.methodType(void.class, int.class, int.class, int.class, int.class, boolean.class));
+
+    private final Target m_target = new Target();
+
+    private Field m_field;
+
+    private Method m_method;
+
+    /**
+     * Looks up the reflective members like the old wrappers did on their first call.
+     *
+     * @throws ReflectiveOperationException if the members do not exist
+     */
+    @Setup
+    public void lookup() throws ReflectiveOperationException {
+        m_field = Target.class.getDeclaredField("gradientVertical"); //$NON-NLS-1$
+        m_method = Target.class.getDeclaredMethod("drawBackground", int.class, int.class, int.class, int.class, //$NON-NLS-1$
+            boolean.class);
+    }
+
+    /**
+     * @return the field value
+     * @throws IllegalAccessException never
+     */
+    @Benchmark
+    public Object reflectiveGetter() throws IllegalAccessException {
+        boolean accessible = m_field.isAccessible();
+        try {
+            m_field.setAccessible(true);
+            return m_field.get(m_target);
+        } finally {
+            m_field.setAccessible(accessible);
+        }
+    }
+
+    /**
+     * @return the field value
+     * @throws Throwable never
+     */
+    @Benchmark
+    public Object handleGetter() throws Throwable {
+        return (Object)GRADIENT_VERTICAL.invokeExact(m_target);
+    }
+
+    /**
+     * @param bh consumes the result
+     * @throws ReflectiveOperationException never
+     */
+    @Benchmark
+    public void reflectiveMethod(final Blackhole bh) throws ReflectiveOperationException {
+        boolean accessible = m_method.isAccessible();
+        try {
+            m_method.setAccessible(true);
+            m_method.invoke(m_target, 1, 2, 3, 4, true);
+        } finally {
+            m_method.setAccessible(accessible);
+        }
+        bh.consume(m_target.m_calls);
+    }
+
+    /**
+     * @param bh consumes the result
+     * @throws Throwable never
+     */
+    @Benchmark
+    public void handleMethod(final Blackhole bh) throws Throwable {
+        DRAW_BACKGROUND.invokeExact(m_target, 1, 2, 3, 4, true);
+        bh.consume(m_target.m_calls);
+    }
+}
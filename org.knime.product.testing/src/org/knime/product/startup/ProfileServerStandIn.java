@@ -0,0 +1,251 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.startup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Local stand-in for a profile server and the welcome page endpoint, used by the {@link StartupBenchmark}. Profiles are
+ * served as a zip file at <tt>/profiles</tt>, the welcome page tiles at <tt>/welcome-ap</tt>. Both endpoints answer
+ * conditional requests with <tt>304 Not Modified</tt> if configured to do so, and can delay each response to simulate
+ * a remote server.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ProfileServerStandIn implements AutoCloseable {
+    private static final String TILES_ETAG = "\"benchmark-tiles\""; //$NON-NLS-1$
+
+    private final HttpServer m_server;
+
+    private final byte[] m_profileZip;
+
+    private final byte[] m_tiles;
+
+    private final long m_latency;
+
+    private final boolean m_notModified;
+
+    private final AtomicInteger m_fullResponses = new AtomicInteger();
+
+    private final AtomicInteger m_notModifiedResponses = new AtomicInteger();
+
+    /**
+     * Creates and starts a new server on a random port of the loopback interface.
+     *
+     * @param profiles the names of the served profiles
+     * @param keysPerProfile the number of preferences in each profile
+     * @param fileSize the size of the supplementary file in each profile in KiB
+     * @param latency the delay of each response in milliseconds
+     * @param notModified <code>true</code> if conditional requests should be answered with 304, <code>false</code> if
+     *            the full content should be sent every time
+     * @throws IOException if the server cannot be started
+     */
+    ProfileServerStandIn(final List<String> profiles, final int keysPerProfile, final int fileSize, final long latency,
+        final boolean notModified) throws IOException {
+        m_profileZip = createProfileZip(profiles, keysPerProfile, fileSize);
+        m_tiles = createTiles();
+        m_latency = latency;
+        m_notModified = notModified;
+
+        m_server = ServerBootstrap.bootstrap()
+            .setLocalAddress(InetAddress.getLoopbackAddress())
+            .setListenerPort(0)
+            .registerHandler("/profiles*", this::serveProfiles) //$NON-NLS-1$
+            .registerHandler("/welcome-ap*", this::serveTiles) //$NON-NLS-1$
+            .create();
+        m_server.start();
+    }
+
+    /**
+     * @return the URL of the profile location, to be passed with <tt>-profileLocation</tt>
+     */
+    String getProfileLocation() {
+        return getBaseURL() + "/profiles"; //$NON-NLS-1$
+    }
+
+    /**
+     * @return the URL of the welcome page endpoint, to be passed with <tt>-Dknime.intro.endpoint</tt>
+     */
+    String getTileEndpoint() {
+        return getBaseURL() + "/welcome-ap"; //$NON-NLS-1$
+    }
+
+    /**
+     * @return the size of the zip file with all profiles in bytes
+     */
+    int getProfileSize() {
+        return m_profileZip.length;
+    }
+
+    /**
+     * @return the number of responses with content so far
+     */
+    int getFullResponses() {
+        return m_fullResponses.get();
+    }
+
+    /**
+     * @return the number of <tt>304 Not Modified</tt> responses so far
+     */
+    int getNotModifiedResponses() {
+        return m_notModifiedResponses.get();
+    }
+
+    private String getBaseURL() {
+        return "http://" + m_server.getInetAddress().getHostAddress() + ":" + m_server.getLocalPort(); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private void serveProfiles(final HttpRequest request, final HttpResponse response, final HttpContext context) {
+        delay();
+        if (m_notModified && (request.getFirstHeader("If-Modified-Since") != null)) { //$NON-NLS-1$
+            sendNotModified(response);
+        } else {
+            send(response, "application/zip", m_profileZip); //$NON-NLS-1$
+        }
+    }
+
+    private void serveTiles(final HttpRequest request, final HttpResponse response, final HttpContext context) {
+        delay();
+        response.setHeader("ETag", TILES_ETAG); //$NON-NLS-1$
+        Header ifNoneMatch = request.getFirstHeader("If-None-Match"); //$NON-NLS-1$
+        if (m_notModified && (ifNoneMatch != null) && TILES_ETAG.equals(ifNoneMatch.getValue())) {
+            sendNotModified(response);
+        } else {
+            send(response, "application/json", m_tiles); //$NON-NLS-1$
+        }
+    }
+
+    private void delay() {
+        if (m_latency > 0) {
+            try {
+                Thread.sleep(m_latency);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void send(final HttpResponse response, final String contentType, final byte[] content) {
+        response.setStatusCode(HttpStatus.SC_OK);
+        response.setEntity(new ByteArrayEntity(content, ContentType.create(contentType)));
+        m_fullResponses.incrementAndGet();
+    }
+
+    private void sendNotModified(final HttpResponse response) {
+        response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+        m_notModifiedResponses.incrementAndGet();
+    }
+
+    private static byte[] createProfileZip(final List<String> profiles, final int keysPerProfile, final int fileSize)
+        throws IOException {
+        Random rand = new Random(keysPerProfile + fileSize);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bos)) {
+            for (String profile : profiles) {
+                StringBuilder prefs = new StringBuilder();
+                for (int i = 0; i < keysPerProfile; i++) {
+                    prefs.append("/instance/org.knime.product.benchmark/").append(profile).append(".key").append(i) //$NON-NLS-1$ //$NON-NLS-2$
+                        .append("=value ").append(i); //$NON-NLS-1$
+                    if (i % 10 == 0) {
+                        prefs.append(" ${sysprop:user.home} ${profile:location}"); //$NON-NLS-1$
+                    }
+                    prefs.append('\n');
+                }
+                zip.putNextEntry(new ZipEntry(profile + "/benchmark.epf")); //$NON-NLS-1$
+                zip.write(prefs.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+
+                byte[] file = new byte[fileSize * 1024];
+                rand.nextBytes(file);
+                zip.putNextEntry(new ZipEntry(profile + "/lib/supplementary.bin")); //$NON-NLS-1$
+                zip.write(file);
+                zip.closeEntry();
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    private static byte[] createTiles() {
+        StringBuilder json = new StringBuilder("["); //$NON-NLS-1$
+        for (int cat = 1; cat <= 3; cat++) {
+            if (cat > 1) {
+                json.append(',');
+            }
+            json.append("{\"category-id\":\"c").append(cat).append("-benchmark\",\"category-title\":\"Category ") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(cat).append("\",\"tiles\":[{\"tile-category-id\":\"c").append(cat) //$NON-NLS-1$
+                .append("\",\"tile-title\":\"Benchmark tile ").append(cat) //$NON-NLS-1$
+                .append("\",\"tile-text\":\"Served by the startup benchmark\",\"tile-button-text\":\"Open\"," //$NON-NLS-1$
+                    + "\"tile-link\":\"https://www.knime.com/\"}]}"); //$NON-NLS-1$
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        m_server.shutdown(0, TimeUnit.MILLISECONDS);
+    }
+}
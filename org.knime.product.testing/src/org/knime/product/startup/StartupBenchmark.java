@@ -0,0 +1,314 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.knime.product.StartupTimeline;
+
+/**
+ * End-to-end benchmark for the startup of an installed product. The product is started repeatedly with
+ * <tt>-profileLocation</tt> pointing to a local {@link ProfileServerStandIn}, which also serves the welcome page tiles.
+ * The {@link StartupTimeline} of each start is read and the product is terminated once the workbench window is open.
+ * At the end the percentiles of each phase, measured from the start of the JVM, are printed.
+ *
+ * <p>
+ * In <i>cold</i> mode every start uses a fresh workspace and configuration area, so that profiles are downloaded
+ * completely and the OSGi framework is resolved again. In <i>warm</i> mode all starts share them (after one
+ * unmeasured start), so that the profile server is asked with a conditional request. Operating system caches are not
+ * dropped in either mode.
+ * </p>
+ *
+ * <p>
+ * Usage: <tt>StartupBenchmark -launcher &lt;knime executable&gt; [options]</tt>, see {@link #USAGE}. With
+ * <tt>-xvfb</tt> a virtual X server is started, so that the benchmark can run on machines without a display.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class StartupBenchmark {
+    private static final String USAGE = String.join("\n", //$NON-NLS-1$
+        "Usage: StartupBenchmark -launcher <knime executable> [options]", //$NON-NLS-1$
+        "  -iterations <n>        number of measured starts (default 10)", //$NON-NLS-1$
+        "  -mode cold|warm        fresh or shared workspace and configuration (default cold)", //$NON-NLS-1$
+        "  -profiles <n>          number of requested profiles (default 2)", //$NON-NLS-1$
+        "  -keysPerProfile <n>    preferences in each profile (default 500)", //$NON-NLS-1$
+        "  -fileSize <KiB>        size of the supplementary file in each profile (default 256)", //$NON-NLS-1$
+        "  -latency <ms>          delay of each server response (default 0)", //$NON-NLS-1$
+        "  -notModified true|false answer conditional requests with 304 (default true)", //$NON-NLS-1$
+        "  -timeout <s>           maximum time for a single start (default 300)", //$NON-NLS-1$
+        "  -xvfb [display]        start Xvfb on the given display (default :99)", //$NON-NLS-1$
+        "  -output <file>         also write the raw timings as CSV"); //$NON-NLS-1$
+
+    private static final List<String> PHASES =
+        Arrays.asList(StartupTimeline.PROFILES_APPLIED, StartupTimeline.WINDOW_OPENED);
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final Map<String, String> m_options;
+
+    private final Path m_baseDir;
+
+    private final List<Map<String, Long>> m_runs = new ArrayList<>();
+
+    private StartupBenchmark(final Map<String, String> options) throws IOException {
+        m_options = options;
+        m_baseDir = Files.createTempDirectory("startup-benchmark"); //$NON-NLS-1$
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args see {@link #USAGE}
+     * @throws Exception if the benchmark fails
+     */
+    public static void main(final String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("launcher")) { //$NON-NLS-1$
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        new StartupBenchmark(options).run();
+    }
+
+    private static Map<String, String> parseOptions(final String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("-")) { //$NON-NLS-1$
+                throw new IllegalArgumentException("Unexpected argument '" + args[i] + "'\n" + USAGE); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            String key = args[i].substring(1);
+            if ((i + 1 < args.length) && !args[i + 1].startsWith("-")) { //$NON-NLS-1$
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, ""); //$NON-NLS-1$
+            }
+        }
+        return options;
+    }
+
+    private int intOption(final String key, final int defaultValue) {
+        String value = m_options.get(key);
+        return ((value == null) || value.isEmpty()) ? defaultValue : Integer.parseInt(value);
+    }
+
+    private void run() throws Exception {
+        boolean warm = "warm".equals(m_options.get("mode")); //$NON-NLS-1$ //$NON-NLS-2$
+        int iterations = intOption("iterations", 10); //$NON-NLS-1$
+        List<String> profiles =
+            IntStream.range(0, intOption("profiles", 2)).mapToObj(i -> "profile" + i).collect(Collectors.toList()); //$NON-NLS-1$ //$NON-NLS-2$
+        boolean notModified = !"false".equals(m_options.get("notModified")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Process xvfb = m_options.containsKey("xvfb") ? startXvfb() : null; //$NON-NLS-1$
+        try (ProfileServerStandIn server = new ProfileServerStandIn(profiles, intOption("keysPerProfile", 500), //$NON-NLS-1$
+            intOption("fileSize", 256), intOption("latency", 0), notModified)) { //$NON-NLS-1$ //$NON-NLS-2$
+            System.out.printf("Profile server at %s, %d profiles with %d KiB in total%n", //$NON-NLS-1$
+                server.getProfileLocation(), profiles.size(), server.getProfileSize() / 1024);
+
+            if (warm) {
+                System.out.println("Warm-up start"); //$NON-NLS-1$
+                startProduct(server, profiles, "shared", "warmup"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            for (int i = 0; i < iterations; i++) {
+                Map<String, Long> timeline =
+                    startProduct(server, profiles, warm ? "shared" : ("cold" + i), Integer.toString(i)); //$NON-NLS-1$ //$NON-NLS-2$
+                System.out.printf("Start %d: %s%n", i, timeline); //$NON-NLS-1$
+                m_runs.add(timeline);
+            }
+            System.out.printf("Profile server sent %d full and %d 'not modified' responses%n", //$NON-NLS-1$
+                server.getFullResponses(), server.getNotModifiedResponses());
+        } finally {
+            if (xvfb != null) {
+                xvfb.destroy();
+            }
+        }
+
+        printSummary(System.out);
+        if (m_options.containsKey("output")) { //$NON-NLS-1$
+            writeCSV(Paths.get(m_options.get("output"))); //$NON-NLS-1$
+        }
+        deleteRecursively(m_baseDir);
+    }
+
+    private Process startXvfb() throws IOException, InterruptedException {
+        String display = m_options.get("xvfb").isEmpty() ? ":99" : m_options.get("xvfb"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        Process xvfb = new ProcessBuilder("Xvfb", display, "-screen", "0", "1920x1080x24", "-nolisten", "tcp") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            .redirectErrorStream(true).redirectOutput(m_baseDir.resolve("xvfb.log").toFile()).start(); //$NON-NLS-1$
+        // give the server some time to accept connections
+        Thread.sleep(1000);
+        if (!xvfb.isAlive()) {
+            throw new IOException("Xvfb could not be started, see " + m_baseDir.resolve("xvfb.log")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        m_options.put("display", display); //$NON-NLS-1$
+        return xvfb;
+    }
+
+    /**
+     * Starts the product once and waits until the workbench window has been opened or the timeout is reached.
+     *
+     * @return the phases that were reached with their time since the start of the JVM in milliseconds
+     */
+    private Map<String, Long> startProduct(final ProfileServerStandIn server, final List<String> profiles,
+        final String instance, final String run) throws IOException, InterruptedException {
+        Path instanceDir = m_baseDir.resolve(instance);
+        Path timelineFile = m_baseDir.resolve("timeline-" + run + ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+        Files.deleteIfExists(timelineFile);
+
+        ProcessBuilder pb = new ProcessBuilder(m_options.get("launcher"), //$NON-NLS-1$
+            "-data", instanceDir.resolve("workspace").toString(), //$NON-NLS-1$ //$NON-NLS-2$
+            "-configuration", instanceDir.resolve("configuration").toString(), //$NON-NLS-1$ //$NON-NLS-2$
+            "-profileLocation", server.getProfileLocation(), //$NON-NLS-1$
+            "-profileList", String.join(",", profiles)); //$NON-NLS-1$ //$NON-NLS-2$
+        // -vmargs on the command line would replace the ones in knime.ini
+        pb.environment().put("JAVA_TOOL_OPTIONS", "-Dknime.startup.timeline=" + timelineFile //$NON-NLS-1$ //$NON-NLS-2$
+            + " -Dknime.intro.endpoint=" + server.getTileEndpoint()); //$NON-NLS-1$
+        if (m_options.containsKey("display")) { //$NON-NLS-1$
+            pb.environment().put("DISPLAY", m_options.get("display")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        pb.redirectErrorStream(true).redirectOutput(m_baseDir.resolve("product-" + run + ".log").toFile()); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Process product = pb.start();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(intOption("timeout", 300)); //$NON-NLS-1$
+        Map<String, Long> timeline = Collections.emptyMap();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                timeline = readTimeline(timelineFile);
+                if (timeline.containsKey(StartupTimeline.WINDOW_OPENED) || !product.isAlive()) {
+                    break;
+                }
+                Thread.sleep(100);
+            }
+        } finally {
+            product.destroy();
+            if (!product.waitFor(30, TimeUnit.SECONDS)) {
+                product.destroyForcibly().waitFor();
+            }
+        }
+
+        if (!timeline.containsKey(StartupTimeline.WINDOW_OPENED)) {
+            throw new IOException("Start '" + run + "' did not open the workbench window, see " //$NON-NLS-1$ //$NON-NLS-2$
+                + m_baseDir.resolve("product-" + run + ".log")); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return timeline;
+    }
+
+    private static Map<String, Long> readTimeline(final Path timelineFile) throws IOException {
+        if (!Files.isRegularFile(timelineFile)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> timeline = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(timelineFile, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t"); //$NON-NLS-1$
+            if (parts.length == 2) {
+                timeline.put(parts[0], Long.parseLong(parts[1].trim()));
+            }
+        }
+        return timeline;
+    }
+
+    private void printSummary(final PrintStream out) {
+        out.printf("%n%-20s %6s %8s %8s %8s %8s %8s %8s %8s%n", "phase [ms]", "n", "min", "mean", "p50", "p90", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            "p95", "p99", "max"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (String phase : PHASES) {
+            List<Long> values = m_runs.stream().map(r -> r.get(phase)).filter(v -> v != null).sorted()
+                .collect(Collectors.toList());
+            if (values.isEmpty()) {
+                continue;
+            }
+            out.printf("%-20s %6d %8d %8.0f", phase, values.size(), values.get(0), //$NON-NLS-1$
+                values.stream().mapToLong(Long::longValue).average().orElse(0));
+            for (double p : PERCENTILES) {
+                out.printf(" %8d", percentile(values, p)); //$NON-NLS-1$
+            }
+            out.printf(" %8d%n", values.get(values.size() - 1)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Returns the percentile of the sorted values using the nearest-rank method.
+     */
+    private static long percentile(final List<Long> sortedValues, final double percentile) {
+        int rank = (int)Math.ceil(percentile / 100 * sortedValues.size());
+        return sortedValues.get(Math.max(0, rank - 1));
+    }
+
+    private void writeCSV(final Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("iteration," + String.join(",", PHASES)); //$NON-NLS-1$ //$NON-NLS-2$
+        for (int i = 0; i < m_runs.size(); i++) {
+            StringBuilder line = new StringBuilder(Integer.toString(i));
+            for (String phase : PHASES) {
+                Long millis = m_runs.get(i).get(phase);
+                line.append(',').append((millis != null) ? millis.toString() : ""); //$NON-NLS-1$
+            }
+            lines.add(line.toString());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(final Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Compiles the offline welcome page tiles in intro4.0/tiles/<dir>/*.json into the single index
+ * intro4.0/tiles/index.json which is read by org.knime.product.rcp.intro.json.OfflineJsonCollector.
+ * The index is written to target/tile-index and only added to the bundle when it is packaged, so that it never
+ * hides changes to the tiles when running from the IDE.
+ * The build fails if a tile is not valid JSON or contains unknown properties.
+ */
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
+def fail = { String message -> throw new IllegalStateException(message) }
+
+def allowedProperties = ['tile-category-id', 'tile-title', 'tile-tag', 'tile-image', 'tile-icon', 'tile-text',
+    'tile-button-text', 'tile-link'] as Set
+
+def tilesDir = new File(project.basedir, 'intro4.0/tiles')
+def index = new TreeMap()
+tilesDir.eachDir { dir ->
+    def tiles = []
+    dir.listFiles().findAll { it.name.endsWith('.json') }.sort { it.name }.each { file ->
+        def tile
+        try {
+            tile = new JsonSlurper().parse(file, 'UTF-8')
+        } catch (Exception ex) {
+            fail("Tile '${file}' is not valid JSON: ${ex.message}")
+        }
+        if (!(tile instanceof Map)) {
+            fail("Tile '${file}' must contain a JSON object")
+        }
+        def unknown = tile.keySet() - allowedProperties
+        if (!unknown.isEmpty()) {
+            fail("Tile '${file}' contains unknown properties ${unknown}")
+        }
+        tiles << [file: file.name, tile: tile]
+    }
+    index[dir.name] = tiles
+}
+
+def outDir = new File(project.build.directory, 'tile-index/intro4.0/tiles')
+outDir.mkdirs()
+new File(outDir, 'index.json').setText(JsonOutput.prettyPrint(JsonOutput.toJson(index)), 'UTF-8')
+log.info("Wrote offline tile index with ${index.values().sum { it.size() } ?: 0} tiles")
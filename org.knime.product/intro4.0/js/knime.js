@@ -1,66 +1,67 @@
 window.updateTile = function (data) {
-    var carousel = document.getElementById('carousel-content');
-
-    var imagePlaceholder = carousel.getElementsByClassName('image-placeholder');
-    for (var placeholderIndex = imagePlaceholder.length - 1; placeholderIndex >= 0; placeholderIndex--) {
-        var contentDiv = document.getElementsByClassName('content');
-        var imageSrc = data[placeholderIndex]['tile-image'];
-        if (imageSrc) {
-            var img = document.createElement('img');
-            img.src = data[placeholderIndex]['tile-image'];
-            imagePlaceholder[placeholderIndex].parentNode.insertBefore(img, contentDiv[placeholderIndex]);
-        }
-        imagePlaceholder[placeholderIndex].parentNode.removeChild(imagePlaceholder[placeholderIndex]);
+    var serializedData = JSON.stringify(data);
+    if (window.renderedTiles === serializedData) {
+        return;
     }
-    
-    var carouselTags = carousel.getElementsByClassName('line0');
-    for (var tagIndex = carouselTags.length - 1; tagIndex >= 0; tagIndex--) {
-        if (data[tagIndex]['tile-tag']) {
-            var tileTag = document.createElement('p');
-            tileTag.className = 'tile-tag';
-            tileTag.innerHTML = data[tagIndex]['tile-tag'];
-            carouselTags[tagIndex].appendChild(tileTag);
-            carouselTags[tagIndex].className = 'tile-tag-container';
-        } else {
-            carouselTags[tagIndex].parentNode.removeChild(carouselTags[tagIndex]);
-        }
+    window.renderedTiles = serializedData;
+
+    // the tiles are rendered from scratch every time so that changed tiles (e.g. after revalidation or once their
+    // images are available locally) replace the ones shown before without reloading the page
+    var tiles = document.getElementById('carousel-content').getElementsByClassName('carousel-tile');
+    for (var i = 0; i < tiles.length && i < data.length; i++) {
+        renderTile(tiles[i], data[i]);
     }
+};
 
-    var carouselTitles = carousel.getElementsByClassName('line1');
-    for (var titleIndex = carouselTitles.length - 1; titleIndex >= 0; titleIndex--) {
-        var title = document.createElement('p');
-        title.className = 'tile-title';
-        title.innerHTML = data[titleIndex]['tile-title'];
-        carouselTitles[titleIndex].parentNode.appendChild(title);
-        carouselTitles[titleIndex].parentNode.removeChild(carouselTitles[titleIndex]);
+function renderTile(tileDiv, tile) {
+    while (tileDiv.firstChild) {
+        tileDiv.removeChild(tileDiv.firstChild);
     }
 
-    var carouselSubTitles = carousel.getElementsByClassName('line2');
-    for (var subTitleIndex = carouselSubTitles.length - 1; subTitleIndex >= 0; subTitleIndex--) {
-        var subtitle = document.createElement('p');
-        subtitle.className = 'tile-text';
-        if (data[subTitleIndex]['tile-text']) {
-            subtitle.innerHTML = data[subTitleIndex]['tile-text'];
-        }
-        carouselSubTitles[subTitleIndex].parentNode.appendChild(subtitle);
-        carouselSubTitles[subTitleIndex].parentNode.removeChild(carouselSubTitles[subTitleIndex]);
+    if (tile['tile-image']) {
+        var img = document.createElement('img');
+        img.src = tile['tile-image'];
+        tileDiv.appendChild(img);
     }
 
-    var carouselButtons = carousel.getElementsByClassName('button-placeholder');
-    for (var buttonIndex = carouselButtons.length - 1; buttonIndex >= 0; buttonIndex--) {
-        if (data[buttonIndex]['tile-link'] && data[buttonIndex]['tile-button-text']) {
-            var button = document.createElement('div');
-            button.className = 'button-div';
-            var buttonTag = document.createElement('a');
-            buttonTag.className = 'button-primary';
-            buttonTag.href = data[buttonIndex]['tile-link'];
-            buttonTag.innerHTML = data[buttonIndex]['tile-button-text'];
-            carouselButtons[buttonIndex].parentNode.appendChild(button);
-            button.appendChild(buttonTag);
-        }
-        carouselButtons[buttonIndex].parentNode.removeChild(carouselButtons[buttonIndex]);
+    var content = document.createElement('div');
+    content.className = 'content';
+    tileDiv.appendChild(content);
+
+    if (tile['tile-tag']) {
+        var tagContainer = document.createElement('div');
+        tagContainer.className = 'tile-tag-container';
+        var tileTag = document.createElement('p');
+        tileTag.className = 'tile-tag';
+        tileTag.innerHTML = tile['tile-tag'];
+        tagContainer.appendChild(tileTag);
+        content.appendChild(tagContainer);
     }
-};
+
+    var title = document.createElement('p');
+    title.className = 'tile-title';
+    title.innerHTML = tile['tile-title'];
+    content.appendChild(title);
+
+    var subtitle = document.createElement('p');
+    subtitle.className = 'tile-text';
+    if (tile['tile-text']) {
+        subtitle.innerHTML = tile['tile-text'];
+    }
+    content.appendChild(subtitle);
+
+    if (tile['tile-link'] && tile['tile-button-text']) {
+        var button = document.createElement('div');
+        button.className = 'button-div';
+        var buttonTag = document.createElement('a');
+        buttonTag.className = 'button-primary';
+        buttonTag.href = tile['tile-link'];
+        buttonTag.innerHTML = tile['tile-button-text'];
+        button.appendChild(buttonTag);
+        content.appendChild(button);
+    }
+}
+
 window.hideElement = function (id) {
     document.getElementById(id).style.display = 'none';
 };
@@ -119,5 +120,45 @@ window.displayUpdateTile = function (data) {
     contentContainer.setAttribute('class', 'update-shown');
 };
 
+window.loadData = function (name, callback) {
+    var request = new XMLHttpRequest();
+    request.onload = function () {
+        if (request.status === 200) {
+            window[callback](JSON.parse(request.responseText));
+        }
+    };
+    request.open('GET', 'data/' + name + '.json', true);
+    request.send();
+};
+
+// when served by the embedded server, display all data that has been published before the page was (re)loaded
+if (window.location.protocol === 'http:') {
+    document.addEventListener('DOMContentLoaded', function () {
+        var request = new XMLHttpRequest();
+        request.onload = function () {
+            if (request.status === 200) {
+                var index = JSON.parse(request.responseText);
+                for (var i = 0; i < index.length; i++) {
+                    window.loadData(index[i].name, index[i].callback);
+                }
+            }
+        };
+        request.open('GET', 'data/', true);
+        request.send();
+    });
+}
+
+// tell KNIME when the page can receive updates and when it is about to be unloaded, see IntroPageCommandQueue
+document.addEventListener('DOMContentLoaded', function () {
+    if (typeof window.knimeIntroReady === 'function') {
+        window.knimeIntroReady();
+    }
+});
+window.addEventListener('beforeunload', function () {
+    if (typeof window.knimeIntroUnloading === 'function') {
+        window.knimeIntroUnloading();
+    }
+});
+
 // prevent right click on the welcome page
 document.addEventListener('contextmenu', function (event) { event.preventDefault(); });
@@ -0,0 +1,251 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Records how long each bundle activator takes between the splash screen being shown and the workbench being ready.
+ * The number of activated bundles is used by the splash screen to show real progress on the next start, and the
+ * slowest activators are written to <tt>bundle-activation.json</tt> in the state location of this plug-in. The
+ * monitor is started by {@link KNIMESplashHandler} and finished by the workbench advisor once startup is complete.
+ *
+ * <p>
+ * The monitor deliberately does not use the KNIME node logger, as it is active long before the core plug-ins are.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class BundleActivationMonitor implements SynchronousBundleListener {
+    private static final String REPORT_FILE = "bundle-activation.json"; //$NON-NLS-1$
+
+    /** Number of activators listed in the report. */
+    private static final int TOP_N = 25;
+
+    private static BundleActivationMonitor instance;
+
+    private final BundleContext m_context;
+
+    private final long m_startTime = System.nanoTime();
+
+    private final int m_expectedCount;
+
+    private final AtomicInteger m_activatedCount = new AtomicInteger();
+
+    private final Map<Long, Long> m_starting = new ConcurrentHashMap<>();
+
+    private final Map<Bundle, Long> m_durations = new ConcurrentHashMap<>();
+
+    private BundleActivationMonitor(final BundleContext context, final int expectedCount) {
+        m_context = context;
+        m_expectedCount = expectedCount;
+    }
+
+    /**
+     * Starts recording bundle activations. Subsequent calls return the already running monitor.
+     *
+     * @return the monitor, or <code>null</code> if it could not be registered
+     */
+    static synchronized BundleActivationMonitor start() {
+        if (instance == null) {
+            Bundle thisBundle = FrameworkUtil.getBundle(BundleActivationMonitor.class);
+            BundleContext context = (thisBundle != null) ? thisBundle.getBundleContext() : null;
+            if (context == null) {
+                return null;
+            }
+            instance = new BundleActivationMonitor(context, readPreviousCount());
+            context.addBundleListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Stops recording and writes the report of the slowest activators to the state location. This should be called
+     * once the workbench is ready. Calling it when no monitor is running does nothing.
+     */
+    public static void finish() {
+        BundleActivationMonitor monitor;
+        synchronized (BundleActivationMonitor.class) {
+            monitor = instance;
+            instance = null;
+        }
+        if (monitor == null) {
+            return;
+        }
+        try {
+            monitor.m_context.removeBundleListener(monitor);
+        } catch (IllegalStateException ex) {
+            // framework is shutting down, nothing to unregister from
+        }
+        Thread t = new Thread(monitor::writeReport, "KNIME-Bundle-Activation-Report"); //$NON-NLS-1$
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Returns the number of bundles that were activated during the previous start.
+     *
+     * @return the expected number of activations, or 0 if unknown
+     */
+    int getExpectedCount() {
+        return m_expectedCount;
+    }
+
+    /**
+     * Returns the number of bundles that have been activated since the monitor was started.
+     *
+     * @return the number of activations
+     */
+    int getActivatedCount() {
+        return m_activatedCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bundleChanged(final BundleEvent event) {
+        Bundle bundle = event.getBundle();
+        if (event.getType() == BundleEvent.STARTING) {
+            m_starting.put(bundle.getBundleId(), System.nanoTime());
+        } else if (event.getType() == BundleEvent.STARTED) {
+            Long start = m_starting.remove(bundle.getBundleId());
+            if (start != null) {
+                m_durations.put(bundle, System.nanoTime() - start);
+            }
+            m_activatedCount.incrementAndGet();
+        }
+    }
+
+    private static Path getReportFile() {
+        try {
+            Bundle thisBundle = FrameworkUtil.getBundle(BundleActivationMonitor.class);
+            return Platform.getStateLocation(thisBundle).toFile().toPath().resolve(REPORT_FILE);
+        } catch (IllegalStateException ex) {
+            // no instance location (yet)
+            return null;
+        }
+    }
+
+    private static int readPreviousCount() {
+        Path reportFile = getReportFile();
+        if ((reportFile == null) || !Files.isRegularFile(reportFile)) {
+            return 0;
+        }
+        try {
+            String content = new String(Files.readAllBytes(reportFile), StandardCharsets.UTF_8);
+            return Math.max(0, new JSONObject(content).optInt("activatedBundles", 0)); //$NON-NLS-1$
+        } catch (IOException | JSONException ex) {
+            return 0;
+        }
+    }
+
+    private void writeReport() {
+        Path reportFile = getReportFile();
+        if (reportFile == null) {
+            return;
+        }
+
+        List<Map.Entry<Bundle, Long>> entries = new ArrayList<>(m_durations.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+
+        long totalNanos = 0;
+        for (Map.Entry<Bundle, Long> e : entries) {
+            totalNanos += e.getValue();
+        }
+
+        JSONArray slowest = new JSONArray();
+        for (Map.Entry<Bundle, Long> e : entries.subList(0, Math.min(TOP_N, entries.size()))) {
+            JSONObject o = new JSONObject();
+            o.put("bundle", e.getKey().getSymbolicName()); //$NON-NLS-1$
+            o.put("version", e.getKey().getVersion().toString()); //$NON-NLS-1$
+            o.put("millis", TimeUnit.NANOSECONDS.toMillis(e.getValue())); //$NON-NLS-1$
+            slowest.put(o);
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("timestamp", System.currentTimeMillis()); //$NON-NLS-1$
+        report.put("startupMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - m_startTime)); //$NON-NLS-1$
+        report.put("activatedBundles", m_activatedCount.get()); //$NON-NLS-1$
+        report.put("totalActivationMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos)); //$NON-NLS-1$
+        report.put("slowest", slowest); //$NON-NLS-1$
+
+        try {
+            Files.createDirectories(reportFile.getParent());
+            Path tempFile = Files.createTempFile(reportFile.getParent(), REPORT_FILE, ".tmp"); //$NON-NLS-1$
+            try (Writer out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                report.write(out, 2, 0);
+            }
+            Files.move(tempFile, reportFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | JSONException ex) {
+            Bundle thisBundle = FrameworkUtil.getBundle(BundleActivationMonitor.class);
+            Platform.getLog(thisBundle).log(new Status(IStatus.WARNING, thisBundle.getSymbolicName(),
+                Messages.BundleActivationMonitor_0, ex));
+        }
+    }
+}
@@ -54,11 +54,17 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.osgi.service.datalocation.Location;
@@ -177,6 +183,62 @@ public int compare(final IConfigurationElement o1, final IConfigurationElement o
 
     private final List<Image> m_images = new ArrayList<Image>();
 
+    private BundleActivationMonitor m_activationMonitor;
+
+    private IProgressMonitor m_bundleProgressMonitor;
+
+    /**
+     * Progress monitor that replaces the workbench's estimate of the startup work by the number of bundles activated
+     * during the previous start. The workbench still drives the monitor (and thereby decides on which thread it is
+     * updated), but the amount of work done is taken from the {@link BundleActivationMonitor}.
+     */
+    private static final class ActivationProgressMonitor extends ProgressMonitorWrapper {
+        private final BundleActivationMonitor m_activations;
+
+        private final int m_expected;
+
+        private int m_reported;
+
+        ActivationProgressMonitor(final IProgressMonitor monitor, final BundleActivationMonitor activations) {
+            super(monitor);
+            m_activations = activations;
+            m_expected = activations.getExpectedCount();
+        }
+
+        @Override
+        public void beginTask(final String name, final int totalWork) {
+            super.beginTask(name, (m_expected > 0) ? m_expected : totalWork);
+        }
+
+        @Override
+        public void worked(final int work) {
+            if (m_expected <= 0) {
+                super.worked(work);
+            } else {
+                update();
+            }
+        }
+
+        @Override
+        public void subTask(final String name) {
+            if (m_expected <= 0) {
+                super.subTask(name);
+            } else {
+                int percent = update() * 100 / m_expected;
+                super.subTask((name == null) ? null : (name + " (" + percent + "%)")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+
+        private int update() {
+            int done = Math.min(m_activations.getActivatedCount(), m_expected);
+            if (done > m_reported) {
+                super.worked(done - m_reported);
+                m_reported = done;
+            }
+            return m_reported;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -184,6 +246,7 @@ public int compare(final IConfigurationElement o1, final IConfigurationElement o
     public void init(final Shell splash) {
         // Store the shell
         super.init(splash);
+        m_activationMonitor = BundleActivationMonitor.start();
         setForeground(KNIME_GRAY);
         splash.setLayout(null);
         // Force shell to inherit the splash background
@@ -259,36 +322,62 @@ private List<IConfigurationElement> readSplashExtensions() {
 
         // sort splash icons by name or by config file
         Comparator<IConfigurationElement> comparator = new DefaultComparator();
-        Location loc = Platform.getInstallLocation();
-        if ((loc != null) && "file".equals(loc.getURL().getProtocol())) { //$NON-NLS-1$
-            File instDir = new File(loc.getURL().getPath());
-            File splashConfig = new File(instDir, "splash.config"); //$NON-NLS-1$
-            if (splashConfig.exists()) {
-                try {
-                    comparator = new ConfiguredComparator(splashConfig);
-                } catch (IOException ex) {
-                    Bundle thisBundle = FrameworkUtil.getBundle(getClass());
-                    Platform.getLog(thisBundle).log(new Status(IStatus.ERROR, thisBundle.getSymbolicName(),
-                                                            Messages.KNIMESplashHandler_14, ex));
-                }
+        File splashConfig = getSplashConfigFile();
+        if ((splashConfig != null) && splashConfig.exists()) {
+            try {
+                comparator = new ConfiguredComparator(splashConfig);
+            } catch (IOException ex) {
+                Bundle thisBundle = FrameworkUtil.getBundle(getClass());
+                Platform.getLog(thisBundle).log(new Status(IStatus.ERROR, thisBundle.getSymbolicName(),
+                                                        Messages.KNIMESplashHandler_14, ex));
             }
         }
         Collections.sort(configElements, comparator);
         return configElements;
     }
 
+    private static File getSplashConfigFile() {
+        Location loc = Platform.getInstallLocation();
+        if ((loc != null) && "file".equals(loc.getURL().getProtocol())) { //$NON-NLS-1$
+            File instDir = new File(loc.getURL().getPath());
+            return new File(instDir, "splash.config"); //$NON-NLS-1$
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IProgressMonitor getBundleProgressMonitor() {
+        if (m_bundleProgressMonitor == null) {
+            IProgressMonitor monitor = super.getBundleProgressMonitor();
+            m_bundleProgressMonitor = (m_activationMonitor != null)
+                ? new ActivationProgressMonitor(monitor, m_activationMonitor) : monitor;
+        }
+        return m_bundleProgressMonitor;
+    }
+
     private void initProgressBar() {
         setProgressRect(PROGRESS_RECT);
         setMessageRect(MESSAGE_RECT);
         getContent();
     }
 
-    private Image getSplashIcon(final IConfigurationElement splashExtension, final int iconSize) {
-        String iconImageFilePath = null;
-        iconImageFilePath = splashExtension.getAttribute(ELEMENT_ICON + iconSize);
+    private static String getIconPath(final IConfigurationElement splashExtension, final int iconSize) {
+        String iconImageFilePath = splashExtension.getAttribute(ELEMENT_ICON + iconSize);
         if (iconImageFilePath == null) {
             iconImageFilePath = splashExtension.getAttribute(ELEMENT_ICON);
         }
+        return iconImageFilePath;
+    }
+
+    /**
+     * Decodes and scales the icon of the given extension. This method does not need a display and can be called from
+     * any thread.
+     */
+    private static ImageData getSplashIconData(final IConfigurationElement splashExtension, final int iconSize) {
+        String iconImageFilePath = getIconPath(splashExtension, iconSize);
 
         // Abort if an icon attribute was not specified - which is weird since it is required
         if ((iconImageFilePath == null) || (iconImageFilePath.length() == 0)) {
@@ -308,12 +397,71 @@ private Image getSplashIcon(final IConfigurationElement splashExtension, final i
             return null;
         }
         if ((imageData.width > iconSize) || (imageData.height > iconSize)) {
-            return new Image(Display.getDefault(), imageData.scaledTo(iconSize, iconSize));
+            return imageData.scaledTo(iconSize, iconSize);
         } else {
-            return new Image(Display.getDefault(), imageData);
+            return imageData;
         }
     }
 
+    /**
+     * Decodes the icons of the first <tt>maxIcons</tt> extensions that have one. The icons are decoded in parallel,
+     * but only as many decodes are started as icons are still missing; whenever an extension turns out to have no
+     * icon, the next one is started.
+     */
+    private static List<SplashIconCache.Icon> decodeIcons(final List<IConfigurationElement> splashExtensions,
+        final int maxIcons, final int iconSize) {
+        int threads = Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(), 8), maxIcons));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "KNIME-Splash-Icon-Decoder"); //$NON-NLS-1$
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<ImageData>> futures = new ArrayList<>(maxIcons);
+            while (futures.size() < Math.min(maxIcons, splashExtensions.size())) {
+                IConfigurationElement splash = splashExtensions.get(futures.size());
+                futures.add(executor.submit(() -> getSplashIconData(splash, iconSize)));
+            }
+
+            List<SplashIconCache.Icon> icons = new ArrayList<>(maxIcons);
+            for (int i = 0; (i < futures.size()) && (icons.size() < maxIcons); i++) {
+                ImageData data = null;
+                try {
+                    data = futures.get(i).get();
+                } catch (ExecutionException ex) {
+                    // skip this icon, same as if it didn't exist
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (data != null) {
+                    icons.add(new SplashIconCache.Icon(i, data));
+                } else if (futures.size() < splashExtensions.size()) {
+                    IConfigurationElement splash = splashExtensions.get(futures.size());
+                    futures.add(executor.submit(() -> getSplashIconData(splash, iconSize)));
+                }
+            }
+            return icons;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void storeInBackground(final SplashIconCache cache, final String key,
+        final List<SplashIconCache.Icon> icons) {
+        Thread t = new Thread(() -> {
+            try {
+                cache.store(key, icons);
+            } catch (IOException | RuntimeException ex) {
+                Bundle thisBundle = FrameworkUtil.getBundle(KNIMESplashHandler.class);
+                Platform.getLog(thisBundle).log(new Status(IStatus.WARNING, thisBundle.getSymbolicName(),
+                    Messages.KNIMESplashHandler_16, ex));
+            }
+        }, "KNIME-Splash-Icon-Cache"); //$NON-NLS-1$
+        t.setDaemon(true);
+        t.start();
+    }
+
     private String getTooltip(final IConfigurationElement splashExtension) {
         // Get attribute tooltip
         String tooltip = splashExtension.getAttribute(ELEMENT_TOOLTIP);
@@ -327,22 +475,35 @@ private String getTooltip(final IConfigurationElement splashExtension) {
 
     private void createUIImages(final List<IConfigurationElement> splashExtensions, final int maxIcons,
                                 final int iconSize) {
-        int count = 0;
-        for (IConfigurationElement splash : splashExtensions) {
-            Image image = getSplashIcon(splash, iconSize);
-            if (image == null) {
-                continue;
+        // the scaled icons are cached in the configuration area, they only need to be decoded if the installed
+        // extensions or the splash configuration have changed
+        SplashIconCache cache = SplashIconCache.create();
+        String key = null;
+        List<SplashIconCache.Icon> icons = null;
+        if (cache != null) {
+            List<String> iconPaths = new ArrayList<>(splashExtensions.size());
+            for (IConfigurationElement splash : splashExtensions) {
+                iconPaths.add(getIconPath(splash, iconSize));
+            }
+            key = SplashIconCache.computeKey(splashExtensions, iconPaths, iconSize, maxIcons, getSplashConfigFile());
+            icons = cache.load(key);
+        }
+        if (icons == null) {
+            icons = decodeIcons(splashExtensions, maxIcons, iconSize);
+            if (cache != null) {
+                storeInBackground(cache, key, icons);
             }
+        }
+
+        for (SplashIconCache.Icon icon : icons) {
+            Image image = new Image(Display.getDefault(), icon.m_data);
             m_images.add(image);
-            String tooltip = getTooltip(splash);
+            String tooltip = getTooltip(splashExtensions.get(icon.m_index));
 
             // Create the image using a label widget
             Label label = new Label(m_iconPanel, SWT.NONE);
             label.setImage(image);
             label.setToolTipText(tooltip);
-            if (++count >= maxIcons) {
-                break;
-            }
         }
     }
 
@@ -57,9 +57,13 @@
 public class Messages extends NLS {
     private static final String BUNDLE_NAME = "org.knime.product.messages"; //$NON-NLS-1$
 
+    public static String BundleActivationMonitor_0;
+
     public static String KNIMESplashHandler_14;
 
     public static String KNIMESplashHandler_15;
+
+    public static String KNIMESplashHandler_16;
     static {
         // initialize resource bundle
         NLS.initializeMessages(BUNDLE_NAME, Messages.class);
@@ -0,0 +1,297 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.service.datalocation.Location;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.osgi.framework.Bundle;
+
+/**
+ * Cache for the pre-scaled icons shown on the splash screen. All icons are stored side by side in a single PNG image
+ * (the atlas) in the configuration area, together with a properties file that describes the layout. The cache is
+ * keyed by the contributing bundles and their versions, the icon size, and the contents of <tt>splash.config</tt>, so
+ * that it is rebuilt whenever one of these changes.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SplashIconCache {
+    /**
+     * A single icon: the index of the extension it belongs to and the (already scaled) image data.
+     */
+    static final class Icon {
+        final int m_index;
+
+        final ImageData m_data;
+
+        Icon(final int index, final ImageData data) {
+            m_index = index;
+            m_data = data;
+        }
+    }
+
+    private static final String ATLAS_FILE = "splash-icons.png"; //$NON-NLS-1$
+
+    private static final String LAYOUT_FILE = "splash-icons.properties"; //$NON-NLS-1$
+
+    private static final PaletteData ATLAS_PALETTE = new PaletteData(0xFF0000, 0xFF00, 0xFF);
+
+    private final Path m_cacheDir;
+
+    private SplashIconCache(final Path cacheDir) {
+        m_cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the cache in the configuration area or <code>null</code> if the configuration area is not writable.
+     *
+     * @return a cache or <code>null</code>
+     */
+    static SplashIconCache create() {
+        Location loc = Platform.getConfigurationLocation();
+        if ((loc == null) || loc.isReadOnly() || (loc.getURL() == null)
+            || !"file".equals(loc.getURL().getProtocol())) { //$NON-NLS-1$
+            return null;
+        }
+        return new SplashIconCache(new File(loc.getURL().getPath(), ProductPlugin.PLUGIN_ID).toPath());
+    }
+
+    /**
+     * Computes the key for the given splash extensions.
+     *
+     * @param extensions the splash extensions in the order in which they are shown
+     * @param iconAttributes the icon attribute of each extension that is used for the icon size
+     * @param iconSize the icon size
+     * @param maxIcons the maximum number of icons
+     * @param splashConfig the <tt>splash.config</tt> file, may be <code>null</code>
+     * @return a key
+     */
+    static String computeKey(final List<IConfigurationElement> extensions, final List<String> iconAttributes,
+        final int iconSize, final int maxIcons, final File splashConfig) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+            digest.update((iconSize + "/" + maxIcons + "\n").getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$ //$NON-NLS-2$
+            for (int i = 0; i < extensions.size(); i++) {
+                String contributor = extensions.get(i).getContributor().getName();
+                Bundle bundle = Platform.getBundle(contributor);
+                String line = contributor + "_" + ((bundle != null) ? bundle.getVersion() : "") //$NON-NLS-1$ //$NON-NLS-2$
+                    + "/" + iconAttributes.get(i) + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            if ((splashConfig != null) && splashConfig.isFile()) {
+                digest.update(Files.readAllBytes(splashConfig.toPath()));
+            }
+
+            StringBuilder buf = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException | IOException ex) {
+            // no key means no caching
+            return null;
+        }
+    }
+
+    /**
+     * Loads the icons from the cache.
+     *
+     * @param key the key computed by {@link #computeKey(List, List, int, int, File)}
+     * @return the icons or <code>null</code> if the cache does not exist or belongs to a different key
+     */
+    List<Icon> load(final String key) {
+        Path layoutFile = m_cacheDir.resolve(LAYOUT_FILE);
+        Path atlasFile = m_cacheDir.resolve(ATLAS_FILE);
+        if ((key == null) || !Files.isRegularFile(layoutFile) || !Files.isRegularFile(atlasFile)) {
+            return null;
+        }
+
+        try {
+            Properties layout = new Properties();
+            try (InputStream in = Files.newInputStream(layoutFile)) {
+                layout.load(in);
+            }
+            if (!key.equals(layout.getProperty("key"))) { //$NON-NLS-1$
+                return null;
+            }
+
+            int count = Integer.parseInt(layout.getProperty("count")); //$NON-NLS-1$
+            List<Icon> icons = new ArrayList<>(count);
+            if (count == 0) {
+                return icons;
+            }
+            ImageData atlas;
+            try (InputStream in = Files.newInputStream(atlasFile)) {
+                atlas = new ImageLoader().load(in)[0];
+            }
+            for (int i = 0; i < count; i++) {
+                String[] parts = layout.getProperty("icon." + i).split(","); //$NON-NLS-1$ //$NON-NLS-2$
+                int index = Integer.parseInt(parts[0]);
+                int x = Integer.parseInt(parts[1]);
+                int width = Integer.parseInt(parts[2]);
+                int height = Integer.parseInt(parts[3]);
+                icons.add(new Icon(index, extract(atlas, x, width, height)));
+            }
+            return icons;
+        } catch (IOException | RuntimeException ex) {
+            // corrupt cache, will be rebuilt
+            return null;
+        }
+    }
+
+    /**
+     * Stores the icons in the cache.
+     *
+     * @param key the key computed by {@link #computeKey(List, List, int, int, File)}
+     * @param icons the icons
+     * @throws IOException if the cache cannot be written
+     */
+    void store(final String key, final List<Icon> icons) throws IOException {
+        if (key == null) {
+            return;
+        }
+        Files.createDirectories(m_cacheDir);
+
+        Properties layout = new Properties();
+        layout.setProperty("key", key); //$NON-NLS-1$
+        layout.setProperty("count", Integer.toString(icons.size())); //$NON-NLS-1$
+        int atlasWidth = 0;
+        int atlasHeight = 1;
+        for (int i = 0; i < icons.size(); i++) {
+            ImageData data = icons.get(i).m_data;
+            layout.setProperty("icon." + i, icons.get(i).m_index + "," + atlasWidth + "," + data.width + "," //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                + data.height);
+            atlasWidth += data.width;
+            atlasHeight = Math.max(atlasHeight, data.height);
+        }
+
+        if (!icons.isEmpty()) {
+            ImageData atlas = new ImageData(atlasWidth, atlasHeight, 24, ATLAS_PALETTE);
+            atlas.alphaData = new byte[atlasWidth * atlasHeight];
+            int x = 0;
+            for (Icon icon : icons) {
+                copyInto(icon.m_data, atlas, x);
+                x += icon.m_data.width;
+            }
+            ImageLoader loader = new ImageLoader();
+            loader.data = new ImageData[]{atlas};
+            Path tempAtlas = Files.createTempFile(m_cacheDir, "splash-icons", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+            try {
+                try (OutputStream out = Files.newOutputStream(tempAtlas)) {
+                    loader.save(out, SWT.IMAGE_PNG);
+                }
+                Files.move(tempAtlas, m_cacheDir.resolve(ATLAS_FILE), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempAtlas);
+            }
+        }
+
+        // the layout is written last, so that it never references an outdated atlas
+        Path tempLayout = Files.createTempFile(m_cacheDir, "splash-icons", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            try (OutputStream out = Files.newOutputStream(tempLayout)) {
+                layout.store(out, null);
+            }
+            Files.move(tempLayout, m_cacheDir.resolve(LAYOUT_FILE), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempLayout);
+        }
+    }
+
+    /**
+     * Copies an icon with arbitrary depth and transparency into the atlas, which has a direct 24-bit palette and
+     * alpha data.
+     */
+    private static void copyInto(final ImageData src, final ImageData atlas, final int offsetX) {
+        ImageData mask = (src.getTransparencyType() == SWT.TRANSPARENCY_PIXEL) ? src.getTransparencyMask() : null;
+        for (int y = 0; y < src.height; y++) {
+            for (int x = 0; x < src.width; x++) {
+                RGB rgb = src.palette.getRGB(src.getPixel(x, y));
+                atlas.setPixel(offsetX + x, y, ATLAS_PALETTE.getPixel(rgb));
+                int alpha;
+                if (mask != null) {
+                    alpha = (mask.getPixel(x, y) == 0) ? 0 : 255;
+                } else {
+                    alpha = src.getAlpha(x, y);
+                }
+                atlas.setAlpha(offsetX + x, y, alpha);
+            }
+        }
+    }
+
+    private static ImageData extract(final ImageData atlas, final int offsetX, final int width, final int height) {
+        // the loaded atlas may have a different depth and palette than the one that has been saved
+        ImageData icon = new ImageData(width, height, atlas.depth, atlas.palette);
+        icon.alphaData = new byte[width * height];
+        int[] pixels = new int[width];
+        byte[] alphas = new byte[width];
+        for (int y = 0; y < height; y++) {
+            atlas.getPixels(offsetX, y, width, pixels, 0);
+            icon.setPixels(0, y, width, pixels, 0);
+            atlas.getAlphas(offsetX, y, width, alphas, 0);
+            icon.setAlphas(0, y, width, alphas, 0);
+        }
+        return icon;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the time of important startup phases, relative to the start of the JVM, to the file given in the system
+ * property <tt>knime.startup.timeline</tt>. Each phase is appended as one line <tt>&lt;phase&gt;\t&lt;millis&gt;</tt>.
+ * Measurements of the shutdown, such as the duration of the final workspace save, are appended in the same format.
+ * This is used by the startup benchmark in <i>org.knime.product.testing</i>; if the property is not set nothing is
+ * recorded.
+ *
+ * <p>
+ * The timeline deliberately does not use the KNIME node logger, as profiles are applied before it is available.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class StartupTimeline {
+    /** Phase after the profiles have been applied by the application. */
+    public static final String PROFILES_APPLIED = "profilesApplied"; //$NON-NLS-1$
+
+    /** Phase after the first workbench window has been opened. */
+    public static final String WINDOW_OPENED = "windowOpened"; //$NON-NLS-1$
+
+    /** Duration of the workspace save during shutdown in milliseconds. */
+    public static final String SHUTDOWN_SAVE_MILLIS = "shutdownSaveMillis"; //$NON-NLS-1$
+
+    /** Number of resources in the workspace when it is saved during shutdown. */
+    public static final String WORKSPACE_RESOURCES = "workspaceResources"; //$NON-NLS-1$
+
+    private static final String TIMELINE_FILE = System.getProperty("knime.startup.timeline"); //$NON-NLS-1$
+
+    private StartupTimeline() {
+    }
+
+    /**
+     * Returns whether measurements are recorded, so that callers can skip computing values nobody reads.
+     *
+     * @return <code>true</code> if the system property <tt>knime.startup.timeline</tt> is set, <code>false</code>
+     *         otherwise
+     */
+    public static boolean isEnabled() {
+        return TIMELINE_FILE != null;
+    }
+
+    /**
+     * Records that the given phase has been reached. Errors are silently ignored, the benchmark notices missing phases
+     * anyway.
+     *
+     * @param phase the phase's name
+     */
+    public static void mark(final String phase) {
+        if (TIMELINE_FILE != null) {
+            record(phase, System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+        }
+    }
+
+    /**
+     * Records an arbitrary measurement. Errors are silently ignored.
+     *
+     * @param name the measurement's name
+     * @param value the value
+     */
+    public static void record(final String name, final long value) {
+        if (TIMELINE_FILE == null) {
+            return;
+        }
+        synchronized (StartupTimeline.class) {
+            try (Writer w = Files.newBufferedWriter(Paths.get(TIMELINE_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                w.write(name + "\t" + value + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            } catch (IOException ex) {
+                // the benchmark notices missing values anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.jfr;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to the JDK Flight Recorder through reflection, because this plug-in is compiled for Java 8, where
+ * <tt>jdk.jfr</tt> is not part of the API and which only some Java 8 runtimes provide. The event types are defined
+ * dynamically with <tt>jdk.jfr.EventFactory</tt> when the first event is created. A recorder listener keeps track of
+ * whether any recording is running; as long as none is, no event objects are created at all.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FlightRecorderSupport {
+    private static final String CATEGORY_KNIME = "KNIME"; //$NON-NLS-1$
+
+    private static final String CATEGORY_PRODUCT = "Product"; //$NON-NLS-1$
+
+    private static final Map<ProductEventType, Object> FACTORIES = new EnumMap<>(ProductEventType.class);
+
+    private static volatile boolean recording;
+
+    private static volatile boolean available;
+
+    private static MethodHandle getRecordings;
+
+    private static MethodHandle getState;
+
+    private static MethodHandle newEvent;
+
+    /** <tt>(Event)void</tt> */
+    static MethodHandle begin;
+
+    /** <tt>(Event, int, Object)void</tt> */
+    static MethodHandle set;
+
+    /** <tt>(Event)void</tt> */
+    static MethodHandle commit;
+
+    static {
+        try {
+            Class<?> recorderClass = Class.forName("jdk.jfr.FlightRecorder"); //$NON-NLS-1$
+            Class<?> listenerClass = Class.forName("jdk.jfr.FlightRecorderListener"); //$NON-NLS-1$
+            Class<?> recordingClass = Class.forName("jdk.jfr.Recording"); //$NON-NLS-1$
+            Class<?> eventClass = Class.forName("jdk.jfr.Event"); //$NON-NLS-1$
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory"); //$NON-NLS-1$
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            MethodHandle getRecorder = lookup.findStatic(recorderClass, "getFlightRecorder", //$NON-NLS-1$
+                MethodType.methodType(recorderClass));
+            getRecordings = MethodHandles.filterReturnValue(getRecorder,
+                lookup.findVirtual(recorderClass, "getRecordings", MethodType.methodType(List.class))); //$NON-NLS-1$
+            getState = lookup.findVirtual(recordingClass, "getState", //$NON-NLS-1$
+                MethodType.methodType(Class.forName("jdk.jfr.RecordingState"))) //$NON-NLS-1$
+                .asType(MethodType.methodType(Object.class, Object.class));
+            newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(eventClass)) //$NON-NLS-1$
+                .asType(MethodType.methodType(Object.class, Object.class));
+            begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class)) //$NON-NLS-1$
+                .asType(MethodType.methodType(void.class, Object.class));
+            set = lookup.findVirtual(eventClass, "set", //$NON-NLS-1$
+                MethodType.methodType(void.class, int.class, Object.class))
+                .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+            commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class)) //$NON-NLS-1$
+                .asType(MethodType.methodType(void.class, Object.class));
+
+            Object listener = Proxy.newProxyInstance(FlightRecorderSupport.class.getClassLoader(),
+                new Class<?>[]{listenerClass}, (proxy, method, args) -> {
+                    if ("recorderInitialized".equals(method.getName()) //$NON-NLS-1$
+                        || "recordingStateChanged".equals(method.getName())) { //$NON-NLS-1$
+                        updateRecordingState();
+                        return null;
+                    } else if ("hashCode".equals(method.getName())) { //$NON-NLS-1$
+                        return System.identityHashCode(proxy);
+                    } else if ("equals".equals(method.getName())) { //$NON-NLS-1$
+                        return proxy == args[0];
+                    } else if ("toString".equals(method.getName())) { //$NON-NLS-1$
+                        return FlightRecorderSupport.class.getName();
+                    }
+                    return null;
+                });
+            available = true;
+            // calls recorderInitialized if the recorder is already running, e.g. because of -XX:StartFlightRecording
+            recorderClass.getMethod("addListener", listenerClass).invoke(null, listener); //$NON-NLS-1$
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+            // no flight recorder in this JVM or we are not allowed to use it
+            available = false;
+        }
+    }
+
+    private FlightRecorderSupport() {
+    }
+
+    /**
+     * Returns whether a flight recording is currently running. This is a volatile read only.
+     *
+     * @return <code>true</code> if events should be created, <code>false</code> otherwise
+     */
+    static boolean isRecording() {
+        return recording;
+    }
+
+    private static void updateRecordingState() {
+        boolean running = false;
+        try {
+            for (Object rec : (List<?>)getRecordings.invoke()) {
+                if ("RUNNING".equals(getState.invoke(rec).toString())) { //$NON-NLS-1$
+                    running = true;
+                    break;
+                }
+            }
+        } catch (Throwable ex) { // the handles cannot throw checked exceptions
+            running = false;
+        }
+        recording = running && available;
+    }
+
+    /**
+     * Creates a new event of the given type.
+     *
+     * @param type the event type
+     * @return a <tt>jdk.jfr.Event</tt> or <code>null</code> if the event type could not be defined
+     */
+    static Object newEvent(final ProductEventType type) {
+        Object factory;
+        synchronized (FACTORIES) {
+            factory = FACTORIES.get(type);
+            if ((factory == null) && available) {
+                try {
+                    factory = createFactory(type);
+                    FACTORIES.put(type, factory);
+                } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+                    // the API differs from what we expect, don't try again
+                    available = false;
+                    recording = false;
+                }
+            }
+        }
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return newEvent.invoke(factory);
+        } catch (Throwable ex) { // the handle cannot throw checked exceptions
+            return null;
+        }
+    }
+
+    private static Object createFactory(final ProductEventType type) throws ReflectiveOperationException {
+        Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement"); //$NON-NLS-1$
+        Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+        Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor"); //$NON-NLS-1$
+        Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+        List<Object> eventAnnotations = Arrays.asList(
+            annotationElement.newInstance(annotation("Name"), type.getName()), //$NON-NLS-1$
+            annotationElement.newInstance(annotation("Label"), type.getLabel()), //$NON-NLS-1$
+            annotationElement.newInstance(annotation("Description"), type.getDescription()), //$NON-NLS-1$
+            annotationElement.newInstance(annotation("Category"), //$NON-NLS-1$
+                new String[]{CATEGORY_KNIME, CATEGORY_PRODUCT}));
+
+        List<Object> fields = new ArrayList<>();
+        for (ProductEventType.Field f : type.getFields()) {
+            List<Object> fieldAnnotations = new ArrayList<>();
+            fieldAnnotations.add(annotationElement.newInstance(annotation("Label"), f.m_label)); //$NON-NLS-1$
+            if (f.m_bytes) {
+                fieldAnnotations.add(annotationElement.newInstance(annotation("DataAmount"), "BYTES")); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            fields.add(valueDescriptor.newInstance(f.m_type, f.m_name, fieldAnnotations));
+        }
+
+        return Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class) //$NON-NLS-1$ //$NON-NLS-2$
+            .invoke(null, eventAnnotations, fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Annotation> annotation(final String name) throws ClassNotFoundException {
+        return (Class<? extends Annotation>)Class.forName("jdk.jfr." + name); //$NON-NLS-1$
+    }
+}
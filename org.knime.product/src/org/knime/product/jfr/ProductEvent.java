@@ -0,0 +1,180 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.jfr;
+
+/**
+ * A JDK Flight Recorder event of this plug-in. Events are started with {@link #begin(ProductEventType)}, filled with
+ * the fields declared by their {@link ProductEventType} and finally committed:
+ *
+ * <pre>
+ * ProductEvent event = ProductEvent.begin(ProductEventType.TILE_FETCH).set("url", url);
+ * ...
+ * event.set("status", code).set("bytes", content.length).commit();
+ * </pre>
+ *
+ * If no recording is running, or the JVM has no flight recorder, {@link #begin(ProductEventType)} returns a shared
+ * event that ignores all calls, so that instrumented code only pays for a volatile read. Callers should avoid
+ * computing expensive field values unless {@link #isEnabled()} returns <code>true</code>.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ProductEvent {
+    private static final ProductEvent DISABLED = new ProductEvent(null, null);
+
+    private final ProductEventType m_type;
+
+    private final Object m_event;
+
+    private ProductEvent(final ProductEventType type, final Object event) {
+        m_type = type;
+        m_event = event;
+    }
+
+    /**
+     * Starts a new event.
+     *
+     * @param type the event type
+     * @return a new event, or a shared disabled event if nothing is recorded
+     */
+    public static ProductEvent begin(final ProductEventType type) {
+        if (!FlightRecorderSupport.isRecording()) {
+            return DISABLED;
+        }
+        Object event = FlightRecorderSupport.newEvent(type);
+        if (event == null) {
+            return DISABLED;
+        }
+        try {
+            FlightRecorderSupport.begin.invoke(event);
+        } catch (Throwable ex) { // the handle cannot throw checked exceptions
+            return DISABLED;
+        }
+        return new ProductEvent(type, event);
+    }
+
+    /**
+     * Returns whether a recording is running, i.e. whether events created now may be recorded. This allows computing
+     * expensive field values before an event is begun so that they do not count towards its duration.
+     *
+     * @return <code>true</code> if a recording is running, <code>false</code> otherwise
+     */
+    public static boolean isRecording() {
+        return FlightRecorderSupport.isRecording();
+    }
+
+    /**
+     * Returns whether this event will be recorded.
+     *
+     * @return <code>true</code> if the event is recorded, <code>false</code> if all calls are ignored
+     */
+    public boolean isEnabled() {
+        return m_event != null;
+    }
+
+    /**
+     * Sets a numeric field.
+     *
+     * @param field the field's name
+     * @param value the value
+     * @return this event
+     */
+    public ProductEvent set(final String field, final long value) {
+        if (m_event != null) {
+            setValue(field, Long.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Sets a boolean field.
+     *
+     * @param field the field's name
+     * @param value the value
+     * @return this event
+     */
+    public ProductEvent set(final String field, final boolean value) {
+        if (m_event != null) {
+            setValue(field, Boolean.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Sets a string field. The value's {@link Object#toString()} is only called if the event is recorded.
+     *
+     * @param field the field's name
+     * @param value the value, may be <code>null</code>
+     * @return this event
+     */
+    public ProductEvent set(final String field, final Object value) {
+        if (m_event != null) {
+            setValue(field, (value != null) ? value.toString() : null);
+        }
+        return this;
+    }
+
+    private void setValue(final String field, final Object value) {
+        try {
+            FlightRecorderSupport.set.invoke(m_event, m_type.indexOf(field), value);
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (Throwable ex) { // the handle cannot throw checked exceptions
+            // ignore, the event is incomplete then
+        }
+    }
+
+    /**
+     * Ends the event and writes it to all running recordings, unless it is disabled by their settings.
+     */
+    public void commit() {
+        if (m_event != null) {
+            try {
+                FlightRecorderSupport.commit.invoke(m_event);
+            } catch (Throwable ex) { // the handle cannot throw checked exceptions
+                // nothing we can do
+            }
+        }
+    }
+}
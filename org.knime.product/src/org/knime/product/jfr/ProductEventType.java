@@ -0,0 +1,178 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.jfr;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The JDK Flight Recorder events emitted by this plug-in. All events are in the category <i>KNIME / Product</i> and
+ * have the name <tt>org.knime.product.&lt;name&gt;</tt>, so that they can be enabled or disabled in a JFR settings
+ * file. Besides the listed fields each event has the usual start time, duration and thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public enum ProductEventType {
+    /** Download of the profiles from a remote profile location. */
+    PROFILE_DOWNLOAD("ProfileDownload", "Profile Download", "Download of the profiles from a remote location", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("uri", String.class, "URI"), field("status", long.class, "HTTP Status"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        bytes("bytes", "Downloaded Bytes")), //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** Merging the preferences of all profiles into the plug-in customization file. */
+    PREFERENCE_MERGE("PreferenceMerge", "Preference Merge", "Merging the preferences of all profiles", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("profiles", long.class, "Profiles"), field("keys", long.class, "Preferences")), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    /** Replacing variables in the preferences of a single profile. */
+    VARIABLE_SUBSTITUTION("VariableSubstitution", "Variable Substitution", //$NON-NLS-1$ //$NON-NLS-2$
+        "Replacing variables in the preferences of a profile", field("profile", String.class, "Profile"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("values", long.class, "Values"), field("substituted", long.class, "Substituted Values")), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    /** A run of an injector or updater of the intro page. */
+    INTRO_MODIFIER("IntroModifier", "Intro Page Modifier", "A run of an intro page injector or updater", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("modifier", String.class, "Modifier"), field("successful", boolean.class, "Successful")), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+    /** Fetching the welcome page tiles from the server. */
+    TILE_FETCH("TileFetch", "Tile Fetch", "Fetching the welcome page tiles from the server", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("url", String.class, "URL"), field("status", long.class, "HTTP Status"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        bytes("bytes", "Downloaded Bytes")), //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** A p2 repository event received by the repository updater. */
+    REPOSITORY_EVENT("RepositoryEvent", "Repository Event", "A p2 repository event received by the repository updater", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("location", String.class, "Location"), field("kind", long.class, "Kind"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        field("enqueued", boolean.class, "Enqueued")), //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** Processing a batch of p2 repository events by the repository updater. */
+    REPOSITORY_EVENT_BATCH("RepositoryEventBatch", "Repository Event Batch", //$NON-NLS-1$ //$NON-NLS-2$
+        "Processing a batch of p2 repository events by the repository updater", //$NON-NLS-1$
+        field("events", long.class, "Events")), //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** Execution of a custom p2 touchpoint action. */
+    P2_ACTION("P2Action", "p2 Action", "Execution of a custom p2 touchpoint action", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("action", String.class, "Action"), field("argument", String.class, "Argument"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        field("successful", boolean.class, "Successful")), //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** The full save of the workspace during shutdown. */
+    WORKSPACE_SAVE("WorkspaceSave", "Workspace Save", "Full save of the workspace during shutdown", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        field("workspaceResources", long.class, "Workspace Resources")); //$NON-NLS-1$ //$NON-NLS-2$
+
+    /**
+     * A field of an event.
+     */
+    static final class Field {
+        final String m_name;
+
+        final Class<?> m_type;
+
+        final String m_label;
+
+        final boolean m_bytes;
+
+        private Field(final String name, final Class<?> type, final String label, final boolean bytes) {
+            m_name = name;
+            m_type = type;
+            m_label = label;
+            m_bytes = bytes;
+        }
+    }
+
+    private final String m_name;
+
+    private final String m_label;
+
+    private final String m_description;
+
+    private final List<Field> m_fields;
+
+    private ProductEventType(final String name, final String label, final String description, final Field... fields) {
+        m_name = "org.knime.product." + name; //$NON-NLS-1$
+        m_label = label;
+        m_description = description;
+        m_fields = Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    private static Field field(final String name, final Class<?> type, final String label) {
+        return new Field(name, type, label, false);
+    }
+
+    private static Field bytes(final String name, final String label) {
+        return new Field(name, long.class, label, true);
+    }
+
+    /**
+     * @return the event's name as shown in recordings
+     */
+    public String getName() {
+        return m_name;
+    }
+
+    String getLabel() {
+        return m_label;
+    }
+
+    String getDescription() {
+        return m_description;
+    }
+
+    List<Field> getFields() {
+        return m_fields;
+    }
+
+    /**
+     * Returns the index of the field with the given name.
+     *
+     * @param name the field's name
+     * @return the index
+     * @throws IllegalArgumentException if the event has no such field
+     */
+    int indexOf(final String name) {
+        for (int i = 0; i < m_fields.size(); i++) {
+            if (m_fields.get(i).m_name.equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Event " + m_name + " has no field " + name); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed on-disk cache for p2 artifacts. Artifact contents are stored as <tt>blobs/&lt;sha256&gt;</tt>,
+ * and a reference file <tt>refs/&lt;sha256 of the key&gt;</tt> maps a cache key (usually the normalized upstream URL)
+ * to a blob. Identical artifacts that are offered by several update sites are therefore stored only once. The cache
+ * is size-limited; the least recently used blobs are evicted first. Access times are tracked via the blob's last
+ * modification time so that they survive restarts.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ArtifactCache {
+    private final Path m_blobDir;
+
+    private final Path m_refDir;
+
+    private final Path m_tmpDir;
+
+    private final long m_maxSize;
+
+    private final AtomicLong m_currentSize = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param cacheDir the directory in which the cache is stored, will be created if necessary
+     * @param maxSize the maximum size of all cached artifacts in bytes
+     * @throws IOException if the cache directories cannot be created
+     */
+    ArtifactCache(final Path cacheDir, final long maxSize) throws IOException {
+        m_blobDir = Files.createDirectories(cacheDir.resolve("blobs")); //$NON-NLS-1$
+        m_refDir = Files.createDirectories(cacheDir.resolve("refs")); //$NON-NLS-1$
+        m_tmpDir = Files.createDirectories(cacheDir.resolve("tmp")); //$NON-NLS-1$
+        m_maxSize = maxSize;
+
+        try (Stream<Path> blobs = Files.list(m_blobDir)) {
+            m_currentSize.set(blobs.mapToLong(p -> p.toFile().length()).sum());
+        }
+    }
+
+    /**
+     * Looks up the artifact for the given key. A successful lookup marks the artifact as recently used.
+     *
+     * @param key the cache key
+     * @return the file containing the cached artifact or <code>null</code> if it is not cached
+     */
+    File get(final String key) {
+        Path ref = m_refDir.resolve(sha256(key));
+        try {
+            String blobHash = new String(Files.readAllBytes(ref), StandardCharsets.US_ASCII).trim();
+            Path blob = m_blobDir.resolve(blobHash);
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+            return blob.toFile();
+        } catch (NoSuchFileException ex) {
+            // not cached or blob has been evicted
+            return null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens a stream for storing a new artifact in the cache. The artifact only becomes visible after
+     * {@link PendingEntry#commit()} has been called.
+     *
+     * @param key the cache key
+     * @return a new pending entry
+     * @throws IOException if the temporary file cannot be created
+     */
+    PendingEntry put(final String key) throws IOException {
+        return new PendingEntry(key, Files.createTempFile(m_tmpDir, "artifact", ".part")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Returns the total size of all cached artifacts.
+     *
+     * @return the size in bytes
+     */
+    long size() {
+        return m_currentSize.get();
+    }
+
+    private synchronized void evictIfNecessary() {
+        if (m_currentSize.get() <= m_maxSize) {
+            return;
+        }
+
+        List<Path> blobs = new ArrayList<>();
+        try (Stream<Path> s = Files.list(m_blobDir)) {
+            s.forEach(blobs::add);
+        } catch (IOException ex) {
+            return;
+        }
+        blobs.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+
+        // evict down to 90% so that we don't run an eviction after every single download
+        long target = m_maxSize / 10 * 9;
+        for (Path blob : blobs) {
+            if (m_currentSize.get() <= target) {
+                break;
+            }
+            long length = blob.toFile().length();
+            try {
+                // references to deleted blobs are resolved as cache misses
+                Files.deleteIfExists(blob);
+                m_currentSize.addAndGet(-length);
+            } catch (IOException ex) {
+                // file may be in use (Windows), try the next one
+            }
+        }
+    }
+
+    static String sha256(final String s) {
+        return toHex(newDigest().digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+        } catch (NoSuchAlgorithmException ex) {
+            // every JVM must support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * An artifact that is currently being written into the cache.
+     */
+    final class PendingEntry implements AutoCloseable {
+        private final String m_key;
+
+        private final Path m_tempFile;
+
+        private final DigestOutputStream m_out;
+
+        private boolean m_committed;
+
+        private PendingEntry(final String key, final Path tempFile) throws IOException {
+            m_key = key;
+            m_tempFile = tempFile;
+            m_out = new DigestOutputStream(Files.newOutputStream(tempFile), newDigest());
+        }
+
+        /**
+         * @return the stream into which the artifact's content must be written
+         */
+        OutputStream getOutputStream() {
+            return m_out;
+        }
+
+        /**
+         * Makes the written artifact visible in the cache.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void commit() throws IOException {
+            m_out.close();
+            String blobHash = toHex(m_out.getMessageDigest().digest());
+            Path blob = m_blobDir.resolve(blobHash);
+            if (Files.exists(blob)) {
+                // same content already cached under a different key
+                Files.delete(m_tempFile);
+                Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                long length = Files.size(m_tempFile);
+                move(m_tempFile, blob);
+                m_currentSize.addAndGet(length);
+            }
+
+            Path tempRef = Files.createTempFile(m_tmpDir, "ref", ".part"); //$NON-NLS-1$ //$NON-NLS-2$
+            Files.write(tempRef, blobHash.getBytes(StandardCharsets.US_ASCII));
+            move(tempRef, m_refDir.resolve(sha256(m_key)));
+            m_committed = true;
+
+            evictIfNecessary();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!m_committed) {
+                m_out.close();
+                Files.deleteIfExists(m_tempFile);
+            }
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,563 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.knime.core.node.NodeLogger;
+import org.knime.product.p2.ArtifactCache.PendingEntry;
+
+/**
+ * Optional local caching proxy for p2 artifact repositories. If enabled via the system property
+ * {@value #PORT_PROPERTY}, artifact repository URIs of KNIME update sites are rewritten by the
+ * {@link RepositoryUpdater} to point to this proxy, e.g.
+ * <tt>http://update.knime.com/analytics-platform/4.2/knid=.../</tt> becomes
+ * <tt>http://127.0.0.1:&lt;port&gt;/p2/http/update.knime.com/-/analytics-platform/4.2/knid=.../</tt>. Downloaded
+ * artifacts (features, plug-ins, binaries) are stored in a shared {@link ArtifactCache}, everything else (e.g. the
+ * repository index) is passed through. Only HTTP(S) requests to KNIME update sites (see
+ * {@link RepositoryURIs#isKnimeURI(URI)}) are forwarded, and requests with a <tt>Host</tt> header other than the proxy's
+ * own address are rejected, so that neither other local processes nor web pages (via DNS rebinding) can use the proxy
+ * to reach arbitrary hosts.
+ *
+ * <p>
+ * The proxy is shared by all installations that use the same cache directory, which by default is per user: the first
+ * installation that binds the configured port serves the requests for all others. An installation that finds the
+ * port in use only trusts the listener if it proves that it knows the secret key stored in the cache directory
+ * (<tt>proxy.key</tt>, only readable by its owner); otherwise the proxy is not used, so that another user on a terminal
+ * server cannot serve artifacts by binding the port first. Installations that could not bind the port periodically try
+ * to take over in case the serving installation is shut down, and verify the listener again if they cannot.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ArtifactCacheProxy {
+    /** System property with the port of the local proxy; the proxy is disabled if the property is not set. */
+    public static final String PORT_PROPERTY = "knime.p2.proxy.port"; //$NON-NLS-1$
+
+    /** System property with the cache directory, defaults to <tt>~/.knime/p2-artifact-cache</tt>. */
+    public static final String CACHE_DIR_PROPERTY = "knime.p2.proxy.cachedir"; //$NON-NLS-1$
+
+    /** System property with the maximum cache size in megabytes, defaults to 4096. */
+    public static final String MAX_SIZE_PROPERTY = "knime.p2.proxy.maxsize"; //$NON-NLS-1$
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ArtifactCacheProxy.class);
+
+    private static final String PATH_PREFIX = "/p2/"; //$NON-NLS-1$
+
+    private static final String VERIFY_PATH = "/verify"; //$NON-NLS-1$
+
+    private static final String KEY_FILE = "proxy.key"; //$NON-NLS-1$
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256"; //$NON-NLS-1$
+
+    private static final String LOOPBACK_HOST = "127.0.0.1"; //$NON-NLS-1$
+
+    private static final Pattern KNID_SEGMENT = Pattern.compile("/knid=[^/]+/"); //$NON-NLS-1$
+
+    private static final Pattern CACHEABLE_PATH = Pattern.compile(".*/(?:plugins|features|binary)/[^/]+$"); //$NON-NLS-1$
+
+    private static final int UPSTREAM_TIMEOUT = 30000;
+
+    private static final long TAKEOVER_INTERVAL = 30000;
+
+    private static final int IDLE_TIMEOUT = 15000;
+
+    private static final int VERIFY_TIMEOUT = 5000;
+
+    private static ArtifactCacheProxy instance;
+
+    private static boolean initialized;
+
+    private final int m_port;
+
+    private final ArtifactCache m_cache;
+
+    private final byte[] m_key;
+
+    private HttpServer m_server;
+
+    private ArtifactCacheProxy(final int port, final ArtifactCache cache, final byte[] key) {
+        m_port = port;
+        m_cache = cache;
+        m_key = key;
+    }
+
+    /**
+     * Returns the proxy instance and starts it on the first call. If the proxy is not enabled or cannot be set up,
+     * <code>null</code> is returned.
+     *
+     * @return the proxy or <code>null</code>
+     */
+    public static synchronized ArtifactCacheProxy getInstance() {
+        if (!initialized) {
+            initialized = true;
+            int port = Integer.getInteger(PORT_PROPERTY, 0);
+            if (port > 0) {
+                Path cacheDir = Paths.get(System.getProperty(CACHE_DIR_PROPERTY,
+                    System.getProperty("user.home") + "/.knime/p2-artifact-cache")); //$NON-NLS-1$ //$NON-NLS-2$
+                long maxSize = Long.getLong(MAX_SIZE_PROPERTY, 4096) * 1024 * 1024;
+                try {
+                    ArtifactCache cache = new ArtifactCache(cacheDir, maxSize);
+                    instance = new ArtifactCacheProxy(port, cache, loadKey(cacheDir));
+                    instance.start();
+                } catch (IOException ex) {
+                    LOGGER.error("Could not set up local artifact proxy: " + ex.getMessage(), ex); //$NON-NLS-1$
+                    instance = null;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the secret key from the cache directory, creating it if it does not exist yet. A new key is written into a
+     * temporary file first, which is only readable by the current user on POSIX file systems.
+     */
+    private static byte[] loadKey(final Path cacheDir) throws IOException {
+        Path keyFile = cacheDir.resolve(KEY_FILE);
+        if (!Files.exists(keyFile)) {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            Path temp = Files.createTempFile(cacheDir, "proxy", ".key"); //$NON-NLS-1$ //$NON-NLS-2$
+            try {
+                Files.write(temp, key);
+                Files.move(temp, keyFile);
+            } catch (FileAlreadyExistsException ex) {
+                // another installation has just created it
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        // always read it back so that concurrently starting installations use the same key
+        byte[] key = Files.readAllBytes(keyFile);
+        if (key.length == 0) {
+            throw new IOException("Key file '" + keyFile + "' is empty"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return key;
+    }
+
+    private void start() throws IOException {
+        if (!tryBind()) {
+            if (!verifyPeer()) {
+                throw new IOException("Port " + m_port + " is used by a process that is not a local artifact proxy " //$NON-NLS-1$ //$NON-NLS-2$
+                    + "sharing this cache directory"); //$NON-NLS-1$
+            }
+            LOGGER.info("Local artifact proxy port " + m_port + " is served by another installation"); //$NON-NLS-1$ //$NON-NLS-2$
+            Timer timer = new Timer("KNIME-Artifact-Proxy-Takeover", true); //$NON-NLS-1$
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    try {
+                        if (tryBind()) {
+                            LOGGER.info("Took over local artifact proxy on port " + m_port); //$NON-NLS-1$
+                            cancel();
+                        } else if (!verifyPeer()) {
+                            LOGGER.warn("Port " + m_port + " of the local artifact proxy has been taken over by " //$NON-NLS-1$ //$NON-NLS-2$
+                                + "an unknown process, the proxy will not be used after the next start"); //$NON-NLS-1$
+                            cancel();
+                        }
+                    } catch (IOException ex) {
+                        LOGGER.warn("Could not start local artifact proxy: " + ex.getMessage(), ex); //$NON-NLS-1$
+                        cancel();
+                    }
+                }
+            }, TAKEOVER_INTERVAL, TAKEOVER_INTERVAL);
+        }
+    }
+
+    private synchronized boolean tryBind() throws IOException {
+        HttpServer server = ServerBootstrap.bootstrap()
+            .setLocalAddress(InetAddress.getByName(LOOPBACK_HOST))
+            .setListenerPort(m_port)
+            .setSocketConfig(SocketConfig.custom().setSoTimeout(IDLE_TIMEOUT).build())
+            .setExceptionLogger(ex -> {
+                if (!(ex instanceof SocketTimeoutException) && !(ex instanceof ConnectionClosedException)) {
+                    LOGGER.debug("Error in local artifact proxy: " + ex.getMessage(), ex); //$NON-NLS-1$
+                }
+            })
+            .registerHandler(PATH_PREFIX + "*", this::handle) //$NON-NLS-1$
+            .registerHandler(VERIFY_PATH, this::handleVerify)
+            .create();
+        try {
+            server.start();
+        } catch (BindException ex) {
+            server.shutdown(0, TimeUnit.MILLISECONDS);
+            return false;
+        }
+        m_server = server;
+        LOGGER.debug("Local artifact proxy listening on port " + m_port + ", cache size is " //$NON-NLS-1$ //$NON-NLS-2$
+            + (m_cache.size() / 1024 / 1024) + " MB"); //$NON-NLS-1$
+        return true;
+    }
+
+    /**
+     * Checks whether the process listening on the proxy port knows the secret key by sending it a random challenge.
+     */
+    private boolean verifyPeer() {
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        String challenge = toHex(random);
+        try {
+            URL url = new URL("http", LOOPBACK_HOST, m_port, VERIFY_PATH + "?" + challenge); //$NON-NLS-1$ //$NON-NLS-2$
+            HttpURLConnection conn = (HttpURLConnection)url.openConnection(Proxy.NO_PROXY);
+            try {
+                conn.setConnectTimeout(VERIFY_TIMEOUT);
+                conn.setReadTimeout(VERIFY_TIMEOUT);
+                if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    return false;
+                }
+                byte[] answer;
+                try (InputStream in = conn.getInputStream()) {
+                    answer = IOUtils.toByteArray(in);
+                }
+                return MessageDigest.isEqual(sign(challenge).getBytes(StandardCharsets.US_ASCII), answer);
+            } finally {
+                conn.disconnect();
+            }
+        } catch (IOException ex) {
+            LOGGER.debug("Could not verify local artifact proxy on port " + m_port + ": " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+    }
+
+    private String sign(final String challenge) throws IOException {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(m_key, HMAC_ALGORITHM));
+            return toHex(mac.doFinal(challenge.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns whether this installation is currently serving the proxy requests.
+     *
+     * @return <code>true</code> if the proxy server is running in this process, <code>false</code> otherwise
+     */
+    public synchronized boolean isServing() {
+        return m_server != null;
+    }
+
+    /**
+     * Converts an upstream repository URI into the corresponding URI on the local proxy.
+     *
+     * @param upstream the upstream repository URI
+     * @return the proxy URI
+     * @throws URISyntaxException if the proxy URI cannot be created
+     */
+    public URI toProxyURI(final URI upstream) throws URISyntaxException {
+        String port = (upstream.getPort() < 0) ? "-" : Integer.toString(upstream.getPort()); //$NON-NLS-1$
+        String path = PATH_PREFIX + upstream.getScheme() + "/" + upstream.getHost() + "/" + port //$NON-NLS-1$ //$NON-NLS-2$
+            + ((upstream.getPath() == null) ? "" : upstream.getPath()); //$NON-NLS-1$
+        return new URI("http", null, LOOPBACK_HOST, m_port, path, upstream.getQuery(), upstream.getFragment()); //$NON-NLS-1$
+    }
+
+    /**
+     * Checks whether the given URI points to a local artifact proxy (independent of the proxy being enabled).
+     *
+     * @param uri any URI
+     * @return <code>true</code> if it is a proxy URI, <code>false</code> otherwise
+     */
+    public static boolean isProxyURI(final URI uri) {
+        return LOOPBACK_HOST.equals(uri.getHost()) && (uri.getPath() != null)
+            && uri.getPath().startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * Converts a proxy URI back into the upstream URI.
+     *
+     * @param proxyUri a proxy URI, see {@link #isProxyURI(URI)}
+     * @return the upstream URI or <code>null</code> if the URI is not a valid proxy URI
+     */
+    public static URI toUpstreamURI(final URI proxyUri) {
+        // /p2/<scheme>/<host>/<port>/<path>
+        String[] parts = proxyUri.getPath().substring(PATH_PREFIX.length()).split("/", 4); //$NON-NLS-1$
+        if (parts.length < 3) {
+            return null;
+        }
+        try {
+            int port = "-".equals(parts[2]) ? -1 : Integer.parseInt(parts[2]); //$NON-NLS-1$
+            String path = (parts.length > 3) ? "/" + parts[3] : "/"; //$NON-NLS-1$ //$NON-NLS-2$
+            return new URI(parts[0], null, parts[1], port, path, proxyUri.getQuery(), null);
+        } catch (NumberFormatException | URISyntaxException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the request has been sent to the proxy's own address, which rejects requests that have been
+     * redirected to us via DNS rebinding.
+     */
+    private boolean isValidHost(final HttpRequest request) {
+        Header host = request.getFirstHeader("Host"); //$NON-NLS-1$
+        return (host != null) && (LOOPBACK_HOST + ":" + m_port).equals(host.getValue()); //$NON-NLS-1$
+    }
+
+    /**
+     * Only KNIME update sites are proxied, see {@link RepositoryUpdater}.
+     */
+    private static boolean isAllowedUpstream(final URI upstream) {
+        return ("http".equals(upstream.getScheme()) || "https".equals(upstream.getScheme())) //$NON-NLS-1$ //$NON-NLS-2$
+            && RepositoryURIs.isKnimeURI(upstream);
+    }
+
+    private void handleVerify(final HttpRequest request, final HttpResponse response, final HttpContext context)
+        throws IOException {
+        String challenge;
+        try {
+            challenge = new URI(request.getRequestLine().getUri()).getQuery();
+        } catch (URISyntaxException ex) {
+            challenge = null;
+        }
+        if (!isValidHost(request)) {
+            response.setStatusCode(HttpStatus.SC_FORBIDDEN);
+        } else if ((challenge == null) || challenge.isEmpty()) {
+            response.setStatusCode(HttpStatus.SC_BAD_REQUEST);
+        } else {
+            response.setStatusCode(HttpStatus.SC_OK);
+            response.setEntity(new ByteArrayEntity(sign(challenge).getBytes(StandardCharsets.US_ASCII),
+                ContentType.TEXT_PLAIN));
+        }
+    }
+
+    private void handle(final HttpRequest request, final HttpResponse response, final HttpContext context)
+        throws IOException {
+        if (!isValidHost(request)) {
+            response.setStatusCode(HttpStatus.SC_FORBIDDEN);
+            return;
+        }
+        String method = request.getRequestLine().getMethod();
+        URI upstream;
+        try {
+            upstream = toUpstreamURI(new URI(request.getRequestLine().getUri()));
+        } catch (URISyntaxException ex) {
+            upstream = null;
+        }
+        if (upstream == null) {
+            response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            return;
+        } else if (!isAllowedUpstream(upstream)) {
+            response.setStatusCode(HttpStatus.SC_FORBIDDEN);
+            return;
+        } else if (!"GET".equals(method) && !"HEAD".equals(method)) { //$NON-NLS-1$ //$NON-NLS-2$
+            response.setStatusCode(HttpStatus.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        boolean headOnly = "HEAD".equals(method); //$NON-NLS-1$
+
+        try {
+            // artifacts are immutable, so we can serve them from the cache; the knid segment is removed from the
+            // key so that all installations share the same entries
+            boolean cacheable = CACHEABLE_PATH.matcher(upstream.getPath()).matches();
+            String key = KNID_SEGMENT.matcher(upstream.toString()).replaceFirst("/"); //$NON-NLS-1$
+            if (cacheable) {
+                File cached = m_cache.get(key);
+                if (cached != null) {
+                    // the body is not sent for HEAD requests
+                    response.setStatusCode(HttpStatus.SC_OK);
+                    response.setEntity(new FileEntity(cached, ContentType.APPLICATION_OCTET_STREAM));
+                    return;
+                }
+            }
+
+            forward(response, upstream, method, cacheable && !headOnly ? key : null);
+        } catch (IOException ex) {
+            LOGGER.debug("Error while serving '" + upstream + "': " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            throw ex;
+        }
+    }
+
+    private void forward(final HttpResponse response, final URI upstream, final String method,
+        final String cacheKey) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection)upstream.toURL().openConnection();
+        boolean streaming = false;
+        try {
+            conn.setRequestMethod(method);
+            conn.setConnectTimeout(UPSTREAM_TIMEOUT);
+            conn.setReadTimeout(UPSTREAM_TIMEOUT);
+            int code = conn.getResponseCode();
+            response.setStatusCode(code);
+
+            InputStream in = (code >= 400) ? conn.getErrorStream() : conn.getInputStream();
+            UpstreamEntity entity = new UpstreamEntity(conn, ("HEAD".equals(method)) ? null : in, //$NON-NLS-1$
+                conn.getContentLengthLong(), (code == HttpURLConnection.HTTP_OK) ? cacheKey : null);
+            entity.setContentType(conn.getContentType());
+            if ((in != null) || (entity.getContentLength() >= 0)) {
+                response.setEntity(entity);
+            }
+            // the entity closes the connection once the body has been sent
+            streaming = "GET".equals(method) && (in != null); //$NON-NLS-1$
+        } finally {
+            if (!streaming) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Response entity that streams the upstream response to the client and, if a cache key is given, into the cache.
+     * For HEAD requests only the length is used, no body is sent.
+     */
+    private final class UpstreamEntity extends AbstractHttpEntity {
+        private final HttpURLConnection m_conn;
+
+        private final InputStream m_in;
+
+        private final long m_length;
+
+        private final String m_cacheKey;
+
+        UpstreamEntity(final HttpURLConnection conn, final InputStream in, final long length,
+            final String cacheKey) {
+            m_conn = conn;
+            m_in = in;
+            m_length = length;
+            m_cacheKey = cacheKey;
+            setChunked(length < 0);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return m_length;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return m_in;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return m_in != null;
+        }
+
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            if (m_in == null) {
+                return;
+            }
+            try (InputStream is = m_in) {
+                if (m_cacheKey != null) {
+                    try (PendingEntry entry = m_cache.put(m_cacheKey)) {
+                        long copied = tee(is, out, entry.getOutputStream());
+                        if ((m_length < 0) || (copied == m_length)) {
+                            entry.commit();
+                        }
+                    }
+                } else {
+                    IOUtils.copy(is, out);
+                }
+            } finally {
+                m_conn.disconnect();
+            }
+        }
+    }
+
+    private static long tee(final InputStream in, final OutputStream out1, final OutputStream out2)
+        throws IOException {
+        byte[] buf = new byte[16384];
+        long total = 0;
+        int r;
+        while ((r = in.read(buf)) >= 0) {
+            out1.write(buf, 0, r);
+            out2.write(buf, 0, r);
+            total += r;
+        }
+        return total;
+    }
+}
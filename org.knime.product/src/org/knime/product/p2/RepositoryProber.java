@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Probes update sites for availability and latency by issuing <tt>HEAD</tt> requests on their index files
+ * (<tt>content.jar</tt> for metadata repositories, <tt>artifacts.jar</tt> for artifact repositories). All repositories
+ * are probed concurrently with short timeouts so that a probe run never takes much longer than a single timeout.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RepositoryProber {
+    /** Connect and read timeout for a single probe in milliseconds. */
+    static final int PROBE_TIMEOUT = 2000;
+
+    private static final int MAX_PARALLEL_PROBES = 8;
+
+    /** Latency value for unreachable repositories. */
+    static final long UNREACHABLE = -1;
+
+    private RepositoryProber() {
+    }
+
+    /**
+     * Probes all given repositories concurrently and waits for the results.
+     *
+     * @param locations the repository locations to probe
+     * @param indexFile the index file that is requested relative to each location, e.g. <tt>content.jar</tt>
+     * @return a map with the measured latency in milliseconds for each location, or {@link #UNREACHABLE} if the
+     *         repository could not be reached; the order is the same as in the input collection
+     * @throws InterruptedException if the current thread is interrupted while waiting for the probes
+     */
+    static Map<URI, Long> probe(final Collection<URI> locations, final String indexFile)
+        throws InterruptedException {
+        Map<URI, Long> result = new LinkedHashMap<>();
+        if (locations.isEmpty()) {
+            return result;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(locations.size(), MAX_PARALLEL_PROBES), r -> {
+            Thread t = new Thread(r, "KNIME-Update-Site-Probe-" + threadCount.incrementAndGet()); //$NON-NLS-1$
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Long>> futures = new ArrayList<>(locations.size());
+            for (URI uri : locations) {
+                futures.add(executor.submit(() -> probe(uri, indexFile)));
+            }
+
+            int i = 0;
+            for (URI uri : locations) {
+                Future<Long> f = futures.get(i++);
+                long latency;
+                try {
+                    // the connection timeouts should already take care of this, the additional timeout is only a
+                    // safety net against servers that trickle in data
+                    latency = f.get(3 * PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException ex) {
+                    f.cancel(true);
+                    latency = UNREACHABLE;
+                }
+                result.put(uri, latency);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Probes a single repository.
+     *
+     * @param location the repository location
+     * @param indexFile the index file that is requested relative to the location
+     * @return the latency in milliseconds or {@link #UNREACHABLE}
+     */
+    static long probe(final URI location, final String indexFile) {
+        String base = location.toString();
+        if (!base.endsWith("/")) { //$NON-NLS-1$
+            base += "/"; //$NON-NLS-1$
+        }
+
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection)new URL(base + indexFile).openConnection();
+            conn.setRequestMethod("HEAD"); //$NON-NLS-1$
+            conn.setConnectTimeout(PROBE_TIMEOUT);
+            conn.setReadTimeout(PROBE_TIMEOUT);
+            conn.setInstanceFollowRedirects(true);
+
+            long start = System.nanoTime();
+            int code = conn.getResponseCode();
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // any answer except server errors means the site is alive; composite repositories e.g. answer with 404
+            // because they only have a compositeContent.jar
+            return (code > 0) && (code < 500) ? latency : UNREACHABLE;
+        } catch (IOException | IllegalArgumentException ex) {
+            return UNREACHABLE;
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+}
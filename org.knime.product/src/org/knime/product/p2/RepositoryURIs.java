@@ -0,0 +1,102 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.regex.Pattern;
+
+/**
+ * Helper methods for the update site URIs rewritten by {@link RepositoryUpdater}. They do not need a running platform
+ * and can therefore also be used in benchmarks.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RepositoryURIs {
+    private static final Pattern KNID_PATTERN = Pattern
+        .compile("/knid=[0-9a-fA-F]{2,2}-[0-9a-fA-F]{16,16}(?:-[0-9a-fA-F]+){0,}/"); //$NON-NLS-1$
+
+    private static final Pattern KNIME_HOST_PATTERN = Pattern.compile("^(?:www|tech|update)\\.knime\\.(?:org|com)$"); //$NON-NLS-1$
+
+    private RepositoryURIs() {
+    }
+
+    /**
+     * Checks whether the URI's path already contains a KNIME ID.
+     *
+     * @param uri a repository URI
+     * @return <code>true</code> if the path contains a <tt>knid=</tt> segment, <code>false</code> otherwise
+     */
+    static boolean urlContainsID(final URI uri) {
+        return (uri.getPath() != null) && KNID_PATTERN.matcher(uri.getPath()).find();
+    }
+
+    /**
+     * Checks whether the URI points to one of the KNIME update site hosts.
+     *
+     * @param uri a repository URI
+     * @return <code>true</code> if it is a KNIME URI, <code>false</code> otherwise
+     */
+    static boolean isKnimeURI(final URI uri) {
+        return (uri.getHost() != null) && KNIME_HOST_PATTERN.matcher(uri.getHost()).matches();
+    }
+
+    /**
+     * Appends a <tt>knid=</tt> segment with the given instance ID to the URI's path, unless it already contains one.
+     *
+     * @param uri a repository URI
+     * @param instanceID the KNIME instance ID
+     * @return the URI with the ID, or <tt>uri</tt> itself if it already contains an ID
+     * @throws URISyntaxException if the new URI is invalid
+     */
+    static URI withID(final URI uri, final String instanceID) throws URISyntaxException {
+        if (urlContainsID(uri)) {
+            return uri;
+        }
+        String knidPath = (uri.getPath().endsWith("/") ? "" : "/") + "knid=" + instanceID + "/"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        return new URI(uri.getScheme(), uri.getUserInfo(), uri.getHost(), uri.getPort(), uri.getPath() + knidPath,
+            uri.getQuery(), uri.getFragment());
+    }
+}
@@ -53,11 +53,17 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EventObject;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -65,19 +71,25 @@
 import org.eclipse.equinox.internal.provisional.p2.core.eventbus.ProvisioningListener;
 import org.eclipse.equinox.internal.provisional.p2.repository.RepositoryEvent;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.engine.ProvisioningContext;
 import org.eclipse.equinox.p2.repository.IRepository;
 import org.eclipse.equinox.p2.repository.IRepositoryManager;
 import org.eclipse.equinox.p2.repository.artifact.IArtifactRepositoryManager;
 import org.eclipse.equinox.p2.repository.metadata.IMetadataRepositoryManager;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
+import org.osgi.service.prefs.BackingStoreException;
 
 /**
  * Singleton class that updates artifact repository URIs to include the instance ID. The singleton registers itself as a
- * listener to the p2 event bus so that it can react on changes to repository URIs immediately.
+ * listener to the p2 event bus so that it can react on changes to repository URIs. Events are coalesced per repository
+ * location and processed in batches in the background so that event storms (e.g. when importing many update sites at
+ * once) do not block the p2 event thread.
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  * @since 2.10
@@ -93,43 +105,100 @@ public class RepositoryUpdater implements ProvisioningListener {
 
     private final Set<URI> m_addedDefaultRepositories = new HashSet<>();
 
+    /**
+     * Pending repository events, coalesced per repository location. Only the latest event for each location is kept
+     * because it fully describes the state the artifact repository must be brought into.
+     */
+    private final Map<URI, RepositoryEvent> m_pendingEvents = new LinkedHashMap<>();
+
+    private boolean m_batchScheduled;
+
+    private IProvisioningAgent m_agent;
+
+    private IArtifactRepositoryManager m_artifactRepoManager;
+
+    private IMetadataRepositoryManager m_metadataRepoManager;
+
+    /** Latencies of the last probe run in milliseconds, {@link RepositoryProber#UNREACHABLE} for dead sites. */
+    private final Map<URI, Long> m_latencies = new ConcurrentHashMap<>();
+
+    /** Whether at least one site answered in the last probe run, otherwise we are most likely offline. */
+    private volatile boolean m_anyReachable;
+
+    private static final String PROBE_PREF_PREFIX = "us_probe-"; //$NON-NLS-1$
+
     private RepositoryUpdater() {
-        BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
-        ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
-        if (ref != null) {
-            IProvisioningAgent agent = context.getService(ref);
-            try {
-                IProvisioningEventBus eventBus =
-                    (IProvisioningEventBus)agent.getService(IProvisioningEventBus.SERVICE_NAME);
-                if (eventBus != null) {
-                    // is null if started from the SDK
-                    eventBus.addListener(this);
-                }
-            } finally {
-                context.ungetService(ref);
+        IProvisioningAgent agent = getProvisioningAgent();
+        if (agent != null) {
+            IProvisioningEventBus eventBus =
+                (IProvisioningEventBus)agent.getService(IProvisioningEventBus.SERVICE_NAME);
+            if (eventBus != null) {
+                // is null if started from the SDK
+                eventBus.addListener(this);
             }
         }
     }
 
+    /**
+     * Returns the (cached) provisioning agent. The service reference is intentionally not released because the
+     * singleton lives as long as the application and uses the agent on every batch of repository events.
+     *
+     * @return the provisioning agent or <code>null</code> if it is not available
+     */
+    private synchronized IProvisioningAgent getProvisioningAgent() {
+        if (m_agent == null) {
+            BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
+            ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
+            if (ref != null) {
+                m_agent = context.getService(ref);
+            }
+        }
+        return m_agent;
+    }
+
+    /**
+     * Returns the (cached) artifact repository manager.
+     *
+     * @return the artifact repository manager or <code>null</code> if it is not available, e.g. when started from the
+     *         SDK
+     */
+    private synchronized IArtifactRepositoryManager getArtifactRepositoryManager() {
+        if (m_artifactRepoManager == null) {
+            IProvisioningAgent agent = getProvisioningAgent();
+            if (agent != null) {
+                m_artifactRepoManager =
+                    (IArtifactRepositoryManager)agent.getService(IArtifactRepositoryManager.SERVICE_NAME);
+            }
+        }
+        return m_artifactRepoManager;
+    }
+
+    /**
+     * Returns the (cached) metadata repository manager.
+     *
+     * @return the metadata repository manager or <code>null</code> if it is not available, e.g. when started from the
+     *         SDK
+     */
+    private synchronized IMetadataRepositoryManager getMetadataRepositoryManager() {
+        if (m_metadataRepoManager == null) {
+            IProvisioningAgent agent = getProvisioningAgent();
+            if (agent != null) {
+                m_metadataRepoManager =
+                    (IMetadataRepositoryManager)agent.getService(IMetadataRepositoryManager.SERVICE_NAME);
+            }
+        }
+        return m_metadataRepoManager;
+    }
+
     /**
      * Updates the URLs of all enabled artifact repository by adding the KNIME ID to them.
      */
     public void updateArtifactRepositoryURLs() {
-        BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
-        ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
-        if (ref != null) {
-            IProvisioningAgent agent = context.getService(ref);
-            try {
-                IArtifactRepositoryManager repoManager =
-                    (IArtifactRepositoryManager)agent.getService(IArtifactRepositoryManager.SERVICE_NAME);
-                if (repoManager != null) {
-                    // is null if started from the SDK
-                    for (URI uri : repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL)) {
-                        updateArtifactRepositoryURL(repoManager, uri, true);
-                    }
-                }
-            } finally {
-                context.ungetService(ref);
+        IArtifactRepositoryManager repoManager = getArtifactRepositoryManager();
+        if (repoManager != null) {
+            // is null if started from the SDK
+            for (URI uri : repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL)) {
+                updateArtifactRepositoryURL(repoManager, uri, true);
             }
         }
     }
@@ -138,24 +207,164 @@ public void updateArtifactRepositoryURLs() {
      * Adds default KNIME repositories if they don't already exist.
      */
     public void addDefaultRepositories() {
-        BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
-        ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
-        if (ref != null) {
-            IProvisioningAgent agent = context.getService(ref);
+        IMetadataRepositoryManager metadataManager = getMetadataRepositoryManager();
+        URL usFileUrl = FrameworkUtil.getBundle(getClass()).getEntry("/update-sites.txt"); //$NON-NLS-1$
+
+        if ((metadataManager != null) && (usFileUrl != null)) {
+            processDefaultRepositories(metadataManager, usFileUrl);
+        }
+    }
+
+    /**
+     * Probes all enabled metadata and artifact repositories for availability and latency in the background. The
+     * measured latencies are stored in the preferences and are used to prefer fast sites in the contexts created by
+     * {@link #createProvisioningContext(IProvisioningAgent)}. If at least one site answers, unreachable sites are left
+     * out of these contexts for the current session so that update checks and installations do not hang on them. The
+     * repositories' enablement in p2 is not changed.
+     */
+    public void probeRepositories() {
+        IMetadataRepositoryManager metadataManager = getMetadataRepositoryManager();
+        IArtifactRepositoryManager artifactManager = getArtifactRepositoryManager();
+        if ((metadataManager == null) || (artifactManager == null)) {
+            return;
+        }
+
+        IEclipsePreferences preferences =
+            InstanceScope.INSTANCE.getNode(FrameworkUtil.getBundle(getClass()).getSymbolicName());
+
+        KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> {
             try {
-                IMetadataRepositoryManager metadataManager =
-                    (IMetadataRepositoryManager)agent.getService(IMetadataRepositoryManager.SERVICE_NAME);
-                URL usFileUrl = FrameworkUtil.getBundle(getClass()).getEntry("/update-sites.txt"); //$NON-NLS-1$
+                probeRepositories(preferences, metadataManager, artifactManager);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                NodeLogger.getLogger(getClass())
+                    .warn("Error while probing update sites: " + ex.getMessage(), ex); //$NON-NLS-1$
+            }
+        });
+    }
 
-                if ((metadataManager != null) && (usFileUrl != null)) {
-                    processDefaultRepositories(metadataManager, usFileUrl);
+    private void probeRepositories(final IEclipsePreferences preferences,
+        final IMetadataRepositoryManager metadataManager, final IArtifactRepositoryManager artifactManager)
+        throws InterruptedException {
+        List<URI> metadataRepos =
+            Arrays.asList(metadataManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL));
+        List<URI> artifactRepos =
+            Arrays.asList(artifactManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL));
+
+        Map<URI, Long> metadataLatencies = RepositoryProber.probe(metadataRepos, "content.jar"); //$NON-NLS-1$
+        Map<URI, Long> artifactLatencies = RepositoryProber.probe(artifactRepos, "artifacts.jar"); //$NON-NLS-1$
+
+        m_latencies.putAll(metadataLatencies);
+        m_latencies.putAll(artifactLatencies);
+        for (Map.Entry<URI, Long> e : m_latencies.entrySet()) {
+            preferences.put(PROBE_PREF_PREFIX + e.getKey(), e.getValue() + "," + System.currentTimeMillis()); //$NON-NLS-1$
+        }
+        removeStaleLatencies(preferences, m_latencies.keySet());
+
+        // if no site answers we are most likely offline, in this case skipping all sites does not help anybody
+        m_anyReachable = m_latencies.values().stream().anyMatch(l -> l != RepositoryProber.UNREACHABLE);
+        if (m_anyReachable) {
+            for (Map.Entry<URI, Long> e : metadataLatencies.entrySet()) {
+                if (e.getValue() == RepositoryProber.UNREACHABLE) {
+                    NodeLogger.getLogger(getClass()).info("Update site '" + e.getKey() //$NON-NLS-1$
+                        + "' is not reachable, skipping it in this session"); //$NON-NLS-1$
                 }
-            } finally {
-                context.ungetService(ref);
             }
         }
     }
 
+    /**
+     * Removes the persisted latencies of repositories that have not been probed in this session, i.e. that have been
+     * removed or whose location has changed (e.g. because the instance ID or the proxy port is different).
+     */
+    private void removeStaleLatencies(final IEclipsePreferences preferences, final Set<URI> probed) {
+        try {
+            for (String key : preferences.keys()) {
+                if (key.startsWith(PROBE_PREF_PREFIX)
+                    && !probed.contains(URI.create(key.substring(PROBE_PREF_PREFIX.length())))) {
+                    preferences.remove(key);
+                }
+            }
+        } catch (BackingStoreException | IllegalArgumentException ex) {
+            NodeLogger.getLogger(getClass())
+                .debug("Could not clean up update site latencies: " + ex.getMessage(), ex); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Creates a provisioning context that contains all enabled repositories sorted by their latency. p2 queries the
+     * repositories and downloads artifacts in this order, so fast sites are preferred and slow ones are only used if
+     * they are the only source of an artifact. Local repositories always come first. Repositories that were
+     * unreachable in this session's probe run are left out, unless no site was reachable at all.
+     *
+     * @param agent the provisioning agent
+     * @return a new provisioning context
+     */
+    public ProvisioningContext createProvisioningContext(final IProvisioningAgent agent) {
+        ProvisioningContext context = new ProvisioningContext(agent);
+        IMetadataRepositoryManager metadataManager = getMetadataRepositoryManager();
+        if (metadataManager != null) {
+            context.setMetadataRepositories(sortByLatency(
+                Arrays.asList(metadataManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL))));
+        }
+        IArtifactRepositoryManager artifactManager = getArtifactRepositoryManager();
+        if (artifactManager != null) {
+            context.setArtifactRepositories(sortByLatency(
+                Arrays.asList(artifactManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_ALL))));
+        }
+        return context;
+    }
+
+    /**
+     * Returns the latency of the given repository as measured by the last probe run (see
+     * {@link #probeRepositories()}). If the repository has not been probed in this session, the value persisted by
+     * a previous session is returned.
+     *
+     * @param location a repository location
+     * @return the latency in milliseconds, <code>-1</code> if the repository was not reachable, or
+     *         {@link Long#MAX_VALUE} if no information is available
+     */
+    private long getLatency(final URI location) {
+        Long latency = m_latencies.get(location);
+        if (latency != null) {
+            return latency;
+        }
+        String persisted = InstanceScope.INSTANCE.getNode(FrameworkUtil.getBundle(getClass()).getSymbolicName())
+            .get(PROBE_PREF_PREFIX + location, null);
+        if (persisted != null) {
+            try {
+                return Long.parseLong(persisted.substring(0, persisted.indexOf(',')));
+            } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+                // ignore, treat as unknown
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Sorts the given repository locations by their latency. Local repositories come first, repositories that were
+     * unreachable in a previous session and repositories without any latency information are put at the end in their
+     * original order. Repositories that are unreachable in this session are removed.
+     */
+    private URI[] sortByLatency(final Collection<URI> locations) {
+        List<URI> sorted = new ArrayList<>(locations);
+        if (m_anyReachable) {
+            sorted.removeIf(uri -> {
+                Long latency = m_latencies.get(uri);
+                return (latency != null) && (latency == RepositoryProber.UNREACHABLE);
+            });
+        }
+        sorted.sort(Comparator.comparingLong(uri -> {
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) { //$NON-NLS-1$ //$NON-NLS-2$
+                return -1L;
+            }
+            long l = getLatency(uri);
+            return (l == RepositoryProber.UNREACHABLE) ? Long.MAX_VALUE : l;
+        }));
+        return sorted.toArray(new URI[sorted.size()]);
+    }
+
     private void processDefaultRepositories(final IMetadataRepositoryManager repoManager, final URL usFileUrl) {
         Set<URI> knownRepositories =
             new HashSet<>(Arrays.asList(repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL)));
@@ -206,7 +415,9 @@ private void processDefaultRepositories(final IMetadataRepositoryManager repoMan
 
     /**
      * Updates the URI of a single repository. An update is only performed if the URI does not already contains the
-     * KNIME ID (see {@link #urlContainsID(URI)}). Only HTTP(S) URIs from knime.org or knime.com hosts are updated.
+     * KNIME ID (see {@link RepositoryURIs#urlContainsID(URI)}) or if it does not point to the local artifact proxy
+     * although the proxy is enabled (see {@link ArtifactCacheProxy}). Only HTTP(S) URIs from knime.org or knime.com
+     * hosts are updated. Proxy URIs are reverted to their upstream URIs if the proxy has been disabled.
      *
      * @param repoManager an artifact repository manager
      * @param uri a URI to a repository, must be known by the repository manager
@@ -215,27 +426,36 @@ private void processDefaultRepositories(final IMetadataRepositoryManager repoMan
      */
     private void updateArtifactRepositoryURL(final IArtifactRepositoryManager repoManager, final URI uri,
         final boolean enabled) {
-        if (uri.getScheme().startsWith("http") && isKnimeURI(uri)) { //$NON-NLS-1$
-            if (!urlContainsID(uri)) {
-                String knidPath =
-                    (uri.getPath().endsWith("/") ? "" : "/") + "knid=" + KNIMEConstants.getKNIMEInstanceID() + "/"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
-                try {
-                    URI newUri =
-                        new URI(uri.getScheme(), uri.getUserInfo(), uri.getHost(), uri.getPort(), uri.getPath()
-                            + knidPath, uri.getQuery(), uri.getFragment());
+        ArtifactCacheProxy proxy = ArtifactCacheProxy.getInstance();
+        URI upstreamUri = uri;
+        if (ArtifactCacheProxy.isProxyURI(uri)) {
+            upstreamUri = ArtifactCacheProxy.toUpstreamURI(uri);
+            if (upstreamUri == null) {
+                return;
+            }
+        }
+
+        if (upstreamUri.getScheme().startsWith("http") && RepositoryURIs.isKnimeURI(upstreamUri)) { //$NON-NLS-1$
+            try {
+                URI newUri = RepositoryURIs.withID(upstreamUri, KNIMEConstants.getKNIMEInstanceID());
+                if (proxy != null) {
+                    newUri = proxy.toProxyURI(newUri);
+                }
+
+                if (!newUri.equals(uri)) {
                     repoManager.addRepository(newUri);
                     repoManager.setEnabled(newUri, enabled);
 
                     repoManager.removeRepository(uri);
-                } catch (URISyntaxException ex) {
-                    NodeLogger
-                        .getLogger(getClass())
-                        .error(
-                            Messages.RepositoryUpdater_20 + uri.toString() + "': " + ex.getMessage(), //$NON-NLS-2$
-                            ex);
+                } else {
+                    repoManager.setEnabled(uri, enabled);
                 }
-            } else {
-                repoManager.setEnabled(uri, enabled);
+            } catch (URISyntaxException ex) {
+                NodeLogger
+                    .getLogger(getClass())
+                    .error(
+                        Messages.RepositoryUpdater_20 + uri.toString() + "': " + ex.getMessage(), //$NON-NLS-2$
+                        ex);
             }
         }
     }
@@ -247,74 +467,107 @@ private void updateArtifactRepositoryURL(final IArtifactRepositoryManager repoMa
     public void notify(final EventObject o) {
         if (o instanceof RepositoryEvent) {
             RepositoryEvent event = (RepositoryEvent)o;
-            if ((event.getKind() == RepositoryEvent.ADDED) && !urlContainsID(event.getRepositoryLocation())) {
-                // Update/add artifact repository location when a new repository is added. Even though Eclipse
-                // adds the corresponding artifact repository by itself, reloading an existing repository, will only
-                // remove and add the metadata repository. Therefore we need to re-add the artifact repository in such
-                // cases "manually".
-                updateArtifactRepository(event);
-            } else if ((event.getKind() == RepositoryEvent.REMOVED)
-                && (event.getRepositoryType() == IRepository.TYPE_METADATA)
-                && isKnimeURI(event.getRepositoryLocation())) {
+            ProductEvent jfrEvent = ProductEvent.begin(ProductEventType.REPOSITORY_EVENT)
+                .set("location", event.getRepositoryLocation()).set("kind", event.getKind()); //$NON-NLS-1$ //$NON-NLS-2$
+            if (((event.getKind() == RepositoryEvent.ADDED)
+                && !RepositoryURIs.urlContainsID(event.getRepositoryLocation()))
+                || (((event.getKind() == RepositoryEvent.REMOVED) || (event.getKind() == RepositoryEvent.ENABLEMENT))
+                    && (event.getRepositoryType() == IRepository.TYPE_METADATA)
+                    && RepositoryURIs.isKnimeURI(event.getRepositoryLocation()))) {
+                enqueueEvent(event);
+                jfrEvent.set("enqueued", true); //$NON-NLS-1$
+            }
+            jfrEvent.commit();
+        }
+    }
 
-                // remove modified artifact repository when the corresponding metadata repository is removed
-                removeOutdatedArtifactRepository(event);
-            } else if ((event.getKind() == RepositoryEvent.ENABLEMENT)
-                && (event.getRepositoryType() == IRepository.TYPE_METADATA)
-                && isKnimeURI(event.getRepositoryLocation())) {
-                // en- or disable the corresponding artifact repository
-                updateArtifactRepository(event);
+    private void enqueueEvent(final RepositoryEvent event) {
+        synchronized (m_pendingEvents) {
+            // re-insert so that the iteration order reflects the order of the latest events
+            m_pendingEvents.remove(event.getRepositoryLocation());
+            m_pendingEvents.put(event.getRepositoryLocation(), event);
+            if (!m_batchScheduled) {
+                m_batchScheduled = true;
+                KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(this::processPendingEvents);
             }
         }
     }
 
-    private void removeOutdatedArtifactRepository(final RepositoryEvent event) {
-        BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
-        ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
-        if (ref != null) {
-            IProvisioningAgent agent = context.getService(ref);
+    private void processPendingEvents() {
+        while (true) {
+            List<RepositoryEvent> batch;
+            synchronized (m_pendingEvents) {
+                if (m_pendingEvents.isEmpty()) {
+                    m_batchScheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(m_pendingEvents.values());
+                m_pendingEvents.clear();
+            }
+
+            ProductEvent event =
+                ProductEvent.begin(ProductEventType.REPOSITORY_EVENT_BATCH).set("events", batch.size()); //$NON-NLS-1$
             try {
-                IArtifactRepositoryManager repoManager =
-                    (IArtifactRepositoryManager)agent.getService(IArtifactRepositoryManager.SERVICE_NAME);
+                processEvents(batch);
+            } catch (RuntimeException ex) {
+                NodeLogger.getLogger(getClass())
+                    .error("Error while processing p2 repository events: " + ex.getMessage(), ex); //$NON-NLS-1$
+            } finally {
+                event.commit();
+            }
+        }
+    }
 
-                if (repoManager != null) {
-                    URI removedMetadatalocation = event.getRepositoryLocation();
-                    String correspondingArtifactRepoPrefix = removedMetadatalocation.toString();
-                    if (!correspondingArtifactRepoPrefix.endsWith("/")) { //$NON-NLS-1$
-                        correspondingArtifactRepoPrefix += "/"; //$NON-NLS-1$
-                    }
-                    correspondingArtifactRepoPrefix += "knid="; //$NON-NLS-1$
+    private void processEvents(final List<RepositoryEvent> events) {
+        IArtifactRepositoryManager repoManager = getArtifactRepositoryManager();
+        if (repoManager == null) {
+            return;
+        }
 
-                    for (URI uri : repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL)) {
-                        if (urlContainsID(uri) && uri.toString().startsWith(correspondingArtifactRepoPrefix)) {
-                            repoManager.removeRepository(uri);
-                        }
-                    }
-                    for (URI uri : repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_DISABLED)) {
-                        if (urlContainsID(uri) && uri.toString().startsWith(correspondingArtifactRepoPrefix)) {
-                            repoManager.removeRepository(uri);
-                        }
+        List<String> removedArtifactRepoPrefixes = new ArrayList<>();
+        for (RepositoryEvent event : events) {
+            if (event.getKind() == RepositoryEvent.REMOVED) {
+                // remove modified artifact repository when the corresponding metadata repository is removed
+                String correspondingArtifactRepoPrefix = event.getRepositoryLocation().toString();
+                if (!correspondingArtifactRepoPrefix.endsWith("/")) { //$NON-NLS-1$
+                    correspondingArtifactRepoPrefix += "/"; //$NON-NLS-1$
+                }
+                removedArtifactRepoPrefixes.add(correspondingArtifactRepoPrefix + "knid="); //$NON-NLS-1$
+                ArtifactCacheProxy proxy = ArtifactCacheProxy.getInstance();
+                if (proxy != null) {
+                    try {
+                        removedArtifactRepoPrefixes
+                            .add(proxy.toProxyURI(URI.create(correspondingArtifactRepoPrefix)) + "knid="); //$NON-NLS-1$
+                    } catch (URISyntaxException ex) {
+                        // cannot happen because the URI has been created from a valid URI
                     }
                 }
-            } finally {
-                context.ungetService(ref);
+            } else {
+                // Update/add artifact repository location when a new repository is added or en- or disable the
+                // corresponding artifact repository. Even though Eclipse adds the corresponding artifact repository
+                // by itself, reloading an existing repository, will only remove and add the metadata repository.
+                // Therefore we need to re-add the artifact repository in such cases "manually".
+                updateArtifactRepositoryURL(repoManager, event.getRepositoryLocation(), event.isRepositoryEnabled());
             }
         }
-    }
 
-    private void updateArtifactRepository(final RepositoryEvent event) {
-        BundleContext context = FrameworkUtil.getBundle(getClass()).getBundleContext();
-        ServiceReference<IProvisioningAgent> ref = context.getServiceReference(IProvisioningAgent.class);
-        if (ref != null) {
-            IProvisioningAgent agent = context.getService(ref);
-            try {
-                IArtifactRepositoryManager repoManager =
-                    (IArtifactRepositoryManager)agent.getService(IArtifactRepositoryManager.SERVICE_NAME);
-                if (repoManager != null) {
-                    updateArtifactRepositoryURL(repoManager, event.getRepositoryLocation(), event.isRepositoryEnabled());
+        if (!removedArtifactRepoPrefixes.isEmpty()) {
+            Set<URI> knownRepositories = new HashSet<>();
+            knownRepositories
+                .addAll(Arrays.asList(repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_NON_LOCAL)));
+            knownRepositories
+                .addAll(Arrays.asList(repoManager.getKnownRepositories(IRepositoryManager.REPOSITORIES_DISABLED)));
+
+            for (URI uri : knownRepositories) {
+                if (RepositoryURIs.urlContainsID(uri)) {
+                    String location = uri.toString();
+                    for (String prefix : removedArtifactRepoPrefixes) {
+                        if (location.startsWith(prefix)) {
+                            repoManager.removeRepository(uri);
+                            break;
+                        }
+                    }
                 }
-            } finally {
-                context.ungetService(ref);
             }
         }
     }
@@ -336,17 +589,4 @@ public Set<URI> getDefaultRepositories() {
     public Set<URI> getAddedDefaultRepositories() {
         return m_addedDefaultRepositories;
     }
-
-    private static final Pattern KNID_PATTERN = Pattern
-        .compile("/knid=[0-9a-fA-F]{2,2}-[0-9a-fA-F]{16,16}(?:-[0-9a-fA-F]+){0,}/"); //$NON-NLS-1$
-
-    private static boolean urlContainsID(final URI uri) {
-        return (uri.getPath() != null) && KNID_PATTERN.matcher(uri.getPath()).find();
-    }
-
-    private static final Pattern KNIME_HOST_PATTERN = Pattern.compile("^(?:www|tech|update)\\.knime\\.(?:org|com)$"); //$NON-NLS-1$
-
-    private static boolean isKnimeURI(final URI uri) {
-        return (uri.getHost() != null) && KNIME_HOST_PATTERN.matcher(uri.getHost()).matches();
-    }
 }
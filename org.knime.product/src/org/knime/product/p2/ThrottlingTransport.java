@@ -0,0 +1,209 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2;
+
+import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.equinox.internal.p2.repository.AuthenticationFailedException;
+import org.eclipse.equinox.internal.p2.repository.Transport;
+import org.eclipse.equinox.internal.provisional.p2.repository.IStateful;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+
+/**
+ * Transport that limits the bandwidth of artifact downloads by delaying writes to the download target. The limit is
+ * shared by all concurrent downloads. Everything else is delegated to the wrapped transport. Since p2's artifact
+ * repositories look up the transport from their provisioning agent for every request, the throttling transport can
+ * be installed temporarily with {@link #install(IProvisioningAgent, long)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+public final class ThrottlingTransport extends Transport {
+    private final IProvisioningAgent m_agent;
+
+    private final Transport m_delegate;
+
+    private final long m_bytesPerSecond;
+
+    /** Point in time (as returned by {@link System#nanoTime()}) at which the next byte may be written. */
+    private long m_nextSlot = System.nanoTime();
+
+    private ThrottlingTransport(final IProvisioningAgent agent, final Transport delegate, final long bytesPerSecond) {
+        m_agent = agent;
+        m_delegate = delegate;
+        m_bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Replaces the agent's transport by a throttling transport. The original transport is restored by
+     * {@link #uninstall()}.
+     *
+     * @param agent a provisioning agent
+     * @param bytesPerSecond the maximum download rate in bytes per second, must be positive
+     * @return the installed transport or <code>null</code> if the agent does not have a transport
+     */
+    public static ThrottlingTransport install(final IProvisioningAgent agent, final long bytesPerSecond) {
+        Transport original = (Transport)agent.getService(Transport.SERVICE_NAME);
+        if (original == null) {
+            return null;
+        }
+        ThrottlingTransport throttling = new ThrottlingTransport(agent, original, bytesPerSecond);
+        agent.registerService(Transport.SERVICE_NAME, throttling);
+        return throttling;
+    }
+
+    /**
+     * Restores the transport that was replaced by this transport.
+     */
+    public void uninstall() {
+        m_agent.unregisterService(Transport.SERVICE_NAME, this);
+        m_agent.registerService(Transport.SERVICE_NAME, m_delegate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatus download(final URI toDownload, final OutputStream target, final long startPos,
+        final IProgressMonitor monitor) {
+        return m_delegate.download(toDownload, new ThrottledOutputStream(target), startPos, monitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IStatus download(final URI toDownload, final OutputStream target, final IProgressMonitor monitor) {
+        return m_delegate.download(toDownload, new ThrottledOutputStream(target), monitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream stream(final URI toDownload, final IProgressMonitor monitor)
+        throws FileNotFoundException, CoreException, AuthenticationFailedException {
+        return m_delegate.stream(toDownload, monitor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastModified(final URI toDownload, final IProgressMonitor monitor)
+        throws CoreException, FileNotFoundException, AuthenticationFailedException {
+        return m_delegate.getLastModified(toDownload, monitor);
+    }
+
+    /**
+     * Reserves the time needed for transferring the given number of bytes and waits until the reservation starts.
+     */
+    private void acquire(final int length) throws InterruptedIOException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(m_nextSlot, now);
+            m_nextSlot = start + TimeUnit.SECONDS.toNanos(length) / m_bytesPerSecond;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Output stream that throttles all writes. p2 reports the download status to stateful targets, therefore the
+     * status is passed through to the wrapped stream.
+     */
+    private final class ThrottledOutputStream extends FilterOutputStream implements IStateful {
+        private IStatus m_status = Status.OK_STATUS;
+
+        ThrottledOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            acquire(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            acquire(len);
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void setStatus(final IStatus status) {
+            if (out instanceof IStateful) {
+                ((IStateful)out).setStatus(status);
+            } else {
+                m_status = status;
+            }
+        }
+
+        @Override
+        public IStatus getStatus() {
+            return (out instanceof IStateful) ? ((IStateful)out).getStatus() : m_status;
+        }
+    }
+}
@@ -45,20 +45,11 @@
 package org.knime.product.p2.actions;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
-import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.ILog;
@@ -68,6 +59,8 @@
 import org.eclipse.equinox.p2.engine.IProfile;
 import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
 import org.knime.core.util.FileUtil;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
@@ -88,8 +81,10 @@ public class ExtractTarGz extends ProvisioningAction {
 
     @Override
     public IStatus execute(final Map<String, Object> parameters) {
+        ProductEvent event = ProductEvent.begin(ProductEventType.P2_ACTION).set("action", "ExtractTarGz"); //$NON-NLS-1$ //$NON-NLS-2$
         try {
             String source = readParameter(parameters, SOURCE_ARCHIVE);
+            event.set("argument", source); //$NON-NLS-1$
             String targetDir = readParameter(parameters, TARGET_DIR);
 
             File destDir;
@@ -103,22 +98,14 @@ public IStatus execute(final Map<String, Object> parameters) {
             }
 
             try (InputStream fileInputStream = FileUtil.openInputStream(source)) {
-                InputStream in;
-                if (StringUtils.endsWithIgnoreCase(source, ".tar.gz")
-                        || StringUtils.endsWithIgnoreCase(source, ".tgz")) {
-                    in = new GzipCompressorInputStream(fileInputStream);
-                } else if (StringUtils.endsWithIgnoreCase(source, ".tar.bz2")) {
-                    in = new BZip2CompressorInputStream(fileInputStream);
-                } else if (StringUtils.endsWithIgnoreCase(source, ".tar.xz")) {
-                    in = new XZCompressorInputStream(fileInputStream);
-                } else {
-                    in = fileInputStream;
-                }
-                untar(in, destDir);
+                TarExtractor.untar(TarExtractor.decompress(fileInputStream, source), destDir);
             }
+            event.set("successful", true); //$NON-NLS-1$
             return Status.OK_STATUS;
         } catch (Throwable e) {
             return new Status(IStatus.ERROR, bundle.getSymbolicName(), e.getMessage(), e);
+        } finally {
+            event.commit();
         }
     }
 
@@ -155,41 +142,6 @@ private static String resolveArtifactParam(final String argument,
         return argument;
     }
 
-    private static void untar(final InputStream in, final File destDir) throws IOException {
-        try (TarArchiveInputStream tarInS = new TarArchiveInputStream(in)) {
-            TarArchiveEntry entry;
-            while ((entry = tarInS.getNextTarEntry()) != null) {
-                String name = entry.getName();
-                File destFile = new File(destDir, name);
-                if (entry.isSymbolicLink()) {
-                    Files.createSymbolicLink(destFile.toPath(), Paths.get(entry.getLinkName()));
-                } else if (entry.isDirectory()) {
-                    destFile.mkdirs();
-                    chmod(destFile, entry.getMode());
-                } else {
-                    try (FileOutputStream out = new FileOutputStream(destFile)) {
-                        long size = entry.getSize();
-                        IOUtils.copyLarge(tarInS, out, 0, size);
-                    }
-                    chmod(destFile, entry.getMode());
-                }
-            }
-        }
-    }
-
-    /** Set permission oa file according to unix file permission flags:
-     * http://www.unix.com/tips-and-tutorials/19060-unix-file-permissions.html
-     * @param file the file to change
-     * @param mode the mode as per tar entry
-     */
-    private static void chmod(final File file, final int mode) {
-        // java doesn't give us full control over permissions (e.g. no group)
-        // the below will fail also for, e.g. -rw-???r-x ... but that seems artificial anyway
-        file.setExecutable((mode & 0100) != 0, (mode & 0001) == 0);
-        file.setWritable((mode & 0200) != 0, (mode & 0002) == 0);
-        file.setReadable((mode & 0400) != 0, (mode & 0004) == 0);
-    }
-
     @Override
     public IStatus undo(final Map<String, Object> parameters) {
         return Status.OK_STATUS;
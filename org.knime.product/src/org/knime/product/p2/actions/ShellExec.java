@@ -52,6 +52,8 @@
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.equinox.p2.engine.spi.ProvisioningAction;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
@@ -105,9 +107,12 @@ public IStatus execute(final Map<String, Object> parameters) {
             }
 
             File dirFile = new File(directory);
+            ProductEvent event = ProductEvent.begin(ProductEventType.P2_ACTION).set("action", "ShellExec") //$NON-NLS-1$ //$NON-NLS-2$
+                .set("argument", command); //$NON-NLS-1$
             try {
                 Process p = Runtime.getRuntime().exec(command, null, dirFile);
                 int exitVal = p.waitFor();
+                event.set("successful", exitVal == 0); //$NON-NLS-1$
                 if (exitVal != 0) {
                     logger.log(new Status(IStatus.ERROR, bundle
                             .getSymbolicName(),
@@ -118,6 +123,8 @@ public IStatus execute(final Map<String, Object> parameters) {
                 logger.log(new Status(IStatus.ERROR, bundle.getSymbolicName(),
                         Messages.ShellExec_11, e));
                 return Status.CANCEL_STATUS;
+            } finally {
+                event.commit();
             }
         }
         return Status.OK_STATUS;
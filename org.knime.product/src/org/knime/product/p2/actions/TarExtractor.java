@@ -0,0 +1,135 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.p2.actions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Extraction of (compressed) tar archives for {@link ExtractTarGz}. This class does not depend on p2 or OSGi, so that
+ * it can also be used outside a running platform, e.g. in benchmarks.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TarExtractor {
+    private TarExtractor() {
+    }
+
+    /**
+     * Wraps the stream with the decompressor matching the archive's file name. Plain tar archives are returned as is.
+     *
+     * @param in the raw archive contents
+     * @param archiveName the name of the archive, e.g. <tt>jre.tar.gz</tt>
+     * @return a stream with the uncompressed tar archive
+     * @throws IOException if the compressed stream cannot be read
+     */
+    static InputStream decompress(final InputStream in, final String archiveName) throws IOException {
+        if (StringUtils.endsWithIgnoreCase(archiveName, ".tar.gz") //$NON-NLS-1$
+                || StringUtils.endsWithIgnoreCase(archiveName, ".tgz")) { //$NON-NLS-1$
+            return new GzipCompressorInputStream(in);
+        } else if (StringUtils.endsWithIgnoreCase(archiveName, ".tar.bz2")) { //$NON-NLS-1$
+            return new BZip2CompressorInputStream(in);
+        } else if (StringUtils.endsWithIgnoreCase(archiveName, ".tar.xz")) { //$NON-NLS-1$
+            return new XZCompressorInputStream(in);
+        } else {
+            return in;
+        }
+    }
+
+    /**
+     * Extracts all entries of the tar archive into the destination directory, including symbolic links and file
+     * permissions.
+     *
+     * @param in the uncompressed tar archive, which is closed afterwards
+     * @param destDir the destination directory
+     * @throws IOException if the archive cannot be read or a file cannot be written
+     */
+    static void untar(final InputStream in, final File destDir) throws IOException {
+        try (TarArchiveInputStream tarInS = new TarArchiveInputStream(in)) {
+            TarArchiveEntry entry;
+            while ((entry = tarInS.getNextTarEntry()) != null) {
+                String name = entry.getName();
+                File destFile = new File(destDir, name);
+                if (entry.isSymbolicLink()) {
+                    Files.createSymbolicLink(destFile.toPath(), Paths.get(entry.getLinkName()));
+                } else if (entry.isDirectory()) {
+                    destFile.mkdirs();
+                    chmod(destFile, entry.getMode());
+                } else {
+                    try (FileOutputStream out = new FileOutputStream(destFile)) {
+                        long size = entry.getSize();
+                        IOUtils.copyLarge(tarInS, out, 0, size);
+                    }
+                    chmod(destFile, entry.getMode());
+                }
+            }
+        }
+    }
+
+    /** Set permission oa file according to unix file permission flags:
+     * http://www.unix.com/tips-and-tutorials/19060-unix-file-permissions.html
+     * @param file the file to change
+     * @param mode the mode as per tar entry
+     */
+    private static void chmod(final File file, final int mode) {
+        // java doesn't give us full control over permissions (e.g. no group)
+        // the below will fail also for, e.g. -rw-???r-x ... but that seems artificial anyway
+        file.setExecutable((mode & 0100) != 0, (mode & 0001) == 0);
+        file.setWritable((mode & 0200) != 0, (mode & 0002) == 0);
+        file.setReadable((mode & 0400) != 0, (mode & 0004) == 0);
+    }
+}
@@ -98,6 +98,8 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.KNIMEServerHostnameVerifier;
 import org.knime.core.util.PathUtils;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
@@ -109,7 +111,10 @@
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  */
 public class ProfileManager {
-    private static final ProfileManager INSTANCE = new ProfileManager();
+    /** Creates the singleton on first use only, so that the static helpers can be used without a platform. */
+    private static final class InstanceHolder {
+        private static final ProfileManager INSTANCE = new ProfileManager();
+    }
 
     private static final String PROFILES_FOLDER = "profiles"; //$NON-NLS-1$
 
@@ -121,7 +126,7 @@ public class ProfileManager {
      * @return the singleton, never <code>null</code>
      */
     public static ProfileManager getInstance() {
-        return INSTANCE;
+        return InstanceHolder.INSTANCE;
     }
 
     private final IProfileProvider m_provider;
@@ -183,6 +188,41 @@ private void applyPreferences(final List<Path> profiles) throws IOException {
             return; // plugin customizations are already explicitly provided by someone else
         }
 
+        Properties combinedProperties = combinePreferences(profiles, m_provider, m_collectedLogs);
+
+        Path pluginCustFile = getStateLocation().resolve("combined-preferences.epf"); //$NON-NLS-1$
+        if (Files.exists(pluginCustFile) && !Files.isWritable(pluginCustFile)) {
+            Path tempCustFile = PathUtils.createTempFile("combined-preferences", ".epf"); //$NON-NLS-1$ //$NON-NLS-2$
+            Path nonWorkingFile = pluginCustFile;
+            pluginCustFile = tempCustFile;
+
+            m_collectedLogs.add(() -> NodeLogger.getLogger(ProfileManager.class)
+                .warn(Messages.ProfileManager_14 + nonWorkingFile + Messages.ProfileManager_15
+                    + tempCustFile + Messages.ProfileManager_16));
+        }
+
+        // It's important here to write to a stream and not a reader because when reading the file back in
+        // org.eclipse.core.internal.preferences.DefaultPreferences.loadProperties(String) also reads from a stream
+        // and therefore assumes it's ISO-8859-1 encoded (with replacement for UTF characters).
+        try (OutputStream out = Files.newOutputStream(pluginCustFile)) {
+            combinedProperties.store(out, ""); //$NON-NLS-1$
+        }
+        DefaultPreferences.pluginCustomizationFile = pluginCustFile.toAbsolutePath().toString();
+    }
+
+    /**
+     * Reads the preferences of all profiles, replaces variables in their values, and merges them. Later profiles
+     * override earlier ones. The "/instance" prefix is removed from all keys.
+     *
+     * @param profiles the local profile directories, in the order in which they are applied
+     * @param provider the profile provider, used for resolving custom variables
+     * @param logMessages a list where deferred log messages are collected
+     * @return the combined preferences
+     * @throws IOException if a preference file cannot be read
+     */
+    static Properties combinePreferences(final List<Path> profiles, final IProfileProvider provider,
+        final List<Runnable> logMessages) throws IOException {
+        ProductEvent event = ProductEvent.begin(ProductEventType.PREFERENCE_MERGE).set("profiles", profiles.size()); //$NON-NLS-1$
         Properties combinedProperties = new Properties();
         for (Path dir : profiles) {
             List<Path> prefFiles = Files.walk(dir)
@@ -196,7 +236,7 @@ private void applyPreferences(final List<Path> profiles) throws IOException {
                     props.load(r);
                 }
             }
-            replaceVariables(props, dir);
+            replaceVariables(props, dir, provider, logMessages);
             combinedProperties.putAll(props);
         }
 
@@ -208,42 +248,32 @@ private void applyPreferences(final List<Path> profiles) throws IOException {
                 combinedProperties.put(key.toString().substring("/instance/".length()), value); //$NON-NLS-1$
             }
         }
-
-        Path pluginCustFile = getStateLocation().resolve("combined-preferences.epf"); //$NON-NLS-1$
-        if (Files.exists(pluginCustFile) && !Files.isWritable(pluginCustFile)) {
-            Path tempCustFile = PathUtils.createTempFile("combined-preferences", ".epf"); //$NON-NLS-1$ //$NON-NLS-2$
-            Path nonWorkingFile = pluginCustFile;
-            pluginCustFile = tempCustFile;
-
-            m_collectedLogs.add(() -> NodeLogger.getLogger(ProfileManager.class)
-                .warn(Messages.ProfileManager_14 + nonWorkingFile + Messages.ProfileManager_15
-                    + tempCustFile + Messages.ProfileManager_16));
-        }
-
-        // It's important here to write to a stream and not a reader because when reading the file back in
-        // org.eclipse.core.internal.preferences.DefaultPreferences.loadProperties(String) also reads from a stream
-        // and therefore assumes it's ISO-8859-1 encoded (with replacement for UTF characters).
-        try (OutputStream out = Files.newOutputStream(pluginCustFile)) {
-            combinedProperties.store(out, ""); //$NON-NLS-1$
-        }
-        DefaultPreferences.pluginCustomizationFile = pluginCustFile.toAbsolutePath().toString();
+        event.set("keys", combinedProperties.size()).commit(); //$NON-NLS-1$
+        return combinedProperties;
     }
 
-    private void replaceVariables(final Properties props, final Path profileLocation) throws IOException {
+    private static void replaceVariables(final Properties props, final Path profileLocation,
+        final IProfileProvider provider, final List<Runnable> logMessages) throws IOException {
         List<VariableReplacer> replacers = Arrays.asList(
-            new VariableReplacer.EnvVariableReplacer(m_collectedLogs),
-            new VariableReplacer.SyspropVariableReplacer(m_collectedLogs),
-            new VariableReplacer.ProfileVariableReplacer(profileLocation, m_collectedLogs),
+            new VariableReplacer.EnvVariableReplacer(logMessages),
+            new VariableReplacer.SyspropVariableReplacer(logMessages),
+            new VariableReplacer.ProfileVariableReplacer(profileLocation, logMessages),
             new VariableReplacer.OriginVariableReplacer(profileLocation.getParent().resolve(".originHeaders"), //$NON-NLS-1$
-                m_collectedLogs),
-            new VariableReplacer.CustomVariableReplacer(m_provider, m_collectedLogs));
+                logMessages),
+            new VariableReplacer.CustomVariableReplacer(provider, logMessages));
 
+        ProductEvent event = ProductEvent.begin(ProductEventType.VARIABLE_SUBSTITUTION)
+            .set("profile", profileLocation.getFileName()).set("values", props.size()); //$NON-NLS-1$ //$NON-NLS-2$
+        int substituted = 0;
         for (String key : props.stringPropertyNames()) {
             String value = props.getProperty(key);
 
             for (VariableReplacer rep : replacers) {
                 value = rep.replaceVariables(value);
             }
+            if (event.isEnabled() && !value.equals(props.getProperty(key))) {
+                substituted++;
+            }
 
             // finally replace escaped "variables" so that the double dollars are removed, e.g.:
             //     /instance/org.knime.product/non-variable=bla/$${custom:var}/foo
@@ -251,6 +281,7 @@ private void replaceVariables(final Properties props, final Path profileLocation
             //     /instance/org.knime.product/non-variable=bla/${custom:var}/foo
             props.replace(key, value.replaceAll("\\$(\\$\\{[^:\\}]+:[^\\}]+\\})", "$1")); //$NON-NLS-1$ //$NON-NLS-2$
         }
+        event.set("substituted", substituted).commit(); //$NON-NLS-1$
     }
 
 
@@ -293,6 +324,7 @@ private Path getStateLocation() {
     private Path downloadProfiles(final URI profileLocation) {
         Path stateDir = getStateLocation();
         Path profileDir = stateDir.resolve(PROFILES_FOLDER);
+        ProductEvent event = ProductEvent.begin(ProductEventType.PROFILE_DOWNLOAD).set("uri", profileLocation); //$NON-NLS-1$
 
         try {
             // compute list of profiles that are requested but not present locally yet
@@ -350,6 +382,7 @@ private Path downloadProfiles(final URI profileLocation) {
 
                 try (CloseableHttpResponse response = client.execute(get)) {
                     int code = response.getStatusLine().getStatusCode();
+                    event.set("status", code); //$NON-NLS-1$
                     if ((code >= 200) && (code < 300)) {
                         Header ct = response.getFirstHeader("Content-Type"); //$NON-NLS-1$
                         if ((ct == null) || (ct.getValue() == null) || !ct.getValue().startsWith("application/zip")) { //$NON-NLS-1$
@@ -360,7 +393,7 @@ private Path downloadProfiles(final URI profileLocation) {
 
                         Path tempFile = PathUtils.createTempFile("profile-download", ".zip"); //$NON-NLS-1$ //$NON-NLS-2$
                         try (OutputStream os = Files.newOutputStream(tempFile)) {
-                            IOUtils.copyLarge(response.getEntity().getContent(), os);
+                            event.set("bytes", IOUtils.copyLarge(response.getEntity().getContent(), os)); //$NON-NLS-1$
                         }
 
                         Path tempDir = PathUtils.createTempDir("profile-download", stateDir); //$NON-NLS-1$
@@ -399,6 +432,7 @@ private Path downloadProfiles(final URI profileLocation) {
                     : Messages.ProfileManager_45);
             m_collectedLogs.add(() -> NodeLogger.getLogger(ProfileManager.class).error(msg, ex));
         }
+        event.commit();
 
         return profileDir;
     }
@@ -0,0 +1,196 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
+import org.eclipse.equinox.p2.core.IProvisioningAgent;
+import org.eclipse.equinox.p2.engine.PhaseSetFactory;
+import org.eclipse.equinox.p2.operations.ProfileModificationJob;
+import org.eclipse.equinox.p2.operations.ProvisioningJob;
+import org.eclipse.equinox.p2.operations.ProvisioningSession;
+import org.eclipse.equinox.p2.operations.UpdateOperation;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.PlatformUI;
+import org.knime.core.node.NodeLogger;
+import org.knime.product.ProductPlugin;
+import org.knime.product.p2.RepositoryUpdater;
+import org.knime.product.p2.ThrottlingTransport;
+
+/**
+ * Background job for the <tt>-checkForUpdates</tt> command line option. After the workbench has been opened it
+ * resolves the update operation and downloads all required artifacts into the p2 cache (collect phase only). The
+ * download bandwidth is limited to <tt>knime.update.bandwidthLimit</tt> kB/s (default 1024, 0 disables the limit) so
+ * that the download does not saturate the user's connection. Once everything has been downloaded, the user is asked
+ * whether the updates should be applied. Since all artifacts are already available locally, applying the updates and
+ * restarting is quick.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+final class BackgroundUpdateJob extends Job {
+    private static final long BANDWIDTH_LIMIT = Long.getLong("knime.update.bandwidthLimit", 1024); //$NON-NLS-1$
+
+    private final IProvisioningAgent m_agent;
+
+    private final IPreferenceStore m_prefStore;
+
+    private final String m_justUpdatedKey;
+
+    /**
+     * Creates a new background update job.
+     *
+     * @param agent the provisioning agent
+     * @param prefStore the preference store in which the "just updated" flag is stored
+     * @param justUpdatedKey the key of the "just updated" flag
+     */
+    BackgroundUpdateJob(final IProvisioningAgent agent, final IPreferenceStore prefStore,
+        final String justUpdatedKey) {
+        super(IDEWorkbenchMessages.KNIMEApplication_16);
+        m_agent = agent;
+        m_prefStore = prefStore;
+        m_justUpdatedKey = justUpdatedKey;
+        setPriority(DECORATE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        SubMonitor sub = SubMonitor.convert(monitor, IDEWorkbenchMessages.KNIMEApplication_12, 200);
+        UpdateOperation operation = new UpdateOperation(new ProvisioningSession(m_agent));
+        operation.setProvisioningContext(RepositoryUpdater.INSTANCE.createProvisioningContext(m_agent));
+        IStatus status = operation.resolveModal(sub.newChild(100));
+        if (status.getSeverity() == IStatus.CANCEL) {
+            return Status.CANCEL_STATUS;
+        } else if (status.getCode() == UpdateOperation.STATUS_NOTHING_TO_UPDATE) {
+            LogHelper.log(new Status(IStatus.INFO, ProductPlugin.PLUGIN_ID,
+                IDEWorkbenchMessages.KNIMEApplication_13));
+            return Status.OK_STATUS;
+        } else if (status.getSeverity() == IStatus.ERROR) {
+            LogHelper.log(status);
+            return Status.OK_STATUS;
+        }
+
+        ProvisioningJob downloadJob = operation.getProvisioningJob(null);
+        if (downloadJob instanceof ProfileModificationJob) {
+            // only download the artifacts, the actual installation happens after the user has agreed
+            ((ProfileModificationJob)downloadJob).setPhaseSet(
+                PhaseSetFactory.createPhaseSetIncluding(new String[]{PhaseSetFactory.PHASE_COLLECT}));
+            ThrottlingTransport throttling =
+                (BANDWIDTH_LIMIT > 0) ? ThrottlingTransport.install(m_agent, BANDWIDTH_LIMIT * 1024) : null;
+            try {
+                status = downloadJob.runModal(sub.newChild(100));
+            } finally {
+                if (throttling != null) {
+                    throttling.uninstall();
+                }
+            }
+            if (status.getSeverity() == IStatus.CANCEL) {
+                return Status.CANCEL_STATUS;
+            } else if (status.getSeverity() == IStatus.ERROR) {
+                LogHelper.log(status);
+                return Status.OK_STATUS;
+            }
+        }
+
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        if (!display.isDisposed()) {
+            display.asyncExec(() -> promptForRestart(operation));
+        }
+        return Status.OK_STATUS;
+    }
+
+    private void promptForRestart(final UpdateOperation operation) {
+        IWorkbench workbench = PlatformUI.getWorkbench();
+        if (workbench.isClosing()) {
+            return;
+        }
+
+        Shell shell = workbench.getDisplay().getActiveShell();
+        if (!MessageDialog.openQuestion(shell, IDEWorkbenchMessages.KNIMEApplication_14,
+            IDEWorkbenchMessages.KNIMEApplication_15)) {
+            return;
+        }
+
+        boolean[] restart = new boolean[1];
+        try {
+            new ProgressMonitorDialog(shell).run(true, false, monitor -> {
+                // the operation creates a new job with all phases, the artifacts are already in the local cache
+                IStatus status = operation.getProvisioningJob(null).runModal(monitor);
+                if (status.getSeverity() == IStatus.CANCEL) {
+                    throw new OperationCanceledException();
+                } else if (status.getSeverity() != IStatus.ERROR) {
+                    m_prefStore.setValue(m_justUpdatedKey, true);
+                    restart[0] = true;
+                } else {
+                    LogHelper.log(status);
+                }
+            });
+        } catch (InvocationTargetException ex) {
+            NodeLogger.getLogger(getClass()).error(
+                "Error while applying updates: " + ex.getCause().getMessage(), ex.getCause()); //$NON-NLS-1$
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (restart[0]) {
+            workbench.restart();
+        }
+    }
+}
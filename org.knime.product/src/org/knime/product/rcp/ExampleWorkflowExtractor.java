@@ -48,12 +48,25 @@
  */
 package org.knime.product.rcp;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.zip.ZipInputStream;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.jface.viewers.TreeViewer;
@@ -65,15 +78,53 @@
 import org.eclipse.ui.PlatformUI;
 import org.knime.core.internal.KNIMEPath;
 import org.knime.core.node.NodeLogger;
-import org.knime.core.util.FileUtil;
+import org.knime.workbench.explorer.ExplorerMountTable;
+import org.knime.workbench.explorer.filesystem.AbstractExplorerFileStore;
+import org.knime.workbench.explorer.localworkspace.LocalWorkspaceFileStore;
+import org.knime.workbench.explorer.view.AbstractContentProvider;
+import org.knime.workbench.explorer.view.ContentDelegator;
 import org.knime.workbench.explorer.view.ExplorerView;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * Runnable that extract the example workflows into a fresh workspace and refreshes the explorer view afterwards.
+ * The entries are written in parallel, each one into a temporary file that is renamed once it is complete. While the
+ * extraction is running a marker file with the archive's hash exists in the workspace's state location, it is renamed
+ * when all entries have been written. Therefore an interrupted extraction is resumed on the next start (see
+ * {@link #isInterrupted()}), skipping entries that already exist and removing temporary files left behind by the
+ * previous attempt, and an archive that has already been extracted is not extracted again. If the extraction fails
+ * with an error the marker is removed, so that it is not retried on every start.
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  */
 class ExampleWorkflowExtractor implements Runnable {
+    private static final String MARKER_FILE = "example-workflows.sha256"; //$NON-NLS-1$
+
+    private static final String PARTIAL_SUFFIX = ".partial"; //$NON-NLS-1$
+
+    private static final int MAX_PARALLEL_WRITES = 4;
+
+    /**
+     * Returns whether a previous extraction has been interrupted, e.g. because the application was closed before it
+     * had finished.
+     *
+     * @return <code>true</code> if the extraction should be resumed, <code>false</code> otherwise
+     */
+    static boolean isInterrupted() {
+        try {
+            return Files.exists(getMarkerFile(true));
+        } catch (IllegalStateException ex) {
+            // no workspace
+            return false;
+        }
+    }
+
+    private static Path getMarkerFile(final boolean partial) {
+        Path stateLocation = Platform.getStateLocation(FrameworkUtil.getBundle(ExampleWorkflowExtractor.class))
+            .toFile().toPath();
+        return stateLocation.resolve(partial ? (MARKER_FILE + PARTIAL_SUFFIX) : MARKER_FILE);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -102,12 +153,159 @@ public void run() {
         }
 
 
-        File workspace = KNIMEPath.getWorkspaceDirPath();
-        try (ZipInputStream is = new ZipInputStream(Files.newInputStream(initialWorkspace))) {
-            FileUtil.unzip(is, workspace, 0);
+        Path workspace = KNIMEPath.getWorkspaceDirPath().toPath();
+        try (ZipFile zip = new ZipFile(initialWorkspace.toFile())) {
+            String hash = computeHash(zip);
+            Path marker = getMarkerFile(false);
+            if (Files.exists(marker) && hash.equals(new String(Files.readAllBytes(marker), StandardCharsets.UTF_8))) {
+                NodeLogger.getLogger(getClass()).debug("Example workflows have already been extracted"); //$NON-NLS-1$
+                Files.deleteIfExists(getMarkerFile(true));
+                return;
+            }
+
+            Path partialMarker = getMarkerFile(true);
+            boolean resume = Files.exists(partialMarker);
+            Files.createDirectories(partialMarker.getParent());
+            Files.write(partialMarker, hash.getBytes(StandardCharsets.UTF_8));
+            extract(zip, workspace, resume);
+            Files.move(partialMarker, marker, StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException ex) {
             NodeLogger.getLogger(getClass()).error(Messages.getString("ExampleWorkflowExtractor.6") + ex.getMessage(), ex); //$NON-NLS-1$
+            try {
+                Files.deleteIfExists(getMarkerFile(true));
+            } catch (IOException ex1) {
+                NodeLogger.getLogger(getClass()).debug("Could not delete " + getMarkerFile(true) + ": " //$NON-NLS-1$ //$NON-NLS-2$
+                    + ex1.getMessage(), ex1);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        refreshExplorer();
+    }
+
+    /**
+     * Computes a hash over the archive's central directory, i.e. the names, sizes, and checksums of all entries. This
+     * is much cheaper than hashing the whole archive and changes whenever any of the contents change.
+     */
+    private static String computeHash(final ZipFile zip) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+            for (ZipEntry e : Collections.list(zip.entries())) {
+                digest.update((e.getName() + "/" + e.getSize() + "/" + e.getCrc() + "\n") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    .getBytes(StandardCharsets.UTF_8));
+            }
+
+            StringBuilder buf = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Extracts all entries of the archive into the workspace. Directories are created upfront, files are written in
+     * parallel. Files that already exist with the entry's size have been written completely by a previous extraction
+     * (because of the rename) and are skipped. When an interrupted extraction is resumed, the temporary files of the
+     * previous attempt are deleted.
+     */
+    private static void extract(final ZipFile zip, final Path workspace, final boolean resume)
+        throws IOException, InterruptedException {
+        Path root = workspace.toAbsolutePath().normalize();
+        List<ZipEntry> files = new ArrayList<>();
+        for (ZipEntry e : Collections.list(zip.entries())) {
+            Path target = root.resolve(e.getName()).normalize();
+            if (!target.startsWith(root)) {
+                throw new IOException("Invalid entry in example workflows: " + e.getName()); //$NON-NLS-1$
+            }
+            if (e.isDirectory()) {
+                Files.createDirectories(target);
+            } else {
+                Files.createDirectories(target.getParent());
+                if (resume) {
+                    Files.deleteIfExists(getTempFile(target));
+                }
+                files.add(e);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLEL_WRITES)), r -> {
+                Thread t = new Thread(r, "KNIME-Example-Workflow-Extractor-" + threadCount.incrementAndGet()); //$NON-NLS-1$
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(files.size());
+            for (ZipEntry e : files) {
+                futures.add(executor.submit(() -> {
+                    extractEntry(zip, e, root.resolve(e.getName()).normalize());
+                    return null;
+                }));
+            }
+            for (Future<Void> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    throw (cause instanceof IOException) ? (IOException)cause : new IOException(cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void extractEntry(final ZipFile zip, final ZipEntry entry, final Path target) throws IOException {
+        if ((entry.getSize() >= 0) && Files.isRegularFile(target) && (Files.size(target) == entry.getSize())) {
+            return;
+        }
+
+        Path temp = getTempFile(target);
+        try {
+            try (InputStream in = zip.getInputStream(entry)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (entry.getTime() >= 0) {
+                temp.toFile().setLastModified(entry.getTime());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ex1) {
+                ex.addSuppressed(ex1);
+            }
+            throw ex;
+        }
+    }
+
+    private static Path getTempFile(final Path target) {
+        return target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+    }
+
+    /**
+     * Refreshes the local workspace mount point and its subtree in all explorer views. Other mount points are not
+     * affected by the extraction and are not refreshed.
+     */
+    private void refreshExplorer() {
+        AbstractExplorerFileStore workspaceRoot = null;
+        for (AbstractContentProvider cp : ExplorerMountTable.getMountedContent().values()) {
+            if (cp.getRootStore() instanceof LocalWorkspaceFileStore) {
+                workspaceRoot = cp.getRootStore();
+                break;
+            }
+        }
+        if (workspaceRoot == null) {
+            return;
         }
+        workspaceRoot.refresh();
+        final Object treeObject = ContentDelegator.getTreeObjectFor(workspaceRoot);
 
         for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
             for (IWorkbenchPage page : window.getPages()) {
@@ -121,7 +319,7 @@ public void run() {
                                 control.getDisplay().asyncExec(new Runnable() {
                                     @Override
                                     public void run() {
-                                        viewer.refresh();
+                                        viewer.refresh(treeObject);
                                     }
                                 });
                             }
@@ -67,6 +67,12 @@ public class IDEWorkbenchMessages extends NLS {
 
     public static String KNIMEApplication_13;
 
+    public static String KNIMEApplication_14;
+
+    public static String KNIMEApplication_15;
+
+    public static String KNIMEApplication_16;
+
     public static String KNIMEApplication_3;
 
     public static String KNIMEApplication_4;
@@ -22,31 +22,22 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Properties;
 
 import javax.swing.SwingUtilities;
 
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.equinox.app.IApplication;
 import org.eclipse.equinox.app.IApplicationContext;
 import org.eclipse.equinox.internal.p2.core.helpers.LogHelper;
 import org.eclipse.equinox.internal.p2.core.helpers.ServiceHelper;
 import org.eclipse.equinox.p2.core.IProvisioningAgent;
-import org.eclipse.equinox.p2.operations.ProvisioningJob;
-import org.eclipse.equinox.p2.operations.ProvisioningSession;
-import org.eclipse.equinox.p2.operations.UpdateOperation;
 import org.eclipse.equinox.p2.ui.ProvisioningUI;
 import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.jface.dialogs.ProgressMonitorDialog;
-import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.util.NLS;
@@ -63,10 +54,11 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.ViewUtils;
 import org.knime.core.util.GUIDeadlockDetector;
-import org.knime.core.util.MutableBoolean;
 import org.knime.product.ProductPlugin;
+import org.knime.product.StartupTimeline;
 import org.knime.product.p2.RepositoryUpdater;
 import org.knime.product.profiles.ProfileManager;
+import org.knime.product.rcp.monitor.ResponsivenessMonitor;
 
 /**
  * This class controls all aspects of the application's execution.
@@ -118,6 +110,7 @@ public Object start(final IApplicationContext appContext) throws Exception {
             ViewUtils.setLookAndFeel();
 
             ProfileManager.getInstance().applyProfiles();
+            StartupTimeline.mark(StartupTimeline.PROFILES_APPLIED);
 
             // initialize KNIMEConstants as early as possible in order to avoid deadlocks during startup
             KNIMEConstants.BUILD.toString();
@@ -132,22 +125,22 @@ public Object start(final IApplicationContext appContext) throws Exception {
 
             RepositoryUpdater.INSTANCE.addDefaultRepositories();
             RepositoryUpdater.INSTANCE.updateArtifactRepositoryURLs();
+            RepositoryUpdater.INSTANCE.probeRepositories();
 
-            int returnCode;
-            if (m_checkForUpdates && checkForUpdates()) {
-                returnCode = PlatformUI.RETURN_RESTART;
-            } else {
-                startDeadlockDetectors(display);
-
-                // create the workbench with this advisor and run it until it
-                // exits
-                // N.B. createWorkbench remembers the advisor, and also
-                // registers
-                // the workbench globally so that all UI plug-ins can find it
-                // using
-                // PlatformUI.getWorkbench() or AbstractUIPlugin.getWorkbench()
-                returnCode = PlatformUI.createAndRunWorkbench(display, getWorkbenchAdvisor(openDocProcessor));
-            }
+            // updates are resolved and downloaded in the background after the workbench has been opened
+            BackgroundUpdateJob updateJob = m_checkForUpdates ? checkForUpdates() : null;
+
+            startDeadlockDetectors(display);
+
+            // create the workbench with this advisor and run it until it
+            // exits
+            // N.B. createWorkbench remembers the advisor, and also
+            // registers
+            // the workbench globally so that all UI plug-ins can find it
+            // using
+            // PlatformUI.getWorkbench() or AbstractUIPlugin.getWorkbench()
+            int returnCode =
+                PlatformUI.createAndRunWorkbench(display, getWorkbenchAdvisor(openDocProcessor, updateJob));
 
             // the workbench doesn't support relaunch yet (bug 61809) so
             // for now restart is used, and exit data properties are checked
@@ -160,6 +153,7 @@ public Object start(final IApplicationContext appContext) throws Exception {
             return EXIT_RELAUNCH.equals(Integer.getInteger(PROP_EXIT_CODE)) ? EXIT_RELAUNCH
                     : EXIT_RESTART;
         } finally {
+            ResponsivenessMonitor.stopAll();
             if (display != null) {
                 try {
                     display.dispose();
@@ -192,8 +186,9 @@ private void parseApplicationArguments(final IApplicationContext context) {
         }
     }
 
-    private WorkbenchAdvisor getWorkbenchAdvisor(final KNIMEOpenDocumentEventProcessor openDocProcessor) {
-        return new KNIMEApplicationWorkbenchAdvisor(openDocProcessor);
+    private WorkbenchAdvisor getWorkbenchAdvisor(final KNIMEOpenDocumentEventProcessor openDocProcessor,
+        final BackgroundUpdateJob updateJob) {
+        return new KNIMEApplicationWorkbenchAdvisor(openDocProcessor, updateJob);
     }
 
     /**
@@ -553,12 +548,19 @@ public void run() {
         });
     }
 
-    private boolean checkForUpdates() {
+    /**
+     * Prepares the update check that has been requested with <tt>-checkForUpdates</tt>. The returned job must be
+     * scheduled once the workbench is up.
+     *
+     * @return a job that resolves and downloads the updates in the background or <code>null</code> if no check
+     *         should or can be performed
+     */
+    private BackgroundUpdateJob checkForUpdates() {
         final IPreferenceStore prefStore =
                 ProductPlugin.getDefault().getPreferenceStore();
         if (prefStore.getBoolean(JUSTUPDATED)) {
             prefStore.setValue(JUSTUPDATED, false);
-            return false;
+            return null;
         }
 
         final ProvisioningUI provUI = ProvisioningUI.getDefaultUI();
@@ -567,7 +569,7 @@ private boolean checkForUpdates() {
                     .getDefault().getBundle().getSymbolicName(),
                     org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_8
                             + org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_9));
-            return false;
+            return null;
         }
 
         final IProvisioningAgent agent =
@@ -579,50 +581,10 @@ private boolean checkForUpdates() {
                     .getBundle().getSymbolicName(),
                     org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_10
                             + org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_11));
+            return null;
         }
 
-        final MutableBoolean restart = new MutableBoolean(false);
-        IRunnableWithProgress runnable = new IRunnableWithProgress() {
-            @Override
-            public void run(final IProgressMonitor monitor)
-                    throws InvocationTargetException, InterruptedException {
-                ProvisioningSession session = new ProvisioningSession(agent);
-                UpdateOperation operation = new UpdateOperation(session);
-                SubMonitor sub =
-                        SubMonitor.convert(monitor,
-                                org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_12, 200);
-                IStatus status = operation.resolveModal(sub.newChild(100));
-                if (status.getSeverity() == IStatus.CANCEL) {
-                    throw new OperationCanceledException();
-                } else if (status.getSeverity() != IStatus.ERROR) {
-                    ProvisioningJob job = operation.getProvisioningJob(null);
-                    status = job.runModal(sub.newChild(100));
-                    if (status.getSeverity() == IStatus.CANCEL) {
-                        throw new OperationCanceledException();
-                    }
-                    if (status.getCode() == UpdateOperation.STATUS_NOTHING_TO_UPDATE) {
-                        // ok, just proceed
-                        LogHelper.log(new Status(IStatus.INFO, ProductPlugin
-                                .getDefault().getBundle().getSymbolicName(),
-                                org.knime.product.rcp.IDEWorkbenchMessages.KNIMEApplication_13));
-                    } else if (status.getSeverity() != IStatus.ERROR) {
-                        prefStore.setValue(JUSTUPDATED, true);
-                        restart.setValue(true);
-                    } else {
-                        LogHelper.log(status);
-                    }
-                } else {
-                    LogHelper.log(status);
-                }
-            }
-        };
-        try {
-            new ProgressMonitorDialog(null).run(true, true, runnable);
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
-        } catch (InterruptedException e) {
-        }
-        return restart.booleanValue();
+        return new BackgroundUpdateJob(agent, prefStore, JUSTUPDATED);
     }
 
     private void startDeadlockDetectors(final Display display) {
@@ -649,5 +611,11 @@ protected void enqueue(final Runnable r) {
                 EventQueue.invokeLater(r);
             }
         };
+
+        // the detectors above only report deadlocks, the monitors also measure short freezes
+        if (!Boolean.getBoolean(ResponsivenessMonitor.DISABLE_PROPERTY)) {
+            ResponsivenessMonitor.start("swt", "SWT Display thread", display::asyncExec, display.getThread()); //$NON-NLS-1$ //$NON-NLS-2$
+            ResponsivenessMonitor.start("awt", "AWT Event Queue", EventQueue::invokeLater, null); //$NON-NLS-1$ //$NON-NLS-2$
+        }
     }
 }
@@ -46,10 +46,7 @@
 
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.DefaultScope;
 import org.eclipse.equinox.internal.p2.ui.sdk.scheduler.AutomaticUpdatePlugin;
 import org.eclipse.equinox.internal.p2.ui.sdk.scheduler.AutomaticUpdateScheduler;
@@ -61,9 +58,9 @@
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.ui.util.SWTUtilities;
 import org.knime.core.util.EclipseUtil;
+import org.knime.product.BundleActivationMonitor;
 import org.knime.product.rcp.intro.IntroPage;
 import org.knime.workbench.editor2.WorkflowEditor;
-import org.osgi.framework.Bundle;
 import org.osgi.service.prefs.Preferences;
 
 /**
@@ -77,6 +74,8 @@ public class KNIMEApplicationWorkbenchAdvisor extends WorkbenchAdvisor {
 
     private KNIMEOpenDocumentEventProcessor m_openDocProcessor;
 
+    private final Job m_updateJob;
+
     /**
      * Simple constructor to store the {@code KNIMEOpenDocumentEventProcessor}
      *
@@ -84,7 +83,18 @@ public class KNIMEApplicationWorkbenchAdvisor extends WorkbenchAdvisor {
      *
      */
     public KNIMEApplicationWorkbenchAdvisor(final KNIMEOpenDocumentEventProcessor openDocProcessor) {
+        this(openDocProcessor, null);
+    }
+
+    /**
+     * Creates a new advisor that additionally schedules the given update job once the workbench is up.
+     *
+     * @param openDocProcessor the KNIMEOpenDocumentEventProcessor handling the opening of KNIME files
+     * @param updateJob a job that checks for updates in the background, may be <code>null</code>
+     */
+    KNIMEApplicationWorkbenchAdvisor(final KNIMEOpenDocumentEventProcessor openDocProcessor, final Job updateJob) {
         m_openDocProcessor = openDocProcessor;
+        m_updateJob = updateJob;
     }
 
     /**
@@ -127,7 +137,7 @@ public void preStartup() {
         super.preStartup();
 
         if (!EclipseUtil.isRunFromSDK()) {
-            if (IntroPage.INSTANCE.isFreshWorkspace()) {
+            if (IntroPage.detectFreshWorkspace() || ExampleWorkflowExtractor.isInterrupted()) {
                 KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(new ExampleWorkflowExtractor());
             }
             changeDefaultPreferences();
@@ -168,6 +178,16 @@ public void postStartup() {
         // showIntroPage();
 
         SWTUtilities.markKNIMEShell();
+        BundleActivationMonitor.finish();
+
+        if (m_updateJob != null) {
+            // give the workbench some time to settle before the update check competes for resources
+            m_updateJob.schedule(5000);
+        }
+
+        if (ResourcesPlugin.getWorkspace() != null) {
+            WorkspaceSaver.applySnapshotInterval();
+        }
     }
 
     /**
@@ -178,13 +198,7 @@ public void postShutdown() {
         super.postShutdown();
 
         if (ResourcesPlugin.getWorkspace() != null) {
-            try {
-                ResourcesPlugin.getWorkspace().save(true, null);
-            } catch (CoreException ex) {
-                Bundle myself = Platform.getBundle("org.knime.product"); //$NON-NLS-1$
-                Status error = new Status(IStatus.ERROR, "org.knime.product", org.knime.product.rcp.AutomaticUpdateMessages.KNIMEApplicationWorkbenchAdvisor_3, ex); //$NON-NLS-1$
-                Platform.getLog(myself).log(error);
-            }
+            WorkspaceSaver.saveOnShutdown();
         }
     }
 
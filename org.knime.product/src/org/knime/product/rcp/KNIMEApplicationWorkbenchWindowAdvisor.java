@@ -73,6 +73,7 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.workflow.NodeTimer;
 import org.knime.core.util.EclipseUtil;
+import org.knime.product.StartupTimeline;
 import org.knime.product.rcp.intro.IntroPage;
 import org.knime.workbench.core.KNIMECorePlugin;
 import org.knime.workbench.core.preferences.HeadlessPreferencesConstants;
@@ -176,6 +177,8 @@ public void postWindowOpen() {
 
         showIntroPage();
         showStartupMessages();
+        // before the statistics question, which blocks on fresh workspaces
+        StartupTimeline.mark(StartupTimeline.WINDOW_OPENED);
         checkAnonymousUsageStatistics(workbenchWindow.getShell());
         addGlobalNodeTimerShutdownHook();
     }
@@ -0,0 +1,163 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.knime.core.node.NodeLogger;
+import org.knime.product.StartupTimeline;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
+import org.osgi.framework.Bundle;
+
+/**
+ * Saves the workspace when the application is closed and measures how long this takes. The duration and the number of
+ * resources in the workspace are recorded in the {@link StartupTimeline} and in a <tt>WorkspaceSave</tt> JFR event.
+ * The resources are only counted if one of them is enabled.
+ *
+ * <p>
+ * The interval in which Eclipse takes workspace snapshots in the background can be set for the current session with
+ * the system property <tt>knime.workspace.snapshotInterval</tt> (in minutes); the platform's default is used if it is
+ * not set. Since the workspace description is persistent, the previous interval is restored before the final save.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class WorkspaceSaver {
+    private static final Long SNAPSHOT_INTERVAL = Long.getLong("knime.workspace.snapshotInterval"); //$NON-NLS-1$
+
+    /** The interval that was configured before {@link #applySnapshotInterval()}, or -1 if it has not been changed. */
+    private static long previousSnapshotInterval = -1;
+
+    private WorkspaceSaver() {
+    }
+
+    /**
+     * Applies the snapshot interval from the system property <tt>knime.workspace.snapshotInterval</tt> to the current
+     * workspace, if it is set. The previous interval is restored by {@link #saveOnShutdown()}.
+     */
+    static synchronized void applySnapshotInterval() {
+        if ((SNAPSHOT_INTERVAL == null) || (SNAPSHOT_INTERVAL <= 0)) {
+            return;
+        }
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        long previous = workspace.getDescription().getSnapshotInterval();
+        if (setSnapshotInterval(workspace, TimeUnit.MINUTES.toMillis(SNAPSHOT_INTERVAL))) {
+            previousSnapshotInterval = previous;
+        }
+    }
+
+    private static boolean setSnapshotInterval(final IWorkspace workspace, final long interval) {
+        IWorkspaceDescription description = workspace.getDescription();
+        description.setSnapshotInterval(interval);
+        try {
+            workspace.setDescription(description);
+            return true;
+        } catch (CoreException ex) {
+            NodeLogger.getLogger(WorkspaceSaver.class)
+                .warn("Could not set workspace snapshot interval: " + ex.getMessage(), ex); //$NON-NLS-1$
+            return false;
+        }
+    }
+
+    /**
+     * Restores the snapshot interval changed by {@link #applySnapshotInterval()}, performs a full save of the current
+     * workspace and records its duration.
+     */
+    static synchronized void saveOnShutdown() {
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        if (previousSnapshotInterval >= 0) {
+            setSnapshotInterval(workspace, previousSnapshotInterval);
+            previousSnapshotInterval = -1;
+        }
+
+        boolean measured = StartupTimeline.isEnabled() || ProductEvent.isRecording();
+        // counted before the save so that walking the tree does not distort the measured duration
+        long resources = measured ? countResources(workspace.getRoot()) : -1;
+
+        ProductEvent event = ProductEvent.begin(ProductEventType.WORKSPACE_SAVE);
+        long start = System.nanoTime();
+        try {
+            workspace.save(true, null);
+        } catch (CoreException ex) {
+            Bundle myself = Platform.getBundle("org.knime.product"); //$NON-NLS-1$
+            Status error = new Status(IStatus.ERROR, "org.knime.product", //$NON-NLS-1$
+                AutomaticUpdateMessages.KNIMEApplicationWorkbenchAdvisor_3, ex);
+            Platform.getLog(myself).log(error);
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        event.set("workspaceResources", resources).commit(); //$NON-NLS-1$
+
+        if (measured) {
+            StartupTimeline.record(StartupTimeline.SHUTDOWN_SAVE_MILLIS, millis);
+            StartupTimeline.record(StartupTimeline.WORKSPACE_RESOURCES, resources);
+            NodeLogger.getLogger(WorkspaceSaver.class)
+                .debug("Saved workspace with " + resources + " resources in " + millis + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    private static long countResources(final IWorkspaceRoot root) {
+        long[] count = new long[1];
+        try {
+            root.accept(proxy -> {
+                count[0]++;
+                return true;
+            }, IContainer.INCLUDE_PHANTOMS | IContainer.INCLUDE_HIDDEN | IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS);
+        } catch (CoreException ex) {
+            return -1;
+        }
+        return count[0];
+    }
+}
@@ -48,46 +48,29 @@
  */
 package org.knime.product.rcp.intro;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.util.concurrent.locks.ReentrantLock;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
-import org.eclipse.swt.browser.Browser;
-import org.eclipse.swt.widgets.Display;
 import org.knime.core.node.NodeLogger;
-import org.knime.core.util.FileUtil;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.w3c.dom.Document;
 
 /**
- * Abstract base class for all injectors that modify the intro page.
+ * Abstract base class for all injectors that modify the intro page. Injectors don't parse or write the page
+ * themselves but are applied as transformations on the in-memory {@link IntroPageDocument}.
  *
  * @author Thorsten Meinl, KNIME AG, Zurich, Switzerland
  */
 abstract class AbstractInjector extends AbstractIntroPageModifier implements Runnable {
-    private final DocumentBuilderFactory m_parserFactory;
+    protected final IntroPageDocument m_document;
 
     protected final XPathFactory m_xpathFactory;
 
     protected final TransformerFactory m_transformerFactory;
 
-    private final ReentrantLock m_introFileLock;
-
     protected final IEclipsePreferences m_prefs;
 
     protected final boolean m_isFreshWorkspace;
@@ -95,60 +78,36 @@ abstract class AbstractInjector extends AbstractIntroPageModifier implements Run
     /**
      * Creates a new injector.
      *
-     * @param templateFile the template file in the temporary directory
-     * @param introFileLock lock for the intro file
+     * @param document the in-memory intro page
      * @param preferences the intro page preferences
      * @param isFreshWorkspace <code>true</code> if we are starting in a fresh workspace, <code>false</code> otherwise
-     * @param parserFactory a parser factory that will be re-used
-     * @param xpathFactory an XPath factory that will be re-used
-     * @param transformerFactory a transformer factory that will be re-used
      */
-    protected AbstractInjector(final File templateFile, final ReentrantLock introFileLock,
-        final IEclipsePreferences preferences, final boolean isFreshWorkspace,
-        final DocumentBuilderFactory parserFactory, final XPathFactory xpathFactory,
-        final TransformerFactory transformerFactory) {
-        super(templateFile);
-        m_introFileLock = introFileLock;
+    protected AbstractInjector(final IntroPageDocument document, final IEclipsePreferences preferences,
+        final boolean isFreshWorkspace) {
+        super(document.getIntroFile());
+        m_document = document;
         m_prefs = preferences;
         m_isFreshWorkspace = isFreshWorkspace;
-        m_parserFactory = parserFactory;
-        m_xpathFactory = xpathFactory;
-        m_transformerFactory = transformerFactory;
+        m_xpathFactory = document.getXPathFactory();
+        m_transformerFactory = document.getTransformerFactory();
     }
 
     /**
-     * {@inheritDoc}
+     * Prepares the data and submits this injector to the intro page document. The page is written and refreshed
+     * together with all other injectors that are submitted at the same time.
      */
     @Override
     public final void run() {
+        ProductEvent event =
+            ProductEvent.begin(ProductEventType.INTRO_MODIFIER).set("modifier", getClass().getSimpleName()); //$NON-NLS-1$
         try {
             prepareData();
-            m_introFileLock.lock();
-            try {
-                DocumentBuilder parser = m_parserFactory.newDocumentBuilder();
-                parser.setEntityResolver(EmptyDoctypeResolver.INSTANCE);
-                Document doc = parser.parse(getIntroPageFile());
-                XPath xpath = m_xpathFactory.newXPath();
-                injectData(doc, xpath);
-                writeFile(doc);
-                refreshIntroEditor();
-            } finally {
-                m_introFileLock.unlock();
-            }
+            m_document.submit(this);
+            event.set("successful", true); //$NON-NLS-1$
         } catch (Exception ex) {
             NodeLogger.getLogger(getClass()).warn(Messages.getString("AbstractInjector.0") + ex.getMessage(), ex); //$NON-NLS-1$
-        }
-    }
-
-    private void refreshIntroEditor() {
-        final Browser browser = findIntroPageBrowser();
-        if (browser != null) {
-            Display.getDefault().asyncExec(new Runnable() {
-                @Override
-                public void run() {
-                    browser.refresh();
-                }
-            });
+        } finally {
+            event.commit();
         }
     }
 
@@ -171,17 +130,4 @@ protected void prepareData() throws Exception {
      * @throws Exception if an error occurs
      */
     protected abstract void injectData(Document doc, XPath xpath) throws Exception;
-
-    private void writeFile(final Document doc) throws IOException, TransformerException {
-        File temp = FileUtil.createTempFile("intro", ".html", true); //$NON-NLS-1$ //$NON-NLS-2$
-
-        try (OutputStream out = new FileOutputStream(temp)) {
-            Transformer serializer = m_transformerFactory.newTransformer();
-            serializer.setOutputProperty(OutputKeys.METHOD, "xhtml"); //$NON-NLS-1$
-            serializer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, "about:legacy-compat"); //$NON-NLS-1$
-            serializer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes"); //$NON-NLS-1$
-            serializer.transform(new DOMSource(doc), new StreamResult(out));
-        }
-        Files.move(temp.toPath(), getIntroPageFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
-    }
 }
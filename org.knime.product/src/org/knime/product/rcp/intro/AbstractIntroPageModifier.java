@@ -49,21 +49,14 @@
 package org.knime.product.rcp.intro;
 
 import java.io.File;
-import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 
 import org.eclipse.core.runtime.AssertionFailedException;
 import org.eclipse.swt.browser.Browser;
 import org.eclipse.ui.IEditorInput;
-import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IEditorReference;
-import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PartInitException;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.internal.browser.BrowserViewer;
-import org.eclipse.ui.internal.browser.WebBrowserEditor;
 import org.eclipse.ui.internal.browser.WebBrowserEditorInput;
 import org.knime.core.node.NodeLogger;
 
@@ -75,8 +68,6 @@
 @SuppressWarnings("restriction")
 public class AbstractIntroPageModifier {
 
-    private final static NodeLogger LOGGER = NodeLogger.getLogger(AbstractIntroPageModifier.class);
-
     private final File m_introPageFile;
 
     /**
@@ -96,9 +87,21 @@ public File getIntroPageFile() {
     }
 
     /**
-     * Looks for the open intro page editor (and HTML editor) and returns the Browser instance. This (unfortunately)
-     * involves some heavy reflection stuff as there is no other way to attach a listener otherwise. If the intro page
-     * editor cannot be found then <code>null</code> is returned.
+     * Returns the URL under which the intro page is shown. This is the URL of the embedded {@link IntroPageServer}
+     * if it is running and the URL of the temporary intro page file otherwise.
+     *
+     * @param introPageFile the temporary intro page file
+     * @return the URL of the intro page
+     * @throws MalformedURLException if the file cannot be converted into a URL
+     */
+    static URL getIntroPageURL(final File introPageFile) throws MalformedURLException {
+        IntroPageServer server = IntroPageServer.getInstance();
+        return (server != null) ? server.getPageURL() : introPageFile.toURI().toURL();
+    }
+
+    /**
+     * Returns the Browser instance of the open intro page editor. If the intro page editor cannot be found then
+     * <code>null</code> is returned.
      *
      * @return the browser instance showing the intro page or <code>null</code>
      */
@@ -107,59 +110,23 @@ protected Browser findIntroPageBrowser() {
     }
 
     /**
-     * Looks for the open intro page editor (and HTML editor) and returns the Browser instance. This (unfortunately)
-     * involves some heavy reflection stuff as there is no other way to attach a listener otherwise. If the intro page
-     * editor cannot be found then <code>null</code> is returned.
+     * Returns the Browser instance of the open intro page editor. The editors are tracked by the
+     * {@link IntroPageBrowserRegistry}, which is installed when the intro page is shown. If the intro page editor
+     * cannot be found then <code>null</code> is returned.
      *
      * @param introPageFile the temporary intro page file
      * @return the browser instance showing the intro page or <code>null</code>
      */
     static Browser findIntroPageBrowser(final File introPageFile) {
-        for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
-            IWorkbenchPage[] pages = new IWorkbenchPage[0];
-            try {
-                pages = window.getPages();
-            } catch (Exception e) {
-                LOGGER.debug(Messages.getString("AbstractIntroPageModifier.0") + e.getMessage(), e); //$NON-NLS-1$
-                continue;
-            }
-            for (IWorkbenchPage page : pages) {
-                IEditorReference[] refs = new IEditorReference[0];
-                try {
-                    refs = page.getEditorReferences();
-                } catch (Exception e) {
-                    LOGGER.debug(Messages.getString("AbstractIntroPageModifier.1") + e.getMessage(), e); //$NON-NLS-1$
-                    continue;
-                }
-                for (IEditorReference ref : refs) {
-                    try {
-                        if (isIntroPageEditor(ref, introPageFile)) {
-                            IEditorPart part = ref.getEditor(false);
-                            if (part instanceof WebBrowserEditor) {
-                                WebBrowserEditor editor = (WebBrowserEditor)part;
-
-                                Field webBrowser = editor.getClass().getDeclaredField("webBrowser"); //$NON-NLS-1$
-                                webBrowser.setAccessible(true);
-                                BrowserViewer viewer = (BrowserViewer)webBrowser.get(editor);
-
-                                Field browserField = viewer.getClass().getDeclaredField("browser"); //$NON-NLS-1$
-                                browserField.setAccessible(true);
-                                return (Browser)browserField.get(viewer);
-                            }
-                        }
-                    } catch (PartInitException ex) {
-                        NodeLogger.getLogger(AbstractInjector.class).error(
-                            Messages.getString("AbstractIntroPageModifier.4") + ex.getMessage(), ex); //$NON-NLS-1$
-                    } catch (SecurityException | NoSuchFieldException | IllegalArgumentException
-                            | IllegalAccessException ex) {
-                        NodeLogger.getLogger(AbstractInjector.class).error(
-                            Messages.getString("AbstractIntroPageModifier.5") + ex.getMessage(), ex); //$NON-NLS-1$
-                    }
-                }
-            }
+        if (introPageFile == null) {
+            return null;
+        }
+        try {
+            return IntroPageBrowserRegistry.getBrowser(getIntroPageURL(introPageFile));
+        } catch (MalformedURLException e) {
+            NodeLogger.getLogger(AbstractInjector.class).error(Messages.getString("AbstractIntroPageModifier.7") + e.getMessage()); //$NON-NLS-1$
+            return null;
         }
-        // browser not created yet or not available anymore
-        return null;
     }
 
     /**
@@ -176,7 +143,7 @@ static boolean isIntroPageEditor(final IEditorReference ref, final File introPag
         }
 
         try {
-            URL expectedURL = introPageFile.toURI().toURL();
+            URL expectedURL = getIntroPageURL(introPageFile);
             IEditorInput input = ref.getEditorInput();
             return (input instanceof WebBrowserEditorInput)
                 && ((WebBrowserEditorInput)input).getURL().getPath()
@@ -52,8 +52,9 @@
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.swt.browser.Browser;
-import org.eclipse.swt.widgets.Display;
 import org.knime.core.node.NodeLogger;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 
 /**
  * Abstract base class for all updaters (JS) that modify the intro page.
@@ -82,39 +83,54 @@ protected AbstractUpdater(final File introPageFile, final ReentrantLock introFil
      */
     @Override
     public final void run() {
+        ProductEvent event =
+            ProductEvent.begin(ProductEventType.INTRO_MODIFIER).set("modifier", getClass().getSimpleName()); //$NON-NLS-1$
         try {
             prepareData();
+            if (Thread.currentThread().isInterrupted()) {
+                // cancelled, e.g. because it took too long or the intro page has been closed
+                return;
+            }
             m_introFileLock.lock();
             try {
                 updateData();
             } finally {
                 m_introFileLock.unlock();
             }
+            event.set("successful", true); //$NON-NLS-1$
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             LOGGER.warn(Messages.getString("AbstractUpdater.0") + ex.getMessage(), ex); //$NON-NLS-1$
+        } finally {
+            event.commit();
         }
     }
 
     protected void executeUpdateInBrowser(final String jsCall) {
         Browser browser = findIntroPageBrowser();
         if (browser != null) {
-            Display.getDefault().asyncExec(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        //try for a couple of calls till the script is executed successfully
-                        //isn't always the case on the first call maybe because page loading isn't done, yet
-                        //see AP-13094
-                        int i = 0;
-                        while (!browser.execute(jsCall) && i < 10) {
-                            Thread.sleep(100);
-                            i++;
-                        }
-                    } catch (Exception e) {
-                        LOGGER.info(Messages.getString("AbstractUpdater.1") + e.getMessage(), e); //$NON-NLS-1$
-                    }
-                }
-            });
+            // the script is executed once the page is ready, see AP-13094
+            IntroPageCommandQueue.execute(browser, jsCall);
+        }
+    }
+
+    /**
+     * Passes the given data to a JavaScript function in the intro page. If the embedded {@link IntroPageServer} is
+     * running, the data is published there and the page fetches it from the server. This way the data is not embedded
+     * into a script and is also available to the page after it has been reloaded.
+     *
+     * @param name a unique name for the data
+     * @param callback name of the global JavaScript function that displays the data
+     * @param json the data as JSON
+     */
+    protected void publishData(final String name, final String callback, final String json) {
+        IntroPageServer server = IntroPageServer.getInstance();
+        if (server != null) {
+            server.publish(name, callback, json);
+            executeUpdateInBrowser("loadData('" + name + "', '" + callback + "');"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        } else {
+            executeUpdateInBrowser(callback + "(" + json + ");"); //$NON-NLS-1$ //$NON-NLS-2$
         }
     }
 
@@ -48,15 +48,10 @@
  */
 package org.knime.product.rcp.intro;
 
-import java.io.File;
 import java.net.URL;
-import java.util.concurrent.locks.ReentrantLock;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -79,12 +74,9 @@ class BaseInjector extends AbstractInjector {
     private static final String SUBTITLE_FIRST = Messages.getString("BaseInjector.2"); //$NON-NLS-1$
     private static final String SUBTITLE = Messages.getString("BaseInjector.3"); //$NON-NLS-1$
 
-    protected BaseInjector(final File templateFile, final ReentrantLock introFileLock,
-        final IEclipsePreferences preferences, final boolean isFreshWorkspace,
-        final DocumentBuilderFactory parserFactory, final XPathFactory xpathFactory,
-        final TransformerFactory transformerFactory) {
-        super(templateFile, introFileLock, preferences, isFreshWorkspace, parserFactory, xpathFactory,
-            transformerFactory);
+    protected BaseInjector(final IntroPageDocument document, final IEclipsePreferences preferences,
+        final boolean isFreshWorkspace) {
+        super(document, preferences, isFreshWorkspace);
     }
 
     /**
@@ -92,8 +84,13 @@ protected BaseInjector(final File templateFile, final ReentrantLock introFileLoc
      */
     @Override
     protected void injectData(final Document doc, final XPath xpath) throws Exception {
-        Bundle myBundle = FrameworkUtil.getBundle(getClass());
-        URL baseUrl = FileLocator.toFileURL(myBundle.getEntry("/intro4.0")); //$NON-NLS-1$
+        URL baseUrl;
+        if (m_document.getServer() != null) {
+            baseUrl = m_document.getServer().getBaseURL();
+        } else {
+            Bundle myBundle = FrameworkUtil.getBundle(getClass());
+            baseUrl = FileLocator.toFileURL(myBundle.getEntry("/intro4.0")); //$NON-NLS-1$
+        }
 
         Element base = (Element)xpath.evaluate("/html/head/base", doc.getDocumentElement(), XPathConstants.NODE); //$NON-NLS-1$
         base.setAttribute("href", baseUrl.toExternalForm()); //$NON-NLS-1$
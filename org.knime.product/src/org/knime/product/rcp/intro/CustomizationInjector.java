@@ -47,19 +47,14 @@
 	 */
 package org.knime.product.rcp.intro;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.knime.core.node.NodeLogger;
@@ -85,30 +80,23 @@ class CustomizationInjector extends AbstractInjector {
      * Customizes the Welcome Page, i.e. adds a custom logo and a link to the "Where to go from here"-section and
      * replaces the text with a custom user text.
      *
-     * @param templateFile
-     * @param introFileLock
+     * @param document
      * @param preferences
      * @param isFreshWorkspace
-     * @param parserFactory
-     * @param xpathFactory
-     * @param transformerFactory
      * @param customizationInfo
      */
-    CustomizationInjector(final File templateFile, final ReentrantLock introFileLock,
-        final IEclipsePreferences preferences, final boolean isFreshWorkspace,
-        final DocumentBuilderFactory parserFactory, final XPathFactory xpathFactory,
-        final TransformerFactory transformerFactory, final Map<String, String> customizationInfo) {
-        super(templateFile, introFileLock, preferences, isFreshWorkspace, parserFactory, xpathFactory,
-            transformerFactory);
+    CustomizationInjector(final IntroPageDocument document, final IEclipsePreferences preferences,
+        final boolean isFreshWorkspace, final Map<String, String> customizationInfo) {
+        super(document, preferences, isFreshWorkspace);
         m_customizationInfo = customizationInfo;
 
         if (m_customizationInfo.containsKey("IntroText")) { //$NON-NLS-1$
             //try to parse the provided replacement text
             try {
-                DocumentBuilder parser = parserFactory.newDocumentBuilder();
+                DocumentBuilder parser = document.getParserFactory().newDocumentBuilder();
                 parser.setEntityResolver(EmptyDoctypeResolver.INSTANCE);
                 Document introText = parser.parse(m_customizationInfo.get("IntroText")); //$NON-NLS-1$
-                m_newIntroNode = ((Element)xpathFactory.newXPath().evaluate("//div[@id='intro-text']", //$NON-NLS-1$
+                m_newIntroNode = ((Element)m_xpathFactory.newXPath().evaluate("//div[@id='intro-text']", //$NON-NLS-1$
                     introText.getDocumentElement(), XPathConstants.NODE)).cloneNode(true);
                 m_newIntro = true;
             } catch (ParserConfigurationException | SAXException | IOException e) {
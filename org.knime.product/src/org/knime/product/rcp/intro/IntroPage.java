@@ -49,7 +49,6 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -57,21 +56,22 @@
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.http.NameValuePair;
@@ -125,7 +125,6 @@
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.prefs.BackingStoreException;
-import org.xml.sax.SAXException;
 
 /**
  * Class for showing and handling events in the intro page.
@@ -142,17 +141,33 @@ public class IntroPage implements LocationListener {
     private static final NodeLogger LOGGER = NodeLogger.getLogger(IntroPage.class);
     private static final String BROWSER_ID = "org.knime.intro.page"; //$NON-NLS-1$
 
+    private static Boolean freshWorkspace;
+
+    /** Maximum time in seconds an updater may take before it is cancelled. */
+    private static final long UPDATER_TIMEOUT = 90;
+
+    private static final ScheduledExecutorService UPDATER_WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "KNIME-Intro-Page-Updater-Watchdog"); //$NON-NLS-1$
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Singleton instance.
      */
     public static final IntroPage INSTANCE = new IntroPage();
 
-    private boolean m_freshWorkspace;
+    private final boolean m_freshWorkspace;
     private XPathFactory m_xpathFactory;
     private DocumentBuilderFactory m_parserFactory;
     private TransformerFactory m_transformerFactory;
-    private File m_introFile;
+    private volatile File m_introFile;
+    private IntroPageDocument m_document;
     private final ReentrantLock m_lock;
+    private final CompletableFuture<Void> m_pageBuilt = new CompletableFuture<>();
+    private boolean m_buildStarted;
+    private boolean m_showPending;
+    private final Map<Class<?>, Future<?>> m_runningUpdaters = new HashMap<>();
 
     private final IEclipsePreferences m_prefs =
         InstanceScope.INSTANCE.getNode(FrameworkUtil.getBundle(getClass()).getSymbolicName());
@@ -163,51 +178,104 @@ static Path getWorkbenchStateFile() {
         return path.toFile().toPath().getParent().resolve("org.eclipse.e4.workbench").resolve("workbench.xmi"); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
+    /**
+     * Returns whether the workspace is used for the first time. The state is determined once per session by checking
+     * for the workbench state; the intro page is not created or built by this method.
+     *
+     * @return <code>true</code> if the workspace is fresh, <code>false</code> otherwise
+     */
+    public static synchronized boolean detectFreshWorkspace() {
+        if (freshWorkspace == null) {
+            // in fresh workspaces, workbench.xmi does not exist yet
+            freshWorkspace = !Files.exists(getWorkbenchStateFile());
+        }
+        return freshWorkspace;
+    }
+
     private IntroPage() {
-        // in fresh workspaces, workbench.xmi does not exist yet
-        m_freshWorkspace = !Files.exists(getWorkbenchStateFile());
+        m_freshWorkspace = detectFreshWorkspace();
+        m_lock = new ReentrantLock();
+    }
 
-        // workaround for a bug in XPathFinderFactory on MacOS X
-        final ClassLoader previousClassLoader = Thread.currentThread().getContextClassLoader();
-        Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
+    private void buildPage() {
         try {
-            m_xpathFactory = XPathFactory.newInstance();
-            m_parserFactory = DocumentBuilderFactory.newInstance();
-            m_parserFactory.setValidating(false);
-            m_transformerFactory = TransformerFactory.newInstance();
+            // workaround for a bug in XPathFinderFactory on MacOS X
+            final ClassLoader previousClassLoader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
+            try {
+                m_xpathFactory = XPathFactory.newInstance();
+                m_parserFactory = DocumentBuilderFactory.newInstance();
+                m_parserFactory.setValidating(false);
+                m_transformerFactory = TransformerFactory.newInstance();
+            } finally {
+                Thread.currentThread().setContextClassLoader(previousClassLoader);
+            }
+
+            File introFile = FileUtil.createTempFile("intro", ".html", true); //$NON-NLS-1$ //$NON-NLS-2$
+            m_document = new IntroPageDocument(introFile, IntroPageServer.getInstance(), m_lock, m_parserFactory,
+                m_xpathFactory, m_transformerFactory);
+            m_document.load(FrameworkUtil.getBundle(getClass()).getEntry("intro4.0/intro.xhtml")); //$NON-NLS-1$
+            m_document.apply(Collections.singletonList(new BaseInjector(m_document, m_prefs, m_freshWorkspace)));
+            m_introFile = introFile;
+        } catch (Exception ex) {
+            LOGGER.error(Messages.getString("IntroPage.5") + ex.getMessage(), ex); //$NON-NLS-1$
         } finally {
-            Thread.currentThread().setContextClassLoader(previousClassLoader);
+            m_pageBuilt.complete(null);
         }
-        m_lock = new ReentrantLock();
-        injectTiles(false);
     }
 
-    private void injectTiles(final boolean refresh) {
-        try {
-            String introFile = "intro4.0/intro.xhtml"; //$NON-NLS-1$
-            m_introFile = copyTemplate(introFile, refresh);
-
-            BaseInjector baseInjector = new BaseInjector(m_introFile, m_lock, m_prefs, m_freshWorkspace,
-                m_parserFactory, m_xpathFactory, m_transformerFactory);
-            baseInjector.run();
+    private void updateTiles() {
+        Map<String, String> customizationInfo = getBrandingInfo();
+        submitUpdater(new TileUpdater(m_introFile, m_lock, m_freshWorkspace, customizationInfo));
+        submitUpdater(new ReleaseMessageUpdater(m_introFile, m_lock));
+    }
 
-            updateTiles();
+    /**
+     * Submits the updater unless an updater of the same type is still running. Updaters that do not finish in time
+     * are cancelled.
+     */
+    private void submitUpdater(final AbstractUpdater updater) {
+        synchronized (m_runningUpdaters) {
+            Future<?> running = m_runningUpdaters.get(updater.getClass());
+            if ((running != null) && !running.isDone()) {
+                return;
+            }
+            Future<?> future = KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(updater);
+            m_runningUpdaters.put(updater.getClass(), future);
+            UPDATER_WATCHDOG.schedule(() -> {
+                if (future.cancel(true)) {
+                    LOGGER.debug(updater.getClass().getSimpleName() + " did not finish within " + UPDATER_TIMEOUT //$NON-NLS-1$
+                        + " seconds and has been cancelled"); //$NON-NLS-1$
+                }
+            }, UPDATER_TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
 
-        } catch (IOException | ParserConfigurationException | SAXException | XPathExpressionException
-                | TransformerFactoryConfigurationError | TransformerException ex) {
-            LOGGER.error(Messages.getString("IntroPage.5") + ex.getMessage(), ex); //$NON-NLS-1$
+    /**
+     * Cancels all running updaters.
+     */
+    private void cancelUpdaters() {
+        synchronized (m_runningUpdaters) {
+            for (Future<?> f : m_runningUpdaters.values()) {
+                f.cancel(true);
+            }
+            m_runningUpdaters.clear();
         }
     }
 
-    private void updateTiles() {
+    /**
+     * Called when an editor has been closed. If it showed the intro page all running updaters are cancelled because
+     * there is no browser left that they could modify.
+     *
+     * @param ref the reference of the closed editor
+     */
+    void editorClosed(final IEditorReference ref) {
         try {
-            Map<String, String> customizationInfo = getBrandingInfo();
-            KNIMEConstants.GLOBAL_THREAD_POOL
-                .submit(new TileUpdater(m_introFile, m_lock, m_freshWorkspace, customizationInfo));
-            KNIMEConstants.GLOBAL_THREAD_POOL.submit(new ReleaseMessageUpdater(m_introFile, m_lock));
-        } catch (InterruptedException ex) {
-            // should not happen
-            LOGGER.info(Messages.getString("IntroPage.6") + ex.getMessage(), ex); //$NON-NLS-1$
+            if (AbstractIntroPageModifier.isIntroPageEditor(ref, m_introFile)) {
+                cancelUpdaters();
+            }
+        } catch (PartInitException ex) {
+            LOGGER.error(Messages.getString("IntroPage.42") + ex.getMessage(), ex); //$NON-NLS-1$
         }
     }
 
@@ -233,38 +301,36 @@ private static Map<String, String> getBrandingInfo() {
         }
     }
 
-    /**
-     * Copies one of the template files into a temporary directory.
-     *
-     * @param templateFile the template file that should be copied
-     * @return the modified temporary file
-     */
-    private File copyTemplate(final String templateFile, final boolean replaceExisting)
-        throws IOException, ParserConfigurationException, SAXException, XPathExpressionException,
-        TransformerFactoryConfigurationError, TransformerException {
-        File tempTemplate = m_introFile;
-        if (!replaceExisting) {
-            tempTemplate = FileUtil.createTempFile("intro", ".html", true); //$NON-NLS-1$ //$NON-NLS-2$
-        }
-        Bundle myBundle = FrameworkUtil.getBundle(getClass());
-        URL introUrl = myBundle.getEntry(templateFile);
-        try (InputStream is = introUrl.openStream()) {
-            Files.copy(is, tempTemplate.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        }
-        return tempTemplate;
-    }
-
     /**
      * Shows the intro page.
      */
     public void show() {
+        if (!m_pageBuilt.isDone()) {
+            // the page is built lazily in the background and shown once it is ready, repeated calls in the meantime
+            // are ignored
+            if (!m_buildStarted) {
+                m_buildStarted = true;
+                KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(this::buildPage);
+            }
+            if (!m_showPending) {
+                m_showPending = true;
+                final Display display = Display.getDefault();
+                m_pageBuilt.thenRun(() -> display.asyncExec(() -> {
+                    m_showPending = false;
+                    show();
+                }));
+            }
+            return;
+        }
+
+        IntroPageBrowserRegistry.install();
         if (m_introFile != null) {
             try {
                 IWebBrowser browser = PlatformUI.getWorkbench().getBrowserSupport().createBrowser(BROWSER_ID);
                 if (browser instanceof SystemBrowserInstance) {
                     showMissingBrowserWarning();
                 } else {
-                    browser.openURL(m_introFile.toURI().toURL());
+                    browser.openURL(AbstractIntroPageModifier.getIntroPageURL(m_introFile));
                     updateTiles();
                 }
             } catch (PartInitException ex) {
@@ -300,8 +366,7 @@ private static void showMissingBrowserWarning() {
     }
 
     /**
-     * Looks for the open intro page editor (and HTML editor) any tries to attach a location listener. This
-     * (unfortunately) involves some heavy reflection stuff as there is no other way to attach a listener otherwise.
+     * Looks for the open intro page editor (and HTML editor) any tries to attach a location listener.
      */
     private void attachLocationListener() {
         Browser browser = AbstractIntroPageModifier.findIntroPageBrowser(m_introFile);
@@ -327,8 +392,10 @@ public boolean isFreshWorkspace() {
     public void changing(final LocationEvent event) {
         try {
             URI uri = new URI(event.location);
-            URL welcomeURL = m_introFile.toURI().toURL();
+            URL welcomeURL = AbstractIntroPageModifier.getIntroPageURL(m_introFile);
             try {
+                // the page itself (either the temporary file or the URL on the embedded server) is shown in the
+                // browser, all other links are handled by us
                 if (uri.toURL().getPath().equals(welcomeURL.getPath())) {
                     return;
                 }
@@ -457,6 +524,7 @@ private static void newWorkflow() {
     }
 
     private void closeIntro() {
+        cancelUpdaters();
         for (IEditorReference ref : PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage()
             .getEditorReferences()) {
             try {
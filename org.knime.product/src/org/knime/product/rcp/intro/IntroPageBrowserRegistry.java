@@ -0,0 +1,234 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro;
+
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.swt.browser.Browser;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.internal.browser.BrowserViewer;
+import org.eclipse.ui.internal.browser.WebBrowserEditor;
+import org.eclipse.ui.internal.browser.WebBrowserEditorInput;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Keeps track of the browsers in open web browser editors. Editors are recorded by a part listener when they are opened
+ * (or their input changes) and removed when they are closed, so that looking up the browser for the intro page does
+ * not need to scan all editors. The private fields that hold the browser are resolved only once. Closing the intro
+ * page editor also cancels the updaters of the {@link IntroPage}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("restriction")
+final class IntroPageBrowserRegistry {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(IntroPageBrowserRegistry.class);
+
+    private static final Field WEB_BROWSER_FIELD;
+
+    private static final Field BROWSER_FIELD;
+
+    static {
+        Field webBrowser = null;
+        Field browser = null;
+        try {
+            webBrowser = WebBrowserEditor.class.getDeclaredField("webBrowser"); //$NON-NLS-1$
+            webBrowser.setAccessible(true);
+            browser = BrowserViewer.class.getDeclaredField("browser"); //$NON-NLS-1$
+            browser.setAccessible(true);
+        } catch (NoSuchFieldException | SecurityException ex) {
+            LOGGER.error(Messages.getString("IntroPageBrowserRegistry.0") + ex.getMessage(), ex); //$NON-NLS-1$
+        }
+        WEB_BROWSER_FIELD = webBrowser;
+        BROWSER_FIELD = browser;
+    }
+
+    /** Browsers by the path of the URL they have been opened with. */
+    private static final Map<String, Browser> BROWSERS = new ConcurrentHashMap<>();
+
+    private static boolean installed;
+
+    private static final IPartListener2 PART_LISTENER = new IPartListener2() {
+        @Override
+        public void partOpened(final IWorkbenchPartReference partRef) {
+            record(partRef.getPart(false));
+        }
+
+        @Override
+        public void partInputChanged(final IWorkbenchPartReference partRef) {
+            record(partRef.getPart(false));
+        }
+
+        @Override
+        public void partClosed(final IWorkbenchPartReference partRef) {
+            IWorkbenchPart part = partRef.getPart(false);
+            if (part instanceof WebBrowserEditor) {
+                Browser browser = getBrowser((WebBrowserEditor)part);
+                if (browser != null) {
+                    BROWSERS.values().remove(browser);
+                }
+            }
+            if (partRef instanceof IEditorReference) {
+                IntroPage.INSTANCE.editorClosed((IEditorReference)partRef);
+            }
+        }
+
+        @Override
+        public void partActivated(final IWorkbenchPartReference partRef) {
+        }
+
+        @Override
+        public void partBroughtToTop(final IWorkbenchPartReference partRef) {
+        }
+
+        @Override
+        public void partDeactivated(final IWorkbenchPartReference partRef) {
+        }
+
+        @Override
+        public void partHidden(final IWorkbenchPartReference partRef) {
+        }
+
+        @Override
+        public void partVisible(final IWorkbenchPartReference partRef) {
+        }
+    };
+
+    private static final IWindowListener WINDOW_LISTENER = new IWindowListener() {
+        @Override
+        public void windowOpened(final IWorkbenchWindow window) {
+            window.getPartService().addPartListener(PART_LISTENER);
+        }
+
+        @Override
+        public void windowClosed(final IWorkbenchWindow window) {
+            window.getPartService().removePartListener(PART_LISTENER);
+        }
+
+        @Override
+        public void windowActivated(final IWorkbenchWindow window) {
+        }
+
+        @Override
+        public void windowDeactivated(final IWorkbenchWindow window) {
+        }
+    };
+
+    private IntroPageBrowserRegistry() {
+    }
+
+    /**
+     * Installs the listeners and records the already open web browser editors. Must be called in the display thread,
+     * subsequent calls do nothing.
+     */
+    static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        PlatformUI.getWorkbench().addWindowListener(WINDOW_LISTENER);
+        for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+            window.getPartService().addPartListener(PART_LISTENER);
+            for (IWorkbenchPage page : window.getPages()) {
+                for (IEditorReference ref : page.getEditorReferences()) {
+                    record(ref.getEditor(false));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the browser of the open web browser editor that shows the given URL.
+     *
+     * @param url the URL of the page
+     * @return the browser or <code>null</code> if no such editor is open
+     */
+    static Browser getBrowser(final URL url) {
+        Browser browser = BROWSERS.get(url.getPath());
+        return ((browser != null) && !browser.isDisposed()) ? browser : null;
+    }
+
+    private static void record(final IWorkbenchPart part) {
+        if (!(part instanceof WebBrowserEditor)) {
+            return;
+        }
+        IEditorInput input = ((WebBrowserEditor)part).getEditorInput();
+        if (!(input instanceof WebBrowserEditorInput) || (((WebBrowserEditorInput)input).getURL() == null)) {
+            return;
+        }
+        final Browser browser = getBrowser((WebBrowserEditor)part);
+        if (browser != null) {
+            // the same editor may be re-used for a different URL
+            boolean known = BROWSERS.values().remove(browser);
+            BROWSERS.put(((WebBrowserEditorInput)input).getURL().getPath(), browser);
+            if (!known) {
+                browser.addDisposeListener(e -> BROWSERS.values().remove(browser));
+            }
+        }
+    }
+
+    private static Browser getBrowser(final WebBrowserEditor editor) {
+        if ((WEB_BROWSER_FIELD == null) || (BROWSER_FIELD == null)) {
+            return null;
+        }
+        try {
+            BrowserViewer viewer = (BrowserViewer)WEB_BROWSER_FIELD.get(editor);
+            return (viewer != null) ? (Browser)BROWSER_FIELD.get(viewer) : null;
+        } catch (IllegalArgumentException | IllegalAccessException ex) {
+            LOGGER.error(Messages.getString("IntroPageBrowserRegistry.0") + ex.getMessage(), ex); //$NON-NLS-1$
+            return null;
+        }
+    }
+}
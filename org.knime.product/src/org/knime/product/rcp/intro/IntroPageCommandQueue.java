@@ -0,0 +1,202 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.browser.Browser;
+import org.eclipse.swt.browser.BrowserFunction;
+import org.eclipse.swt.widgets.Display;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Queue of JavaScript commands for a browser showing the intro page. Commands can be added from any thread; they are
+ * buffered until the page signals that it is ready (<tt>knimeIntroReady()</tt> in <tt>knime.js</tt>) and are then
+ * executed together in a single call. If the page is reloaded, commands are buffered again until the new page is
+ * ready. Nothing ever waits on the display thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class IntroPageCommandQueue {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(IntroPageCommandQueue.class);
+
+    private static final String READY_FUNCTION = "knimeIntroReady"; //$NON-NLS-1$
+
+    private static final String UNLOADING_FUNCTION = "knimeIntroUnloading"; //$NON-NLS-1$
+
+    /** Queues by browser; entries are removed when the browser is disposed. */
+    private static final Map<Browser, IntroPageCommandQueue> QUEUES = new HashMap<>();
+
+    private final Browser m_browser;
+
+    private final Display m_display;
+
+    private final List<String> m_pending = new ArrayList<>();
+
+    private boolean m_flushScheduled;
+
+    // the following fields are only accessed in the display thread
+
+    private boolean m_installed;
+
+    private boolean m_ready;
+
+    private IntroPageCommandQueue(final Browser browser) {
+        m_browser = browser;
+        m_display = browser.getDisplay();
+    }
+
+    /**
+     * Executes the given script in the browser as soon as the page is ready. This method can be called from any
+     * thread.
+     *
+     * @param browser the browser showing the intro page
+     * @param script a JavaScript snippet
+     */
+    static void execute(final Browser browser, final String script) {
+        IntroPageCommandQueue queue;
+        synchronized (QUEUES) {
+            queue = QUEUES.computeIfAbsent(browser, IntroPageCommandQueue::new);
+        }
+        queue.add(script);
+    }
+
+    /**
+     * Tells the queue for the given browser that the page is about to be reloaded, so that commands are buffered until
+     * the page is ready again. This method can be called from any thread.
+     *
+     * @param browser the browser showing the intro page
+     */
+    static void reloading(final Browser browser) {
+        IntroPageCommandQueue queue;
+        synchronized (QUEUES) {
+            queue = QUEUES.get(browser);
+        }
+        if (queue != null) {
+            queue.m_display.asyncExec(() -> queue.m_ready = false);
+        }
+    }
+
+    private void add(final String script) {
+        synchronized (m_pending) {
+            m_pending.add(script);
+            if (m_flushScheduled) {
+                return;
+            }
+            m_flushScheduled = true;
+        }
+        if (!m_display.isDisposed()) {
+            m_display.asyncExec(this::flush);
+        }
+    }
+
+    private void flush() {
+        synchronized (m_pending) {
+            m_flushScheduled = false;
+        }
+        if (m_browser.isDisposed()) {
+            // disposed before the dispose listener has been installed
+            remove();
+            return;
+        }
+        if (!m_installed) {
+            install();
+        }
+        if (!m_ready) {
+            // the ready callback will flush
+            return;
+        }
+
+        String script;
+        synchronized (m_pending) {
+            if (m_pending.isEmpty()) {
+                return;
+            }
+            script = String.join("\n", m_pending); //$NON-NLS-1$
+            m_pending.clear();
+        }
+        if (!m_browser.execute(script)) {
+            LOGGER.debug("Could not execute script in intro page:\n" + script); //$NON-NLS-1$
+        }
+    }
+
+    private void remove() {
+        synchronized (QUEUES) {
+            QUEUES.remove(m_browser);
+        }
+    }
+
+    private void install() {
+        m_installed = true;
+        new BrowserFunction(m_browser, READY_FUNCTION) {
+            @Override
+            public Object function(final Object[] arguments) {
+                m_ready = true;
+                flush();
+                return null;
+            }
+        };
+        new BrowserFunction(m_browser, UNLOADING_FUNCTION) {
+            @Override
+            public Object function(final Object[] arguments) {
+                m_ready = false;
+                return null;
+            }
+        };
+        m_browser.addDisposeListener(e -> remove());
+
+        // the page may have finished loading before the functions above were installed
+        try {
+            Object readyState = m_browser.evaluate("return document.readyState;"); //$NON-NLS-1$
+            m_ready = "interactive".equals(readyState) || "complete".equals(readyState); //$NON-NLS-1$ //$NON-NLS-2$
+        } catch (SWTException ex) {
+            m_ready = false;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+
+import org.eclipse.swt.browser.Browser;
+import org.eclipse.swt.widgets.Display;
+import org.knime.core.node.NodeLogger;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * In-memory representation of the intro page. The template is parsed only once and kept as a DOM. Injectors are
+ * applied as transformations on this DOM; after each batch of transformations the page is serialized once, handed to
+ * the {@link IntroPageServer} (or written into the intro file if the server is not available) and the browser is
+ * refreshed once. Injectors that are submitted while another batch is being processed are coalesced into the next
+ * batch.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class IntroPageDocument {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(IntroPageDocument.class);
+
+    private final File m_introFile;
+
+    private final IntroPageServer m_server;
+
+    private final ReentrantLock m_lock;
+
+    private final DocumentBuilderFactory m_parserFactory;
+
+    private final XPathFactory m_xpathFactory;
+
+    private final TransformerFactory m_transformerFactory;
+
+    private final List<AbstractInjector> m_pendingInjectors = new ArrayList<>();
+
+    private Document m_doc;
+
+    /**
+     * Creates a new intro page document.
+     *
+     * @param introFile the file into which the page is written if no server is available
+     * @param server the server that serves the page, may be <code>null</code>
+     * @param lock lock for the intro file
+     * @param parserFactory a parser factory that will be re-used
+     * @param xpathFactory an XPath factory that will be re-used
+     * @param transformerFactory a transformer factory that will be re-used
+     */
+    IntroPageDocument(final File introFile, final IntroPageServer server, final ReentrantLock lock,
+        final DocumentBuilderFactory parserFactory, final XPathFactory xpathFactory,
+        final TransformerFactory transformerFactory) {
+        m_introFile = introFile;
+        m_server = server;
+        m_lock = lock;
+        m_parserFactory = parserFactory;
+        m_xpathFactory = xpathFactory;
+        m_transformerFactory = transformerFactory;
+    }
+
+    /**
+     * Parses the template into memory. Nothing is written or served until the first batch of injectors has been applied.
+     *
+     * @param template URL to the template
+     * @throws IOException if an I/O error occurs
+     * @throws ParserConfigurationException if the parser cannot be created
+     * @throws SAXException if the template cannot be parsed
+     */
+    void load(final URL template) throws IOException, ParserConfigurationException, SAXException {
+        DocumentBuilder parser = m_parserFactory.newDocumentBuilder();
+        parser.setEntityResolver(EmptyDoctypeResolver.INSTANCE);
+        Document doc;
+        try (InputStream is = template.openStream()) {
+            doc = parser.parse(is, template.toExternalForm());
+        }
+
+        m_lock.lock();
+        try {
+            m_doc = doc;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the given injectors to the page in a single batch, writes the page once and refreshes the browser
+     * once.
+     *
+     * @param injectors a collection of injectors
+     * @throws Exception if an error occurs while applying the injectors or writing the page
+     */
+    void apply(final Collection<? extends AbstractInjector> injectors) throws Exception {
+        m_lock.lock();
+        try {
+            applyAndWrite(injectors);
+        } finally {
+            m_lock.unlock();
+        }
+        refreshBrowser();
+    }
+
+    /**
+     * Submits a single injector. If other injectors are submitted concurrently, they are processed together in one
+     * batch.
+     *
+     * @param injector an injector
+     * @throws Exception if an error occurs while applying the injectors or writing the page
+     */
+    void submit(final AbstractInjector injector) throws Exception {
+        synchronized (m_pendingInjectors) {
+            m_pendingInjectors.add(injector);
+        }
+
+        List<AbstractInjector> batch;
+        m_lock.lock();
+        try {
+            synchronized (m_pendingInjectors) {
+                batch = new ArrayList<>(m_pendingInjectors);
+                m_pendingInjectors.clear();
+            }
+            if (batch.isEmpty()) {
+                // already processed as part of another thread's batch
+                return;
+            }
+            applyAndWrite(batch);
+        } finally {
+            m_lock.unlock();
+        }
+        refreshBrowser();
+    }
+
+    private void applyAndWrite(final Collection<? extends AbstractInjector> injectors) throws Exception {
+        XPath xpath = m_xpathFactory.newXPath();
+        for (AbstractInjector injector : injectors) {
+            try {
+                injector.injectData(m_doc, xpath);
+            } catch (Exception ex) {
+                LOGGER.warn(Messages.getString("AbstractInjector.0") + ex.getMessage(), ex); //$NON-NLS-1$
+            }
+            xpath.reset();
+        }
+        write();
+    }
+
+    private void write() throws IOException, TransformerException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(64 * 1024);
+        Transformer serializer = m_transformerFactory.newTransformer();
+        serializer.setOutputProperty(OutputKeys.METHOD, "xhtml"); //$NON-NLS-1$
+        serializer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, "about:legacy-compat"); //$NON-NLS-1$
+        serializer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes"); //$NON-NLS-1$
+        serializer.transform(new DOMSource(m_doc), new StreamResult(buf));
+
+        if (m_server != null) {
+            m_server.setPage(buf.toByteArray());
+            return;
+        }
+
+        // write next to the target and move it over so that the browser never sees a partially written file
+        Path target = m_introFile.toPath();
+        Path temp = Files.createTempFile(target.getParent(), "intro", ".html"); //$NON-NLS-1$ //$NON-NLS-2$
+        try {
+            Files.write(temp, buf.toByteArray());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void refreshBrowser() {
+        final Browser browser = AbstractIntroPageModifier.findIntroPageBrowser(m_introFile);
+        if (browser != null) {
+            IntroPageCommandQueue.reloading(browser);
+            Display.getDefault().asyncExec(() -> {
+                if (!browser.isDisposed()) {
+                    browser.refresh();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the file into which the page is written if no server is available
+     */
+    File getIntroFile() {
+        return m_introFile;
+    }
+
+    /**
+     * @return the server that serves the page or <code>null</code> if the page is written into the intro file
+     */
+    IntroPageServer getServer() {
+        return m_server;
+    }
+
+    /**
+     * @return the shared parser factory
+     */
+    DocumentBuilderFactory getParserFactory() {
+        return m_parserFactory;
+    }
+
+    /**
+     * @return the shared XPath factory
+     */
+    XPathFactory getXPathFactory() {
+        return m_xpathFactory;
+    }
+
+    /**
+     * @return the shared transformer factory
+     */
+    TransformerFactory getTransformerFactory() {
+        return m_transformerFactory;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpContext;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.knime.core.node.NodeLogger;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Embedded HTTP server that serves the intro page from memory. It only listens on the loopback interface and all
+ * paths are prefixed with a random token so that other local processes or web pages cannot guess the URLs. The
+ * following resources are available below <tt>http://127.0.0.1:&lt;port&gt;/&lt;token&gt;/</tt>:
+ * <ul>
+ * <li><tt>intro.html</tt>: the current state of the {@link IntroPageDocument}, revalidated on every request</li>
+ * <li><tt>data/</tt>: a list of all published data sets together with the JavaScript function that displays them</li>
+ * <li><tt>data/&lt;name&gt;.json</tt>: a data set published by one of the updaters, e.g. the tiles</li>
+ * <li><tt>cache/&lt;name&gt;</tt>: a remote asset (e.g. a tile image) from the {@link TileAssetCache}</li>
+ * <li>everything else is read from the <tt>intro4.0</tt> folder in this bundle and cached in memory and by the
+ * browser</li>
+ * </ul>
+ * The server can be disabled with the system property {@value #DISABLE_PROPERTY}; the intro page is then written
+ * into a temporary file as before.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class IntroPageServer {
+    /** System property that disables the embedded server if set to <code>true</code>. */
+    static final String DISABLE_PROPERTY = "knime.intro.disableServer"; //$NON-NLS-1$
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(IntroPageServer.class);
+
+    private static final String LOOPBACK_HOST = "127.0.0.1"; //$NON-NLS-1$
+
+    private static final String PAGE_NAME = "intro.html"; //$NON-NLS-1$
+
+    private static final String DATA_PREFIX = "data/"; //$NON-NLS-1$
+
+    private static final String ASSET_FOLDER = "intro4.0/"; //$NON-NLS-1$
+
+    /** Path prefix for remote assets that are served from the {@link TileAssetCache}. */
+    static final String ASSET_CACHE_PREFIX = "cache/"; //$NON-NLS-1$
+
+    private static final long ASSET_MAX_AGE = 24 * 60 * 60;
+
+    private static final int IDLE_TIMEOUT = 15000;
+
+    private static final Map<String, String> CONTENT_TYPES;
+
+    static {
+        Map<String, String> types = new HashMap<>();
+        types.put("html", "text/html; charset=UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("css", "text/css; charset=UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("js", "application/javascript; charset=UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("json", "application/json; charset=UTF-8"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("svg", "image/svg+xml"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("png", "image/png"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("jpg", "image/jpeg"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("jpeg", "image/jpeg"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("gif", "image/gif"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("woff", "font/woff"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("woff2", "font/woff2"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("ttf", "font/ttf"); //$NON-NLS-1$ //$NON-NLS-2$
+        types.put("otf", "font/otf"); //$NON-NLS-1$ //$NON-NLS-2$
+        CONTENT_TYPES = Collections.unmodifiableMap(types);
+    }
+
+    private static IntroPageServer instance;
+
+    private static boolean initialized;
+
+    private final Bundle m_bundle;
+
+    private final String m_token;
+
+    private final String m_assetETag;
+
+    private final Map<String, Optional<byte[]>> m_assets = new ConcurrentHashMap<>();
+
+    private final Map<String, Resource> m_data = new LinkedHashMap<>();
+
+    private HttpServer m_server;
+
+    private Resource m_page;
+
+    private int m_version;
+
+    private static final class Resource {
+        private final byte[] m_content;
+
+        private final String m_eTag;
+
+        private final String m_callback;
+
+        Resource(final byte[] content, final String eTag, final String callback) {
+            m_content = content;
+            m_eTag = eTag;
+            m_callback = callback;
+        }
+    }
+
+    private IntroPageServer() {
+        m_bundle = FrameworkUtil.getBundle(getClass());
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder(32);
+        for (byte b : random) {
+            token.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+        }
+        m_token = token.toString();
+        // assets only change with the bundle, so the bundle version and installation time identify them
+        m_assetETag = "\"" + m_bundle.getVersion() + "-" + m_bundle.getLastModified() + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * Returns the server instance and starts it on the first call. If the server is disabled or cannot be started,
+     * <code>null</code> is returned.
+     *
+     * @return the server or <code>null</code>
+     */
+    static synchronized IntroPageServer getInstance() {
+        if (!initialized) {
+            initialized = true;
+            if (!Boolean.getBoolean(DISABLE_PROPERTY)) {
+                try {
+                    IntroPageServer server = new IntroPageServer();
+                    server.start();
+                    instance = server;
+                } catch (IOException ex) {
+                    LOGGER.warn("Could not start intro page server, falling back to temporary file: " //$NON-NLS-1$
+                        + ex.getMessage(), ex);
+                }
+            }
+        }
+        return instance;
+    }
+
+    private void start() throws IOException {
+        HttpServer server = ServerBootstrap.bootstrap()
+            .setLocalAddress(InetAddress.getByName(LOOPBACK_HOST))
+            .setListenerPort(0)
+            .setSocketConfig(SocketConfig.custom().setSoTimeout(IDLE_TIMEOUT).build())
+            .setExceptionLogger(ex -> {
+                if (!(ex instanceof SocketTimeoutException) && !(ex instanceof ConnectionClosedException)) {
+                    LOGGER.debug("Error in intro page server: " + ex.getMessage(), ex); //$NON-NLS-1$
+                }
+            })
+            .registerHandler("/" + m_token + "/*", this::handle) //$NON-NLS-1$ //$NON-NLS-2$
+            .registerHandler("*", (request, response, context) -> response.setStatusCode(HttpStatus.SC_NOT_FOUND)) //$NON-NLS-1$
+            .create();
+        server.start();
+        m_server = server;
+        LOGGER.debug("Intro page server listening on port " + server.getLocalPort()); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the URL under which the assets of the intro page are available. It should be used as the page's base
+     * URL.
+     *
+     * @return the base URL
+     */
+    URL getBaseURL() {
+        try {
+            return new URL("http", LOOPBACK_HOST, m_server.getLocalPort(), "/" + m_token + "/"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        } catch (MalformedURLException ex) {
+            // does not happen, all parts are valid
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the URL of the intro page.
+     *
+     * @return the page URL
+     */
+    URL getPageURL() {
+        try {
+            return new URL(getBaseURL(), PAGE_NAME);
+        } catch (MalformedURLException ex) {
+            // does not happen, all parts are valid
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Replaces the intro page that is served.
+     *
+     * @param content the serialized page
+     */
+    synchronized void setPage(final byte[] content) {
+        m_page = new Resource(content, nextETag(), null);
+    }
+
+    /**
+     * Publishes a data set under <tt>data/&lt;name&gt;.json</tt>. Pages that are loaded later automatically fetch
+     * all published data sets and pass them to the given JavaScript function.
+     *
+     * @param name the name of the data set
+     * @param callback name of the global JavaScript function that displays the data
+     * @param json the data as JSON
+     */
+    synchronized void publish(final String name, final String callback, final String json) {
+        m_data.put(name, new Resource(json.getBytes(StandardCharsets.UTF_8), nextETag(), callback));
+    }
+
+    private String nextETag() {
+        return "\"" + m_token.substring(0, 8) + "-" + (++m_version) + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private void handle(final HttpRequest request, final HttpResponse response, final HttpContext context) {
+        String method = request.getRequestLine().getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) { //$NON-NLS-1$ //$NON-NLS-2$
+            response.setStatusCode(HttpStatus.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        // reject requests that have been redirected to us via DNS rebinding
+        String expectedHost = LOOPBACK_HOST + ":" + m_server.getLocalPort(); //$NON-NLS-1$
+        Header host = request.getFirstHeader("Host"); //$NON-NLS-1$
+        if ((host == null) || !expectedHost.equals(host.getValue())) {
+            response.setStatusCode(HttpStatus.SC_FORBIDDEN);
+            return;
+        }
+
+        String path;
+        try {
+            path = new URI(request.getRequestLine().getUri()).getPath().substring(m_token.length() + 2);
+        } catch (URISyntaxException ex) {
+            response.setStatusCode(HttpStatus.SC_BAD_REQUEST);
+            return;
+        }
+
+        // the body is not sent for HEAD requests, the content length is set in any case
+        if (path.isEmpty() || PAGE_NAME.equals(path)) {
+            Resource page;
+            synchronized (this) {
+                page = m_page;
+            }
+            if (page == null) {
+                response.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            } else {
+                send(request, response, page.m_content, getContentType(PAGE_NAME), page.m_eTag, "no-cache"); //$NON-NLS-1$
+            }
+        } else if (DATA_PREFIX.equals(path)) {
+            send(request, response, getDataIndex(), getContentType("json"), null, "no-store"); //$NON-NLS-1$ //$NON-NLS-2$
+        } else if (path.startsWith(DATA_PREFIX) && path.endsWith(".json")) { //$NON-NLS-1$
+            Resource data;
+            synchronized (this) {
+                data = m_data.get(path.substring(DATA_PREFIX.length(), path.length() - ".json".length())); //$NON-NLS-1$
+            }
+            if (data == null) {
+                response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            } else {
+                send(request, response, data.m_content, getContentType(path), data.m_eTag, "no-cache"); //$NON-NLS-1$
+            }
+        } else if (path.startsWith(ASSET_CACHE_PREFIX)) {
+            String name = path.substring(ASSET_CACHE_PREFIX.length());
+            TileAssetCache cache = TileAssetCache.getInstance();
+            Path file = (cache != null) ? cache.getFile(name) : null;
+            byte[] content = null;
+            try {
+                content = (file != null) ? Files.readAllBytes(file) : null;
+            } catch (NoSuchFileException ex) {
+                // evicted in the meantime
+            } catch (IOException ex) {
+                LOGGER.debug("Could not read cached asset '" + name + "': " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            if (content == null) {
+                response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            } else {
+                String contentType = cache.getContentType(name);
+                send(request, response, content, (contentType != null) ? contentType : "application/octet-stream", //$NON-NLS-1$
+                    null, "no-cache"); //$NON-NLS-1$
+            }
+        } else {
+            byte[] asset = getAsset(path);
+            if (asset == null) {
+                response.setStatusCode(HttpStatus.SC_NOT_FOUND);
+            } else {
+                send(request, response, asset, getContentType(path), m_assetETag, "max-age=" + ASSET_MAX_AGE); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private synchronized byte[] getDataIndex() {
+        JSONArray index = new JSONArray();
+        for (Map.Entry<String, Resource> e : m_data.entrySet()) {
+            JSONObject entry = new JSONObject();
+            entry.put("name", e.getKey()); //$NON-NLS-1$
+            entry.put("callback", e.getValue().m_callback); //$NON-NLS-1$
+            index.put(entry);
+        }
+        return index.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] getAsset(final String path) {
+        if (path.contains("..") || path.contains("\\")) { //$NON-NLS-1$ //$NON-NLS-2$
+            return null;
+        }
+        return m_assets.computeIfAbsent(path, p -> {
+            URL entry = m_bundle.getEntry(ASSET_FOLDER + p);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            try (InputStream is = entry.openStream()) {
+                return Optional.of(IOUtils.toByteArray(is));
+            } catch (IOException ex) {
+                LOGGER.debug("Could not read intro page asset '" + p + "': " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private static String getContentType(final String path) {
+        String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"); //$NON-NLS-1$
+    }
+
+    private static void send(final HttpRequest request, final HttpResponse response, final byte[] content,
+        final String contentType, final String eTag, final String cacheControl) {
+        response.setHeader("Cache-Control", cacheControl); //$NON-NLS-1$
+        if (eTag != null) {
+            response.setHeader("ETag", eTag); //$NON-NLS-1$
+            Header ifNoneMatch = request.getFirstHeader("If-None-Match"); //$NON-NLS-1$
+            if ((ifNoneMatch != null) && eTag.equals(ifNoneMatch.getValue())) {
+                response.setStatusCode(HttpStatus.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        ByteArrayEntity entity = new ByteArrayEntity(content);
+        entity.setContentType(contentType);
+        response.setStatusCode(HttpStatus.SC_OK);
+        response.setEntity(entity);
+    }
+}
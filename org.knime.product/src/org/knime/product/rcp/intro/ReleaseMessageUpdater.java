@@ -90,8 +90,9 @@ protected void updateData() throws Exception{
     @Override
     protected void prepareData() throws Exception {
         try {
-            m_newReleases = UpdateDetector.checkForNewRelease();
-            m_bugfixes = UpdateDetector.checkForBugfixes();
+            UpdateDetector.Result result = UpdateDetector.checkForUpdates();
+            m_newReleases = result.getNewReleases();
+            m_bugfixes = result.getBugfixes();
         } catch (Exception e) {
             // offline or server not reachable
             NodeLogger.getLogger(ReleaseMessageUpdater.class)
@@ -143,7 +144,7 @@ private void createUpdateBanner(final String icon, final String title, final Str
         updateTile.put("tileContent", tileContent); //$NON-NLS-1$
         updateTile.put("buttonAction", action); //$NON-NLS-1$
         updateTile.put("buttonText", buttonText); //$NON-NLS-1$
-        executeUpdateInBrowser("displayUpdateTile(" + updateTile + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        publishData("release", "displayUpdateTile", updateTile.toString()); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
 }
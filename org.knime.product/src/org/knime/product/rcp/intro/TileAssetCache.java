@@ -0,0 +1,313 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.intro;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.NodeLogger;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Bounded on-disk cache for remote assets of the welcome page, e.g. tile images. Each asset is stored under the hash
+ * of its URL together with a small properties file that holds the validators (ETag, Last-Modified) and the content
+ * type. Assets older than {@value #MAX_AGE} milliseconds are revalidated with a conditional request. If the total size
+ * exceeds the limit, the least recently used assets are evicted.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TileAssetCache {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TileAssetCache.class);
+
+    private static final long MAX_AGE = 24 * 60 * 60 * 1000;
+
+    private static final long MAX_SIZE = 32 * 1024 * 1024;
+
+    private static final long MAX_ASSET_SIZE = 4 * 1024 * 1024;
+
+    private static final String META_SUFFIX = ".properties"; //$NON-NLS-1$
+
+    private static TileAssetCache instance;
+
+    private final Path m_cacheDir;
+
+    private TileAssetCache(final Path cacheDir) {
+        m_cacheDir = cacheDir;
+    }
+
+    /**
+     * Returns the cache in the state location of this bundle.
+     *
+     * @return the cache or <code>null</code> if the cache directory cannot be created
+     */
+    static synchronized TileAssetCache getInstance() {
+        if (instance == null) {
+            Path dir = Platform.getStateLocation(FrameworkUtil.getBundle(TileAssetCache.class)).toFile().toPath()
+                .resolve("tile-assets"); //$NON-NLS-1$
+            try {
+                instance = new TileAssetCache(Files.createDirectories(dir));
+            } catch (IOException ex) {
+                LOGGER.debug("Could not create welcome page asset cache: " + ex.getMessage(), ex); //$NON-NLS-1$
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the name of the cached copy of the given URL without contacting the server.
+     *
+     * @param url the URL of a remote asset
+     * @return the name of the cached asset or <code>null</code> if it is not cached
+     */
+    String lookup(final String url) {
+        String name = nameFor(url);
+        return Files.isRegularFile(m_cacheDir.resolve(name)) ? name : null;
+    }
+
+    /**
+     * Makes sure that an up-to-date copy of the given URL is in the cache. Missing assets are downloaded and stale
+     * assets are revalidated.
+     *
+     * @param url the URL of a remote asset
+     * @return the name of the cached asset or <code>null</code> if it could not be downloaded
+     */
+    synchronized String fetch(final String url) {
+        String name = nameFor(url);
+        Path asset = m_cacheDir.resolve(name);
+        Path metaFile = m_cacheDir.resolve(name + META_SUFFIX);
+        Properties meta = readMeta(metaFile);
+        boolean cached = Files.isRegularFile(asset) && (meta != null);
+        if (cached && (System.currentTimeMillis() - getFetched(meta) < MAX_AGE)) {
+            return name;
+        }
+
+        try {
+            HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
+            conn.setConnectTimeout(2000);
+            conn.setReadTimeout(5000);
+            if (cached) {
+                if (meta.getProperty("etag") != null) { //$NON-NLS-1$
+                    conn.setRequestProperty("If-None-Match", meta.getProperty("etag")); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                if (meta.getProperty("lastModified") != null) { //$NON-NLS-1$
+                    conn.setRequestProperty("If-Modified-Since", meta.getProperty("lastModified")); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+            }
+            try {
+                int code = conn.getResponseCode();
+                if (cached && (code == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+                    meta.setProperty("fetched", Long.toString(System.currentTimeMillis())); //$NON-NLS-1$
+                    writeMeta(metaFile, meta);
+                    return name;
+                } else if ((code != HttpURLConnection.HTTP_OK) || (conn.getContentLengthLong() > MAX_ASSET_SIZE)) {
+                    return cached ? name : null;
+                }
+
+                Path temp = Files.createTempFile(m_cacheDir, "asset", ".part"); //$NON-NLS-1$ //$NON-NLS-2$
+                try {
+                    try (InputStream in = conn.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                        if (IOUtils.copyLarge(in, out, 0, MAX_ASSET_SIZE + 1) > MAX_ASSET_SIZE) {
+                            return cached ? name : null;
+                        }
+                    }
+                    Files.move(temp, asset, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+
+                Properties newMeta = new Properties();
+                newMeta.setProperty("url", url); //$NON-NLS-1$
+                newMeta.setProperty("fetched", Long.toString(System.currentTimeMillis())); //$NON-NLS-1$
+                setIfPresent(newMeta, "etag", conn.getHeaderField("ETag")); //$NON-NLS-1$ //$NON-NLS-2$
+                setIfPresent(newMeta, "lastModified", conn.getHeaderField("Last-Modified")); //$NON-NLS-1$ //$NON-NLS-2$
+                setIfPresent(newMeta, "contentType", conn.getContentType()); //$NON-NLS-1$
+                writeMeta(metaFile, newMeta);
+            } finally {
+                conn.disconnect();
+            }
+            evict();
+            return name;
+        } catch (IOException ex) {
+            LOGGER.debug("Could not download welcome page asset '" + url + "': " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            return cached ? name : null;
+        }
+    }
+
+    /**
+     * Returns the file of a cached asset and marks it as recently used.
+     *
+     * @param name the name returned by {@link #lookup(String)} or {@link #fetch(String)}
+     * @return the file or <code>null</code> if the asset is not (or no longer) cached
+     */
+    Path getFile(final String name) {
+        if (!name.matches("[0-9a-f]{64}")) { //$NON-NLS-1$
+            return null;
+        }
+        Path asset = m_cacheDir.resolve(name);
+        try {
+            Files.setLastModifiedTime(asset, FileTime.fromMillis(System.currentTimeMillis()));
+            return asset;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the content type of a cached asset as sent by the server.
+     *
+     * @param name the name of the asset
+     * @return the content type or <code>null</code> if it is unknown
+     */
+    String getContentType(final String name) {
+        Properties meta = readMeta(m_cacheDir.resolve(name + META_SUFFIX));
+        return (meta != null) ? meta.getProperty("contentType") : null; //$NON-NLS-1$
+    }
+
+    /**
+     * Returns a URL under which the browser can load the cached asset. This is a URL on the {@link IntroPageServer} if
+     * it is running or a file URL otherwise.
+     *
+     * @param name the name of the asset
+     * @return a URL
+     * @throws MalformedURLException if the URL cannot be created
+     */
+    URL toLocalURL(final String name) throws MalformedURLException {
+        IntroPageServer server = IntroPageServer.getInstance();
+        return (server != null) ? new URL(server.getBaseURL(), IntroPageServer.ASSET_CACHE_PREFIX + name)
+            : m_cacheDir.resolve(name).toUri().toURL();
+    }
+
+    private void evict() throws IOException {
+        List<Path> assets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(m_cacheDir)) {
+            files.filter(p -> p.getFileName().toString().matches("[0-9a-f]{64}")).forEach(assets::add); //$NON-NLS-1$
+        }
+        long totalSize = 0;
+        for (Path p : assets) {
+            totalSize += p.toFile().length();
+        }
+        if (totalSize <= MAX_SIZE) {
+            return;
+        }
+
+        assets.sort((p1, p2) -> Long.compare(p1.toFile().lastModified(), p2.toFile().lastModified()));
+        for (Path p : assets) {
+            if (totalSize <= MAX_SIZE) {
+                break;
+            }
+            long size = p.toFile().length();
+            Files.deleteIfExists(p);
+            Files.deleteIfExists(p.resolveSibling(p.getFileName() + META_SUFFIX));
+            totalSize -= size;
+        }
+    }
+
+    private static Properties readMeta(final Path metaFile) {
+        if (!Files.isRegularFile(metaFile)) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            meta.load(in);
+            return meta;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns when the asset was downloaded or revalidated the last time. Corrupt metadata makes the asset stale.
+     */
+    private static long getFetched(final Properties meta) {
+        try {
+            return Long.parseLong(meta.getProperty("fetched", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static void writeMeta(final Path metaFile, final Properties meta) throws IOException {
+        try (OutputStream out = Files.newOutputStream(metaFile)) {
+            meta.store(out, null);
+        }
+    }
+
+    private static void setIfPresent(final Properties props, final String key, final String value) {
+        if (value != null) {
+            props.setProperty(key, value);
+        }
+    }
+
+    private static String nameFor(final String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+            StringBuilder buf = new StringBuilder(64);
+            for (byte b : digest.digest(url.getBytes(StandardCharsets.UTF_8))) {
+                buf.append(String.format("%02x", b & 0xff)); //$NON-NLS-1$
+            }
+            return buf.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every JVM supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
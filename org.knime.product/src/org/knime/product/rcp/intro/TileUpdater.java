@@ -50,11 +50,16 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -62,14 +67,18 @@
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.Platform;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.HubStatistics;
+import org.knime.product.jfr.ProductEvent;
+import org.knime.product.jfr.ProductEventType;
 import org.knime.product.rcp.intro.json.JSONCategory;
 import org.knime.product.rcp.intro.json.JSONTile;
 import org.knime.product.rcp.intro.json.OfflineJsonCollector;
+import org.osgi.framework.FrameworkUtil;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -82,15 +91,29 @@
 public class TileUpdater extends AbstractUpdater {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(TileUpdater.class);
-    private static final String WELCOME_PAGE_ENDPOINT = "https://www.knime.com/welcome-ap"; //$NON-NLS-1$
+    /** The endpoint can be overridden with <tt>-Dknime.intro.endpoint</tt>, e.g. for the startup benchmark. */
+    private static final String WELCOME_PAGE_ENDPOINT =
+        System.getProperty("knime.intro.endpoint", "https://www.knime.com/welcome-ap"); //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final String CACHE_FILE = "welcome-tiles.json"; //$NON-NLS-1$
+
+    private static final String ETAG_FILE = "welcome-tiles.etag"; //$NON-NLS-1$
 
     private static JSONCategory[] TILE_CATEGORIES;
 
+    private static byte[] TILE_CONTENT;
+
+    private static String TILE_ETAG;
+
+    private static boolean TILES_REVALIDATED;
+
     private final boolean m_isFreshWorkspace;
     private final URL m_tileURL;
     private final ObjectMapper m_mapper;
     private final OfflineJsonCollector m_offlineCollector;
 
+    private String m_shownTiles;
+
 
     /**
      * @param introPageFile the intro page file in the temporary directory
@@ -109,6 +132,10 @@ protected TileUpdater(final File introPageFile, final ReentrantLock introFileLoc
 
     /**
      * {@inheritDoc}
+     *
+     * The tiles of the last successful request are cached in the state location. If they are available, they are
+     * shown immediately and the server is only asked whether they have changed. Remote images of the tiles are
+     * downloaded into the {@link TileAssetCache} so that the page can be rendered from disk.
      */
     @Override
     protected void prepareData() throws Exception {
@@ -118,59 +145,225 @@ protected void prepareData() throws Exception {
         if (m_tileURL == null) {
             return;
         }
-        if (TILE_CATEGORIES == null || IntroPage.MOCK_INTRO_PAGE) {
+        boolean revalidate;
+        String etag;
+        byte[] cachedContent;
+        synchronized (TileUpdater.class) {
+            if (TILE_CATEGORIES == null) {
+                readCache();
+            }
+            revalidate = !TILES_REVALIDATED || IntroPage.MOCK_INTRO_PAGE;
+            etag = TILE_ETAG;
+            cachedContent = TILE_CONTENT;
+        }
+        if (cachedContent != null) {
+            // show what we have right away, the server is asked afterwards
+            updateData();
+        }
+        if (revalidate) {
+            revalidate(cachedContent, etag);
+        }
+        prefetchImages();
+    }
+
+    private void prefetchImages() {
+        TileAssetCache cache = TileAssetCache.getInstance();
+        JSONCategory[] categories;
+        synchronized (TileUpdater.class) {
+            categories = TILE_CATEGORIES;
+        }
+        if ((cache == null) || (categories == null)) {
+            return;
+        }
+        for (JSONTile tile : chooseTiles(categories)) {
+            for (String url : Arrays.asList(tile.getImage(), tile.getIcon())) {
+                if (isRemote(url)) {
+                    cache.fetch(url);
+                }
+            }
+        }
+    }
+
+    private static boolean isRemote(final String url) {
+        return (url != null) && (url.startsWith("http://") || url.startsWith("https://")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private void revalidate(final byte[] cachedContent, final String etag) {
+        ProductEvent event = ProductEvent.begin(ProductEventType.TILE_FETCH).set("url", m_tileURL); //$NON-NLS-1$
+        try {
+            HttpURLConnection conn = (HttpURLConnection)m_tileURL.openConnection();
+            conn.setReadTimeout(5000);
+            conn.setConnectTimeout(2000);
+            if ((cachedContent != null) && (etag != null)) {
+                conn.setRequestProperty("If-None-Match", etag); //$NON-NLS-1$
+            }
             try {
-                HttpURLConnection conn = (HttpURLConnection)m_tileURL.openConnection();
-                conn.setReadTimeout(5000);
-                conn.setConnectTimeout(2000);
                 conn.connect();
+                event.set("status", conn.getResponseCode()); //$NON-NLS-1$
+                if (conn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    synchronized (TileUpdater.class) {
+                        TILES_REVALIDATED = true;
+                    }
+                    return;
+                }
 
-                final ClassLoader cl = Thread.currentThread().getContextClassLoader();
-                Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
-                try {
-                    TILE_CATEGORIES = m_mapper.readValue(conn.getInputStream(), JSONCategory[].class);
-                    Arrays.sort(TILE_CATEGORIES, (c1, c2) -> c1.getId().compareTo(c2.getId()));
-                } finally {
-                    Thread.currentThread().setContextClassLoader(cl);
-                    conn.disconnect();
+                byte[] content;
+                try (InputStream is = conn.getInputStream()) {
+                    content = IOUtils.toByteArray(is);
                 }
-            } catch (Exception e) {
-                // offline or server not reachable
-                LOGGER.info(Messages.getString("TileUpdater.1")); //$NON-NLS-1$
+                event.set("bytes", content.length); //$NON-NLS-1$
+                JSONCategory[] categories = parseCategories(content);
+                String newETag = conn.getHeaderField("ETag"); //$NON-NLS-1$
+                synchronized (TileUpdater.class) {
+                    TILE_CATEGORIES = categories;
+                    TILE_CONTENT = content;
+                    TILE_ETAG = newETag;
+                    TILES_REVALIDATED = true;
+                }
+                writeCache(content, newETag);
+            } finally {
+                conn.disconnect();
+            }
+        } catch (Exception e) {
+            // offline or server not reachable
+            LOGGER.info(Messages.getString("TileUpdater.1")); //$NON-NLS-1$
+        } finally {
+            event.commit();
+        }
+    }
+
+    private JSONCategory[] parseCategories(final byte[] content) throws IOException {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
+        try {
+            JSONCategory[] categories = m_mapper.readValue(content, JSONCategory[].class);
+            Arrays.sort(categories, (c1, c2) -> c1.getId().compareTo(c2.getId()));
+            return categories;
+        } finally {
+            Thread.currentThread().setContextClassLoader(cl);
+        }
+    }
+
+    private static Path getCacheDir() {
+        return Platform.getStateLocation(FrameworkUtil.getBundle(TileUpdater.class)).toFile().toPath();
+    }
+
+    private void readCache() {
+        Path cacheFile = getCacheDir().resolve(CACHE_FILE);
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(cacheFile);
+            TILE_CATEGORIES = parseCategories(content);
+            TILE_CONTENT = content;
+            Path etagFile = getCacheDir().resolve(ETAG_FILE);
+            TILE_ETAG = Files.isRegularFile(etagFile)
+                ? new String(Files.readAllBytes(etagFile), StandardCharsets.UTF_8) : null;
+        } catch (IOException ex) {
+            LOGGER.debug("Could not read cached welcome page tiles: " + ex.getMessage(), ex); //$NON-NLS-1$
+            TILE_CATEGORIES = null;
+            TILE_CONTENT = null;
+            TILE_ETAG = null;
+        }
+    }
+
+    private static void writeCache(final byte[] content, final String etag) {
+        Path cacheDir = getCacheDir();
+        try {
+            Path temp = Files.createTempFile(cacheDir, "welcome-tiles", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+            try {
+                Files.write(temp, content);
+                Files.move(temp, cacheDir.resolve(CACHE_FILE), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            if (etag != null) {
+                Files.write(cacheDir.resolve(ETAG_FILE), etag.getBytes(StandardCharsets.UTF_8));
+            } else {
+                Files.deleteIfExists(cacheDir.resolve(ETAG_FILE));
             }
+        } catch (IOException ex) {
+            LOGGER.debug("Could not cache welcome page tiles: " + ex.getMessage(), ex); //$NON-NLS-1$
         }
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The tiles are only pushed to the page if they have not been shown yet or if they have changed, e.g. on the
+     * server or because their images are now available locally.
      */
     @Override
     protected void updateData() {
+        JSONCategory[] categories;
+        synchronized (TileUpdater.class) {
+            categories = TILE_CATEGORIES;
+        }
         String tiles;
         try {
-            if (TILE_CATEGORIES == null) {
+            if (categories == null) {
                 if (m_isFreshWorkspace) {
                     tiles = m_offlineCollector.fetchFirstUse();
                 } else {
                     tiles = m_offlineCollector.fetchAllOffline();
                 }
             } else {
-                tiles = buildTilesFromCategories();
+                tiles = buildTilesFromCategories(categories);
+            }
+            if (tiles.equals(m_shownTiles)) {
+                return;
             }
             if (m_isFreshWorkspace) {
                 hideElement("hub-search-bar"); //$NON-NLS-1$
             }
             updateTiles(tiles);
+            m_shownTiles = tiles;
         } catch (IOException e) {
             LOGGER.error(Messages.getString("TileUpdater.3") + e.getMessage(), e); //$NON-NLS-1$
         }
     }
 
-    private String buildTilesFromCategories() throws JsonProcessingException {
+    private String buildTilesFromCategories(final JSONCategory[] categories) throws JsonProcessingException {
+        JSONTile[] tileArray = chooseTiles(categories);
+        TileAssetCache cache = TileAssetCache.getInstance();
+        if (cache != null) {
+            for (int i = 0; i < tileArray.length; i++) {
+                tileArray[i] = useCachedImages(tileArray[i], cache);
+            }
+        }
+        return m_mapper.writeValueAsString(tileArray);
+    }
+
+    /**
+     * Returns a copy of the tile in which remote images that are in the cache are replaced by the local copies. The
+     * tile itself is not modified because it is shared.
+     */
+    private JSONTile useCachedImages(final JSONTile tile, final TileAssetCache cache) {
+        String image = isRemote(tile.getImage()) ? cache.lookup(tile.getImage()) : null;
+        String icon = isRemote(tile.getIcon()) ? cache.lookup(tile.getIcon()) : null;
+        if ((image == null) && (icon == null)) {
+            return tile;
+        }
+        JSONTile copy = m_mapper.convertValue(tile, JSONTile.class);
+        try {
+            if (image != null) {
+                copy.setImage(cache.toLocalURL(image).toString());
+            }
+            if (icon != null) {
+                copy.setIcon(cache.toLocalURL(icon).toString());
+            }
+        } catch (MalformedURLException ex) {
+            return tile;
+        }
+        return copy;
+    }
+
+    private JSONTile[] chooseTiles(final JSONCategory[] categories) {
         JSONTile[] tileArray = new JSONTile[3];
         for (int cat = 1; cat <= 3; cat++) {
             JSONTile chosenCategoryTile = null;
-            for (JSONCategory jsonCategory : TILE_CATEGORIES) {
+            for (JSONCategory jsonCategory : categories) {
                 if (jsonCategory.getId().startsWith("c" + cat)) { //$NON-NLS-1$
                     List<JSONTile> tiles = jsonCategory.getTiles();
                     if (tiles.size() > 0) {
@@ -190,7 +383,7 @@ private String buildTilesFromCategories() throws JsonProcessingException {
             }
             tileArray[cat - 1] = chosenCategoryTile;
         }
-        return m_mapper.writeValueAsString(tileArray);
+        return tileArray;
     }
 
     private URL buildTileURL(final Map<String, String> customizationInfo) {
@@ -267,6 +460,6 @@ private void hideElement(final String id) {
     }
 
     private void updateTiles(final String tiles) {
-        executeUpdateInBrowser("updateTile(" + tiles + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        publishData("tiles", "updateTile", tiles); //$NON-NLS-1$ //$NON-NLS-2$
     }
 }
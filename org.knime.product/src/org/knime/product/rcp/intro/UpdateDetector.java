@@ -51,58 +51,252 @@
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.equinox.p2.engine.IProfile;
+import org.eclipse.equinox.p2.engine.IProfileRegistry;
 import org.eclipse.equinox.p2.operations.RepositoryTracker;
 import org.eclipse.equinox.p2.operations.UpdateOperation;
 import org.eclipse.equinox.p2.ui.ProvisioningUI;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.knime.core.eclipseUtil.UpdateChecker;
 import org.knime.core.eclipseUtil.UpdateChecker.UpdateInfo;
+import org.knime.core.node.NodeLogger;
+import org.knime.product.p2.RepositoryUpdater;
+import org.osgi.framework.FrameworkUtil;
 
 /**
+ * Detects new releases and available bugfixes. The checks for all update sites run concurrently with timeouts and
+ * the results are cached on disk (see {@link #checkForUpdates()}) so that showing the intro page repeatedly does not
+ * cause network traffic and p2 resolutions every time.
  *
  * @author Christian Albrecht, KNIME GmbH, Konstanz, Germany
  */
 final class UpdateDetector {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(UpdateDetector.class);
 
-    static final List<UpdateInfo> checkForNewRelease() throws IOException, URISyntaxException {
-        final ProvisioningUI provUI = ProvisioningUI.getDefaultUI();
-        RepositoryTracker tracker = provUI.getRepositoryTracker();
-        if (tracker == null) {
-            // if run from the IDE there will be no tracker
-            return Collections.emptyList();
+    private static final String CACHE_FILE = "update-check.json"; //$NON-NLS-1$
+
+    private static final long CACHE_TTL = TimeUnit.HOURS.toMillis(6);
+
+    private static final long RELEASE_CHECK_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long BUGFIX_CHECK_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * Result of an update check.
+     */
+    static final class Result {
+        private final List<UpdateInfo> m_newReleases;
+
+        private final List<String> m_bugfixes;
+
+        Result(final List<UpdateInfo> newReleases, final List<String> bugfixes) {
+            m_newReleases = newReleases;
+            m_bugfixes = bugfixes;
         }
 
-        List<UpdateInfo> updateList = new ArrayList<>();
-        for (URI uri : tracker.getKnownRepositories(provUI.getSession())) {
-            if (("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))
-                && (uri.getHost().endsWith(".knime.org") || uri.getHost().endsWith(".knime.com"))) {
-                UpdateInfo newRelease = UpdateChecker.checkForNewRelease(uri);
-                if (newRelease != null) {
-                    updateList.add(newRelease);
-                }
-            }
+        /**
+         * @return a modifiable list of new releases
+         */
+        List<UpdateInfo> getNewReleases() {
+            return new ArrayList<>(m_newReleases);
         }
-        return updateList;
+
+        /**
+         * @return a modifiable list with the names of the available bugfixes
+         */
+        List<String> getBugfixes() {
+            return new ArrayList<>(m_bugfixes);
+        }
+    }
+
+    private UpdateDetector() {
     }
 
-    static List<String> checkForBugfixes() throws IOException, URISyntaxException {
+    /**
+     * Checks for new releases and bugfixes. If a cached result exists that is younger than the cache TTL and has been
+     * computed for the same set of update sites and the same installation state, the cached result is returned
+     * without contacting any server. Otherwise the checks are performed concurrently and the result is cached if all
+     * checks succeeded.
+     *
+     * @return the result of the update check, never <code>null</code>
+     */
+    static synchronized Result checkForUpdates() {
         final ProvisioningUI provUI = ProvisioningUI.getDefaultUI();
         RepositoryTracker tracker = provUI.getRepositoryTracker();
         if (tracker == null) {
             // if run from the IDE there will be no tracker
-            return Collections.emptyList();
+            return new Result(Collections.emptyList(), Collections.emptyList());
         }
 
+        List<URI> knimeRepositories = getKnimeRepositories(tracker.getKnownRepositories(provUI.getSession()));
+        String cacheKey = computeCacheKey(provUI, knimeRepositories);
+        Path cacheFile = Platform.getStateLocation(FrameworkUtil.getBundle(UpdateDetector.class)).toFile().toPath()
+            .resolve(CACHE_FILE);
+        Result cached = readCache(cacheFile, cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "KNIME-Update-Detector"); //$NON-NLS-1$
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            NullProgressMonitor bugfixMonitor = new NullProgressMonitor();
+            Future<List<String>> bugfixFuture = executor.submit(() -> checkForBugfixes(provUI, bugfixMonitor));
+
+            Map<URI, Future<UpdateInfo>> releaseFutures = new LinkedHashMap<>();
+            for (URI uri : knimeRepositories) {
+                releaseFutures.put(uri, executor.submit(() -> UpdateChecker.checkForNewRelease(uri)));
+            }
+
+            boolean complete = true;
+            List<UpdateInfo> newReleases = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + RELEASE_CHECK_TIMEOUT;
+            for (Map.Entry<URI, Future<UpdateInfo>> e : releaseFutures.entrySet()) {
+                try {
+                    UpdateInfo newRelease = e.getValue()
+                        .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    if (newRelease != null) {
+                        newReleases.add(newRelease);
+                    }
+                } catch (ExecutionException | TimeoutException ex) {
+                    // offline or server not reachable
+                    LOGGER.debug("Could not check '" + e.getKey() + "' for new releases: " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+                    e.getValue().cancel(true);
+                    complete = false;
+                }
+            }
+
+            List<String> bugfixes = Collections.emptyList();
+            try {
+                bugfixes = bugfixFuture.get(BUGFIX_CHECK_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException ex) {
+                LOGGER.debug("Could not check for bugfixes: " + ex.getMessage(), ex); //$NON-NLS-1$
+                bugfixMonitor.setCanceled(true);
+                complete = false;
+            }
+
+            Result result = new Result(newReleases, bugfixes);
+            if (complete) {
+                writeCache(cacheFile, cacheKey, result);
+            }
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return new Result(Collections.emptyList(), Collections.emptyList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> checkForBugfixes(final ProvisioningUI provUI, final NullProgressMonitor monitor) {
         UpdateOperation op = new UpdateOperation(provUI.getSession());
-        op.resolveModal(new NullProgressMonitor());
+        op.setProvisioningContext(
+            RepositoryUpdater.INSTANCE.createProvisioningContext(provUI.getSession().getProvisioningAgent()));
+        op.resolveModal(monitor);
         return Stream.of(op.getPossibleUpdates()).map(u -> u.toUpdate.getProperty("org.eclipse.equinox.p2.name"))
                 .sorted().distinct().collect(Collectors.toList());
     }
 
+    private static List<URI> getKnimeRepositories(final URI[] knownRepositories) {
+        List<URI> result = new ArrayList<>();
+        for (URI uri : knownRepositories) {
+            if (("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))
+                && (uri.getHost().endsWith(".knime.org") || uri.getHost().endsWith(".knime.com"))) {
+                result.add(uri);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The cache key consists of the sorted set of update sites and the timestamp of the installed profile, which
+     * changes with every installation or update.
+     */
+    private static String computeCacheKey(final ProvisioningUI provUI, final List<URI> repositories) {
+        StringBuilder key = new StringBuilder();
+        repositories.stream().map(URI::toString).sorted().forEach(s -> key.append(s).append('\n'));
+
+        IProfileRegistry registry =
+            (IProfileRegistry)provUI.getSession().getProvisioningAgent().getService(IProfileRegistry.SERVICE_NAME);
+        IProfile profile = (registry != null) ? registry.getProfile(provUI.getProfileId()) : null;
+        key.append(provUI.getProfileId()).append('@').append((profile != null) ? profile.getTimestamp() : -1);
+        return key.toString();
+    }
+
+    private static Result readCache(final Path cacheFile, final String cacheKey) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8));
+            if (!cacheKey.equals(json.getString("key")) //$NON-NLS-1$
+                || (System.currentTimeMillis() - json.getLong("timestamp") > CACHE_TTL)) { //$NON-NLS-1$
+                return null;
+            }
+
+            List<UpdateInfo> newReleases = new ArrayList<>();
+            JSONArray releases = json.getJSONArray("newReleases"); //$NON-NLS-1$
+            for (int i = 0; i < releases.length(); i++) {
+                JSONObject r = releases.getJSONObject(i);
+                newReleases.add(new UpdateInfo(new URI(r.getString("uri")), r.getString("name"), //$NON-NLS-1$ //$NON-NLS-2$
+                    r.getString("shortName"), r.getBoolean("updatePossible"))); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            List<String> bugfixes = new ArrayList<>();
+            JSONArray fixes = json.getJSONArray("bugfixes"); //$NON-NLS-1$
+            for (int i = 0; i < fixes.length(); i++) {
+                bugfixes.add(fixes.getString(i));
+            }
+            return new Result(newReleases, bugfixes);
+        } catch (IOException | JSONException | URISyntaxException ex) {
+            LOGGER.debug("Could not read cached update check results: " + ex.getMessage(), ex); //$NON-NLS-1$
+            return null;
+        }
+    }
+
+    private static void writeCache(final Path cacheFile, final String cacheKey, final Result result) {
+        JSONObject json = new JSONObject();
+        json.put("key", cacheKey); //$NON-NLS-1$
+        json.put("timestamp", System.currentTimeMillis()); //$NON-NLS-1$
+        JSONArray releases = new JSONArray();
+        for (UpdateInfo ui : result.m_newReleases) {
+            JSONObject r = new JSONObject();
+            r.put("uri", ui.getUri().toString()); //$NON-NLS-1$
+            r.put("name", ui.getName()); //$NON-NLS-1$
+            r.put("shortName", ui.getShortName()); //$NON-NLS-1$
+            r.put("updatePossible", ui.isUpdatePossible()); //$NON-NLS-1$
+            releases.put(r);
+        }
+        json.put("newReleases", releases); //$NON-NLS-1$
+        json.put("bugfixes", new JSONArray(result.m_bugfixes)); //$NON-NLS-1$
+
+        try {
+            Files.write(cacheFile, json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            LOGGER.debug("Could not write cached update check results: " + ex.getMessage(), ex); //$NON-NLS-1$
+        }
+    }
 }
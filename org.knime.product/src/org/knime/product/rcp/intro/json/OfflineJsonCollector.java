@@ -49,22 +49,30 @@
 package org.knime.product.rcp.intro.json;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.knime.core.node.NodeLogger;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
+ * Provides the offline tiles of the welcome page. The tiles are compiled into a single index
+ * (<tt>intro4.0/tiles/index.json</tt>) during the build, which is read once and kept in memory. The index is only
+ * added to the packaged bundle and never exists in the source tree, so when running from the IDE the tile
+ * directories are scanned once instead.
  *
  * @author Christian Albrecht, KNIME GmbH, Konstanz, Germany
  * @since 4.1
@@ -72,11 +80,23 @@
 public class OfflineJsonCollector {
 
     private static String TILES = "intro4.0/tiles"; //$NON-NLS-1$
+    private static String INDEX = TILES + "/index.json"; //$NON-NLS-1$
+    private static String[] TILE_DIRS = {"first", "offline"}; //$NON-NLS-1$ //$NON-NLS-2$
     private static NodeLogger LOGGER = NodeLogger.getLogger(OfflineJsonCollector.class);
 
+    private static Map<String, TileDirectory> TILE_INDEX;
+
     private final Bundle m_bundle;
     private final ObjectMapper m_mapper;
 
+    static final class TileDirectory {
+        private final List<String> m_fileNames = new ArrayList<>();
+
+        private final List<JSONTile> m_tiles = new ArrayList<>();
+
+        private String m_json;
+    }
+
     /**
      *
      */
@@ -94,62 +114,136 @@ String collectJson(/* some config? */) {
      * @throws IOException
      */
     public String fetchFirstUse() throws IOException {
-        return fetchAllTilesFromDir(TILES + "/first"); //$NON-NLS-1$
+        return fetchAllTilesFromDir("first"); //$NON-NLS-1$
     }
 
     public String fetchAllOffline() throws IOException {
-        return fetchAllTilesFromDir(TILES + "/offline"); //$NON-NLS-1$
+        return fetchAllTilesFromDir("offline"); //$NON-NLS-1$
     }
 
     private String fetchAllTilesFromDir(final String dir) throws IOException {
-        List<URL> ttFiles = listFilesInDir(dir);
-        JSONTile[] allFirstUses = ttFiles.stream().map(url -> {
-            try {
-                return readFile(url);
-            } catch (Exception e) {
-                LOGGER.error(Messages.OfflineJsonCollector_3 + e.getMessage(), e);
-                return null;
+        TileDirectory tiles = getTileIndex().get(dir);
+        return (tiles != null) ? tiles.m_json : "[]"; //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the offline tile whose file name starts with the given prefix. The returned tile is shared and must not
+     * be modified.
+     *
+     * @param prefix the file name prefix, e.g. the category
+     * @param first <code>true</code> if the tiles for the first use should be searched, <code>false</code> for the
+     *            usual offline tiles
+     * @return the tile, an empty tile if none exists
+     * @throws IOException if the tile index cannot be read
+     */
+    public JSONTile fetchSingleOfflineTile(final String prefix, final boolean first) throws IOException {
+        TileDirectory tiles = getTileIndex().get(first ? "first" : "offline"); //$NON-NLS-1$ //$NON-NLS-2$
+        if (tiles != null) {
+            for (int i = 0; i < tiles.m_fileNames.size(); i++) {
+                if (tiles.m_fileNames.get(i).startsWith(prefix)) {
+                    return tiles.m_tiles.get(i);
+                }
+            }
+        }
+        return new JSONTile();
+    }
+
+    private Map<String, TileDirectory> getTileIndex() throws IOException {
+        synchronized (OfflineJsonCollector.class) {
+            if (TILE_INDEX == null) {
+                URL index = m_bundle.getEntry(INDEX);
+                Map<String, TileDirectory> tileIndex;
+                if (index != null) {
+                    try (InputStream is = index.openStream()) {
+                        tileIndex = readIndex(is, m_mapper);
+                    }
+                } else {
+                    tileIndex = scanDirectories();
+                }
+                serializeTiles(tileIndex, m_mapper);
+                TILE_INDEX = tileIndex;
             }
-        }).map(str -> {
-            JSONTile tile = new JSONTile();
-            try {
-                m_mapper.readerForUpdating(tile).readValue(str);
-            } catch (IOException e) {
-                LOGGER.error(Messages.OfflineJsonCollector_4 + e.getMessage(), e);
+            return TILE_INDEX;
+        }
+    }
+
+    /**
+     * Reads the tile index generated during the build.
+     *
+     * @param is an input stream with the contents of <tt>index.json</tt>
+     * @param mapper the object mapper to use
+     * @return a map from the tile directory to its tiles
+     * @throws IOException if the index cannot be read
+     */
+    static Map<String, TileDirectory> readIndex(final InputStream is, final ObjectMapper mapper) throws IOException {
+        JsonNode root = mapper.readTree(is);
+
+        Map<String, TileDirectory> tileIndex = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext();) {
+            Map.Entry<String, JsonNode> e = it.next();
+            TileDirectory dir = new TileDirectory();
+            for (JsonNode entry : e.getValue()) {
+                JSONTile tile = new JSONTile();
+                try {
+                    mapper.readerForUpdating(tile).readValue(entry.get("tile")); //$NON-NLS-1$
+                } catch (IOException ex) {
+                    LOGGER.error(Messages.OfflineJsonCollector_4 + ex.getMessage(), ex);
+                }
+                dir.m_fileNames.add(entry.get("file").asText()); //$NON-NLS-1$
+                dir.m_tiles.add(tile);
             }
-            return tile;
-        }).toArray(JSONTile[]::new);
-        return m_mapper.writeValueAsString(allFirstUses);
+            tileIndex.put(e.getKey(), dir);
+        }
+        return tileIndex;
     }
 
-    public JSONTile fetchSingleOfflineTile(final String prefix, final boolean first) throws IOException {
-        String dir = TILES + (first ? "/first" : "/offline"); //$NON-NLS-1$ //$NON-NLS-2$
-        List<URL> ttFiles = listFilesInDir(dir);
-        Optional<URL> categoryFile = ttFiles.stream().filter(url -> {
-            String fileName = url.getFile().substring(url.getFile().lastIndexOf("/") + 1); //$NON-NLS-1$
-            return fileName.startsWith(prefix);
-        }).findFirst();
-        JSONTile tile = new JSONTile();
-        if (categoryFile.isPresent()) {
-            String tileJson = readFile(categoryFile.get());
-            try {
-                m_mapper.readerForUpdating(tile).readValue(tileJson);
-            } catch (IOException e) {
-                LOGGER.error(Messages.OfflineJsonCollector_8 + e.getMessage(), e);
+    /**
+     * Serializes the tiles of each directory once, so that they can be handed out as JSON without further work.
+     *
+     * @param tileIndex the tile index
+     * @param mapper the object mapper to use
+     * @throws IOException if the tiles cannot be serialized
+     */
+    static void serializeTiles(final Map<String, TileDirectory> tileIndex, final ObjectMapper mapper)
+        throws IOException {
+        for (TileDirectory dir : tileIndex.values()) {
+            dir.m_json = mapper.writeValueAsString(dir.m_tiles);
+        }
+    }
+
+    private Map<String, TileDirectory> scanDirectories() {
+        Map<String, TileDirectory> tileIndex = new HashMap<>();
+        for (String dirName : TILE_DIRS) {
+            TileDirectory dir = new TileDirectory();
+            for (URL url : listFilesInDir(TILES + "/" + dirName)) { //$NON-NLS-1$
+                JSONTile tile = new JSONTile();
+                try {
+                    m_mapper.readerForUpdating(tile).readValue(readFile(url));
+                } catch (IOException ex) {
+                    LOGGER.error(Messages.OfflineJsonCollector_3 + ex.getMessage(), ex);
+                }
+                dir.m_fileNames.add(url.getPath().substring(url.getPath().lastIndexOf('/') + 1));
+                dir.m_tiles.add(tile);
             }
-         }
-        return tile;
+            tileIndex.put(dirName, dir);
+        }
+        return tileIndex;
     }
 
     private List<URL> listFilesInDir(final String dir) {
         Enumeration<URL> entries = m_bundle.findEntries(dir, "*.json", false); //$NON-NLS-1$
+        if (entries == null) {
+            return Collections.emptyList();
+        }
         ArrayList<URL> list = Collections.list(entries);
         list.sort((e1, e2) -> e1.getPath().compareTo(e2.getPath()));
         return list;
     }
 
     private static String readFile(final URL url) throws IOException {
-        return IOUtils.toString(url.openStream(), Charset.forName("UTF-8")); //$NON-NLS-1$
+        try (InputStream is = url.openStream()) {
+            return IOUtils.toString(is, Charset.forName("UTF-8")); //$NON-NLS-1$
+        }
     }
 
 }
@@ -0,0 +1,155 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A latency histogram with logarithmic buckets that are linearly subdivided, similar to an HdrHistogram. Values up to
+ * 31 are counted exactly, larger values in buckets whose width is at most 1/16 of their lower bound, so percentiles
+ * have a relative error below about 6% over the whole range of <code>long</code>. Recording is lock-free and does not
+ * allocate.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private static final int BUCKETS = indexOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray m_counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong m_totalCount = new AtomicLong();
+
+    private final AtomicLong m_max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value a non-negative value, negative values are recorded as 0
+     */
+    void record(final long value) {
+        long v = Math.max(0, value);
+        m_counts.incrementAndGet(indexOf(v));
+        m_totalCount.incrementAndGet();
+        long max;
+        while (v > (max = m_max.get())) {
+            if (m_max.compareAndSet(max, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    long getTotalCount() {
+        return m_totalCount.get();
+    }
+
+    /**
+     * @return the largest recorded value, 0 if nothing was recorded
+     */
+    long getMax() {
+        return m_max.get();
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of all recorded values lie. The result is the upper
+     * bound of the bucket containing the percentile, but never more than the largest recorded value.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the percentile, 0 if nothing was recorded
+     */
+    long getValueAtPercentile(final double percentile) {
+        long total = m_totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += m_counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), m_max.get());
+            }
+        }
+        return m_max.get();
+    }
+
+    /**
+     * Removes all recorded values. Values that are recorded concurrently may or may not be removed.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            m_counts.set(i, 0);
+        }
+        m_totalCount.set(0);
+        m_max.set(0);
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int)((value >>> shift) - HALF_SUB_BUCKETS);
+    }
+
+    static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        long upper = ((mantissa + 1) << shift) - 1;
+        return (upper < 0) ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.monitor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.NodeLogger;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Continuously measures how long it takes until the event queue of a UI thread executes a small probe. The latencies
+ * are recorded in a {@link LatencyHistogram}. If a probe is waiting for longer than the stall threshold (200ms by
+ * default, see <tt>-Dknime.ui.stallThreshold</tt>), the stack of the UI thread is sampled until the probe has run, so
+ * that the causes of UI freezes can be analyzed with a flame graph. In contrast to the <tt>GUIDeadlockDetector</tt>
+ * this also notices short freezes. The monitors can be switched off with the system property
+ * {@value #DISABLE_PROPERTY}.
+ *
+ * <p>
+ * The percentiles are available through JMX (see {@link ResponsivenessMonitorMXBean}) and are logged when the monitor
+ * is stopped. The stack samples are then written to <tt>ui-stalls-&lt;queue&gt;.collapsed</tt> in the state location
+ * of this plug-in.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class ResponsivenessMonitor implements ResponsivenessMonitorMXBean {
+    /** System property that disables the monitors if set to <code>true</code>. */
+    public static final String DISABLE_PROPERTY = "knime.ui.disableResponsivenessMonitor"; //$NON-NLS-1$
+
+    /** Interval between two checks of the monitor thread, which is also the sampling interval during stalls. */
+    private static final long TICK_MILLIS = 50;
+
+    private static final long STALL_THRESHOLD_MILLIS = Long.getLong("knime.ui.stallThreshold", 200); //$NON-NLS-1$
+
+    private static final List<ResponsivenessMonitor> MONITORS = new CopyOnWriteArrayList<>();
+
+    private final String m_queue;
+
+    private final String m_threadName;
+
+    private final Consumer<Runnable> m_enqueuer;
+
+    private final LatencyHistogram m_latencies = new LatencyHistogram();
+
+    private final StackSamples m_samples;
+
+    private final Thread m_monitorThread;
+
+    private volatile Thread m_uiThread;
+
+    /** Time at which the pending probe was enqueued, or 0 if there is none. */
+    private volatile long m_pendingSince;
+
+    private volatile long m_stallCount;
+
+    private volatile boolean m_stopped;
+
+    private ResponsivenessMonitor(final String queue, final String threadName, final Consumer<Runnable> enqueuer,
+        final Thread uiThread) {
+        m_queue = queue;
+        m_threadName = threadName;
+        m_enqueuer = enqueuer;
+        m_uiThread = uiThread;
+        m_samples = new StackSamples(threadName);
+        m_monitorThread = new Thread(this::monitor, "KNIME Responsiveness Monitor (" + threadName + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+        m_monitorThread.setDaemon(true);
+    }
+
+    /**
+     * Starts monitoring an event queue.
+     *
+     * @param queue a short identifier of the queue, e.g. <tt>swt</tt>, used in the JMX name and file name
+     * @param threadName the name of the UI thread shown in reports
+     * @param enqueuer puts the given runnable into the event queue, e.g. <tt>display::asyncExec</tt>
+     * @param uiThread the thread dispatching the queue if it is already known, otherwise the thread that runs the
+     *            first probe is used
+     * @return the new monitor
+     */
+    public static ResponsivenessMonitor start(final String queue, final String threadName,
+        final Consumer<Runnable> enqueuer, final Thread uiThread) {
+        ResponsivenessMonitor monitor = new ResponsivenessMonitor(queue, threadName, enqueuer, uiThread);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, monitor.getObjectName());
+        } catch (JMException ex) {
+            NodeLogger.getLogger(ResponsivenessMonitor.class).debug(
+                "Could not register responsiveness monitor for " + threadName + ": " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        MONITORS.add(monitor);
+        monitor.m_monitorThread.start();
+        return monitor;
+    }
+
+    /**
+     * Stops all monitors, logs their latencies and writes their stall profiles.
+     */
+    public static void stopAll() {
+        for (ResponsivenessMonitor monitor : MONITORS) {
+            monitor.stop();
+        }
+        MONITORS.clear();
+    }
+
+    private ObjectName getObjectName() throws JMException {
+        return new ObjectName("org.knime.product:type=ResponsivenessMonitor,queue=" + m_queue); //$NON-NLS-1$
+    }
+
+    private void stop() {
+        m_stopped = true;
+        m_monitorThread.interrupt();
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName());
+        } catch (JMException ex) {
+            // not registered
+        }
+        if (m_latencies.getTotalCount() > 0) {
+            NodeLogger.getLogger(ResponsivenessMonitor.class).info(getSummary());
+        }
+        if (m_samples.getSampleCount() > 0) {
+            writeStallProfile();
+        }
+    }
+
+    private void monitor() {
+        while (!m_stopped) {
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            long pendingSince = m_pendingSince;
+            if (pendingSince == 0) {
+                long enqueued = System.nanoTime();
+                m_pendingSince = enqueued;
+                try {
+                    m_enqueuer.accept(() -> probe(enqueued));
+                } catch (RuntimeException ex) {
+                    // e.g. the display has been disposed
+                    return;
+                }
+            } else if (System.nanoTime() - pendingSince > TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD_MILLIS)) {
+                Thread uiThread = m_uiThread;
+                if (uiThread != null) {
+                    m_samples.add(uiThread.getStackTrace());
+                }
+            }
+        }
+    }
+
+    private void probe(final long enqueued) {
+        long latency = System.nanoTime() - enqueued;
+        m_uiThread = Thread.currentThread();
+        m_latencies.record(TimeUnit.NANOSECONDS.toMicros(latency));
+        if (latency > TimeUnit.MILLISECONDS.toNanos(STALL_THRESHOLD_MILLIS)) {
+            m_stallCount++;
+            NodeLogger.getLogger(ResponsivenessMonitor.class)
+                .debug(m_threadName + " did not respond for " + TimeUnit.NANOSECONDS.toMillis(latency) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        m_pendingSince = 0;
+    }
+
+    private String getSummary() {
+        return String.format(Locale.ROOT,
+            "%s latency: %d dispatches, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms, " //$NON-NLS-1$
+                + "%d stalls over %d ms", //$NON-NLS-1$
+            m_threadName, getDispatchCount(), getP50(), getP90(), getP99(), getP999(), getMax(), getStallCount(),
+            STALL_THRESHOLD_MILLIS);
+    }
+
+    private static double toMillis(final long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getQueueName() {
+        return m_threadName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDispatchCount() {
+        return m_latencies.getTotalCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStallCount() {
+        return m_stallCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStallThreshold() {
+        return STALL_THRESHOLD_MILLIS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSampleCount() {
+        return m_samples.getSampleCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP50() {
+        return getLatencyAtPercentile(50);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP90() {
+        return getLatencyAtPercentile(90);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP99() {
+        return getLatencyAtPercentile(99);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getP999() {
+        return getLatencyAtPercentile(99.9);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMax() {
+        return toMillis(m_latencies.getMax());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getLatencyAtPercentile(final double percentile) {
+        return toMillis(m_latencies.getValueAtPercentile(percentile));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String writeStallProfile() {
+        try {
+            Path file = Platform.getStateLocation(FrameworkUtil.getBundle(getClass())).toFile().toPath()
+                .resolve("ui-stalls-" + m_queue + ".collapsed"); //$NON-NLS-1$ //$NON-NLS-2$
+            m_samples.write(file);
+            return file.toString();
+        } catch (IOException | IllegalStateException ex) {
+            NodeLogger.getLogger(ResponsivenessMonitor.class)
+                .warn("Could not write stall profile for " + m_threadName + ": " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        m_latencies.reset();
+        m_samples.clear();
+        m_stallCount = 0;
+    }
+}
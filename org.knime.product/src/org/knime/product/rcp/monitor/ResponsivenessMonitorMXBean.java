@@ -0,0 +1,124 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.monitor;
+
+/**
+ * Management interface of a {@link ResponsivenessMonitor}, registered at the platform MBean server as
+ * <tt>org.knime.product:type=ResponsivenessMonitor,queue=&lt;queue&gt;</tt>. It can be used with e.g.
+ * <tt>jconsole</tt> or <tt>jmc</tt> to look at the latencies of a running instance. All times are in milliseconds.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public interface ResponsivenessMonitorMXBean {
+    /**
+     * @return the name of the monitored event queue
+     */
+    String getQueueName();
+
+    /**
+     * @return the number of measured dispatches
+     */
+    long getDispatchCount();
+
+    /**
+     * @return the number of dispatches that took longer than the stall threshold
+     */
+    long getStallCount();
+
+    /**
+     * @return the stall threshold in milliseconds
+     */
+    long getStallThreshold();
+
+    /**
+     * @return the number of stack samples taken during stalls
+     */
+    long getSampleCount();
+
+    /**
+     * @return the median latency
+     */
+    double getP50();
+
+    /**
+     * @return the 90th percentile of the latency
+     */
+    double getP90();
+
+    /**
+     * @return the 99th percentile of the latency
+     */
+    double getP99();
+
+    /**
+     * @return the 99.9th percentile of the latency
+     */
+    double getP999();
+
+    /**
+     * @return the largest latency
+     */
+    double getMax();
+
+    /**
+     * Returns an arbitrary percentile of the latency.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in milliseconds
+     */
+    double getLatencyAtPercentile(double percentile);
+
+    /**
+     * Writes the stack samples taken during stalls in collapsed format for flame graph tools.
+     *
+     * @return the path of the written file
+     */
+    String writeStallProfile();
+
+    /**
+     * Discards all latencies and stack samples recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.rcp.monitor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates stack samples in the collapsed format used by flame graph tools such as Brendan Gregg's
+ * <tt>flamegraph.pl</tt> or speedscope: one line per distinct stack with the frames from the root to the leaf
+ * separated by semicolons, followed by the number of samples.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class StackSamples {
+    /** Limits the memory used by samples from pathological situations, further stacks are counted as truncated. */
+    private static final int MAX_STACKS = 10000;
+
+    private static final int MAX_DEPTH = 256;
+
+    private static final String TRUNCATED = "[truncated]"; //$NON-NLS-1$
+
+    private final String m_root;
+
+    private final Map<String, AtomicLong> m_samples = new ConcurrentHashMap<>();
+
+    private final AtomicLong m_sampleCount = new AtomicLong();
+
+    /**
+     * @param root the name of the root frame of all stacks, e.g. the thread's name
+     */
+    StackSamples(final String root) {
+        m_root = root;
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @param stack the stack trace with the leaf first, as returned by {@link Thread#getStackTrace()}
+     */
+    void add(final StackTraceElement[] stack) {
+        if (stack.length == 0) {
+            return;
+        }
+        StringBuilder buf = new StringBuilder(m_root);
+        for (int i = Math.min(stack.length, MAX_DEPTH) - 1; i >= 0; i--) {
+            buf.append(';').append(stack[i].getClassName()).append('.').append(stack[i].getMethodName());
+        }
+        String key = buf.toString();
+        AtomicLong count = m_samples.get(key);
+        if (count == null) {
+            if (m_samples.size() >= MAX_STACKS) {
+                key = m_root + ';' + TRUNCATED;
+            }
+            count = m_samples.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        count.incrementAndGet();
+        m_sampleCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of samples
+     */
+    long getSampleCount() {
+        return m_sampleCount.get();
+    }
+
+    /**
+     * Writes all samples in collapsed format, replacing the file if it exists.
+     *
+     * @param file the destination file
+     * @throws IOException if the file cannot be written
+     */
+    void write(final Path file) throws IOException {
+        List<Map.Entry<String, AtomicLong>> entries = new ArrayList<>(m_samples.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, AtomicLong> e : entries) {
+                w.write(e.getKey());
+                w.write(' ');
+                w.write(Long.toString(e.getValue().get()));
+                w.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Removes all samples.
+     */
+    void clear() {
+        m_samples.clear();
+        m_sampleCount.set(0);
+    }
+}
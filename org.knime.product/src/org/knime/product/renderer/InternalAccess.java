@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.renderer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Access to non-public fields and methods of SWT classes used by {@link KNIMECTabFolderRenderer}. The members are
+ * looked up once and returned as method handles, which should be stored in <tt>static final</tt> fields so that the
+ * JIT can inline calls through them. If a member does not exist in the running SWT version, <code>null</code> is
+ * returned and callers have to fall back to some sensible default.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class InternalAccess {
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(InternalAccess.class);
+
+    private InternalAccess() {
+    }
+
+    /**
+     * Returns a getter for the field with the given name in the class or one of its superclasses. The handle has the
+     * type <tt>(receiverType)Object</tt>, primitive values are boxed.
+     *
+     * @param receiverType the class of the objects whose field is read
+     * @param name the name of the field
+     * @return a method handle or <code>null</code> if the field does not exist or is not accessible
+     */
+    static MethodHandle findGetter(final Class<?> receiverType, final String name) {
+        for (Class<?> cls = receiverType; cls != null; cls = cls.getSuperclass()) {
+            try {
+                Field field = cls.getDeclaredField(name);
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, receiverType));
+            } catch (NoSuchFieldException ex) {
+                // try the superclass
+            } catch (IllegalAccessException | RuntimeException ex) {
+                LOGGER.debug("Could not access field " + cls.getName() + "." + name + ": " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                return null;
+            }
+        }
+        LOGGER.debug("Field " + name + " not found in " + receiverType.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+        return null;
+    }
+
+    /**
+     * Returns the method with the given name and parameters in the class or one of its superclasses. The handle has
+     * the type of <tt>type</tt> with <tt>receiverType</tt> inserted as first parameter.
+     *
+     * @param receiverType the class of the objects on which the method is called
+     * @param name the name of the method
+     * @param type the return and parameter types of the method
+     * @return a method handle or <code>null</code> if the method does not exist or is not accessible
+     */
+    static MethodHandle findVirtual(final Class<?> receiverType, final String name, final MethodType type) {
+        for (Class<?> cls = receiverType; cls != null; cls = cls.getSuperclass()) {
+            try {
+                Method method = cls.getDeclaredMethod(name, type.parameterArray());
+                if (method.getReturnType() != type.returnType()) {
+                    break;
+                }
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method).asType(type.insertParameterTypes(0, receiverType));
+            } catch (NoSuchMethodException ex) {
+                // try the superclass
+            } catch (IllegalAccessException | RuntimeException ex) {
+                LOGGER.debug("Could not access method " + cls.getName() + "." + name + ": " + ex.getMessage(), ex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                return null;
+            }
+        }
+        LOGGER.debug("Method " + name + type + " not found in " + receiverType.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+        return null;
+    }
+
+    /**
+     * Rethrows the given throwable if it is unchecked. Checked exceptions cannot be thrown by the members accessed
+     * through this class, so they are ignored.
+     *
+     * @param t a throwable thrown by a method handle
+     */
+    static void rethrowUnchecked(final Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        } else if (t instanceof Error) {
+            throw (Error)t;
+        }
+    }
+}
@@ -11,8 +11,8 @@
  *******************************************************************************/
 package org.knime.product.renderer;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 
 import javax.inject.Inject;
 
@@ -71,6 +71,8 @@ public class KNIMECTabFolderRenderer extends CTabFolderRenderer implements
     static final int ITEM_RIGHT_MARGIN = 4;
     static final int INTERNAL_SPACING = 4;
 
+    static final RGB HOT_TAB_BORDER = new RGB(182, 188, 204);
+
     static final String E4_TOOLBAR_ACTIVE_IMAGE = "org.eclipse.e4.renderer.toolbar_background_active_image"; //$NON-NLS-1$
     static final String E4_TOOLBAR_INACTIVE_IMAGE = "org.eclipse.e4.renderer.toolbar_background_inactive_image"; //$NON-NLS-1$
 
@@ -78,6 +80,12 @@ public class KNIMECTabFolderRenderer extends CTabFolderRenderer implements
 
     Image shadowImage, toolbarActiveImage, toolbarInactiveImage;
 
+    /** The cache {@link #shadowImage} was acquired from; the image is shared and must not be disposed directly. */
+    private ShadowTextureCache shadowCache;
+
+    /** Colors, patterns and regions reused between paints. */
+    private RendererResources resources = new RendererResources();
+
     int cornerSize = 14;
 
     boolean shadowEnabled = true;
@@ -220,10 +228,8 @@ protected Point computeSize(final int part, final int state, final GC gc, int wH
 
     @Override
     protected void dispose() {
-        if (shadowImage != null && !shadowImage.isDisposed()) {
-            shadowImage.dispose();
-            shadowImage = null;
-        }
+        releaseShadow();
+        resources.dispose();
         super.dispose();
     }
 
@@ -236,6 +242,7 @@ protected void draw(final int part, int state, final Rectangle bounds, final GC
             this.drawCustomBackground(gc, bounds, state);
             return;
         case PART_BODY:
+            RendererResources.frame();
             this.drawTabBody(gc, bounds, state);
             return;
         case PART_HEADER:
@@ -288,9 +295,9 @@ void drawTabHeader(final GC gc, final Rectangle bounds, final int state) {
         int circY = bounds.y + radius;
 
         // Fill in background
-        Region clipping = new Region();
+        Region clipping = resources.getRegion(RendererResources.REGION_CLIPPING);
         gc.getClipping(clipping);
-        Region region = new Region();
+        Region region = resources.getRegion(RendererResources.REGION_SHAPE);
         region.add(shape);
         region.intersect(clipping);
         gc.setClipping(region);
@@ -312,8 +319,6 @@ void drawTabHeader(final GC gc, final Rectangle bounds, final int state) {
         draw(PART_BACKGROUND, SWT.NONE, trim, gc);
 
         gc.setClipping(clipping);
-        clipping.dispose();
-        region.dispose();
 
         int[] ltt = drawCircle(circX + 1, circY + 1, radius, LEFT_TOP);
         System.arraycopy(ltt, 0, points, index, ltt.length);
@@ -392,12 +397,12 @@ void drawTabBody(final GC gc, final Rectangle bounds, final int state) {
         gc.fillPolygon(tempPoints);
 
         // Fill in parent background for non-rectangular shape
-        Region r = new Region();
+        Region r = resources.getRegion(RendererResources.REGION_SHAPE);
         r.add(bounds);
         r.subtract(tempPoints);
         gc.setBackground(parent.getParent().getBackground());
         Display display = parent.getDisplay();
-        Region clipping = new Region();
+        Region clipping = resources.getRegion(RendererResources.REGION_CLIPPING);
         gc.getClipping(clipping);
         r.intersect(clipping);
         gc.setClipping(r);
@@ -412,8 +417,6 @@ void drawTabBody(final GC gc, final Rectangle bounds, final int state) {
         }
 
         gc.setClipping(clipping);
-        clipping.dispose();
-        r.dispose();
 
         // Remember for use in header drawing
         shape = tempPoints;
@@ -546,16 +549,15 @@ void drawSelectedTab(final int itemIndex, final GC gc, final Rectangle bounds, f
             tabOutlineColor = gc.getDevice().getSystemColor(SWT.COLOR_BLACK);
         }
         gc.setForeground(tabOutlineColor);
-        Color gradientLineTop = null;
-        Pattern foregroundPattern = null;
         if (!active && !onBottom) {
             RGB blendColor = gc.getDevice()
                     .getSystemColor(SWT.COLOR_WIDGET_LIGHT_SHADOW).getRGB();
             RGB topGradient = ColorUtilities.blend(blendColor, tabOutlineColor.getRGB(), 40);
-            gradientLineTop = new Color(gc.getDevice(), topGradient);
-            foregroundPattern = new Pattern(gc.getDevice(), 0, 0, 0,
-                    bounds.height + 1, gradientLineTop, gc.getDevice()
-                    .getSystemColor(SWT.COLOR_WHITE));
+            Color gradientLineTop = resources.getColor(RendererResources.COLOR_GRADIENT_LINE_TOP,
+                gc.getDevice(), topGradient);
+            Pattern foregroundPattern = resources.getVerticalGradient(
+                RendererResources.PATTERN_SELECTED_TAB_FOREGROUND, gc.getDevice(), bounds.height + 1,
+                gradientLineTop, gc.getDevice().getSystemColor(SWT.COLOR_WHITE));
             gc.setForegroundPattern(foregroundPattern);
         }
         gc.drawPolyline(tmpPoints);
@@ -577,12 +579,6 @@ void drawSelectedTab(final int itemIndex, final GC gc, final Rectangle bounds, f
         if (backgroundPattern != null) {
             backgroundPattern.dispose();
         }
-        if (gradientLineTop != null) {
-            gradientLineTop.dispose();
-        }
-        if (foregroundPattern != null) {
-            foregroundPattern.dispose();
-        }
     }
 
     void drawUnselectedTab(final int itemIndex, final GC gc, final Rectangle bounds, final int state) {
@@ -701,9 +697,8 @@ void drawUnselectedTab(final int itemIndex, final GC gc, final Rectangle bounds,
             int[] tmpPoints = new int[index];
             System.arraycopy(points, 0, tmpPoints, 0, index);
             gc.fillPolygon(tmpPoints);
-            Color tempBorder = new Color(gc.getDevice(), 182, 188, 204);
-            gc.setForeground(tempBorder);
-            tempBorder.dispose();
+            gc.setForeground(resources.getColor(RendererResources.COLOR_HOT_TAB_BORDER, gc.getDevice(),
+                HOT_TAB_BORDER));
             if (active) {
                 gc.drawPolyline(tmpPoints);
             } else {
@@ -855,146 +850,48 @@ void drawShadow(final Display display, final Rectangle bounds, final GC gc) {
     }
 
     void createShadow(final Display display) {
-        if (shadowImage != null) {
-            shadowImage.dispose();
-            shadowImage = null;
-        }
+        releaseShadow();
 
-        final ImageData data = new ImageData(60, 60, 32, new PaletteData(0xFF0000, 0xFF00, 0xFF));
-        final Image tmpImage = shadowImage = new Image(display, data);
-        final GC gc = new GC(tmpImage);
         if (shadowColor == null) {
-            shadowColor = gc.getDevice().getSystemColor(SWT.COLOR_GRAY);
-        }
-        gc.setBackground(shadowColor);
-        drawTabBody(gc, new Rectangle(0, 0, 60, 60), SWT.None);
-
-        final ImageData blurred = blur(tmpImage, 5, 25);
-        shadowImage = new Image(display, blurred);
-        tmpImage.dispose();
-        gc.dispose();
-    }
-
-    public ImageData blur(final Image src, final int radius, final int sigma) {
-        float[] kernel = create1DKernel(radius, sigma);
-
-        ImageData imgPixels = src.getImageData();
-        int width = imgPixels.width;
-        int height = imgPixels.height;
-
-        int[] inPixels = new int[width * height];
-        int[] outPixels = new int[width * height];
-        int offset = 0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                RGB rgb = imgPixels.palette.getRGB(imgPixels.getPixel(x, y));
-                if (rgb.red == 255 && rgb.green == 255 && rgb.blue == 255) {
-                    inPixels[offset] = (rgb.red << 16) | (rgb.green << 8)
-                            | rgb.blue;
-                } else {
-                    inPixels[offset] = (imgPixels.getAlpha(x, y) << 24)
-                            | (rgb.red << 16) | (rgb.green << 8) | rgb.blue;
-                }
-                offset++;
-            }
-        }
-
-        convolve(kernel, inPixels, outPixels, width, height, true);
-        convolve(kernel, outPixels, inPixels, height, width, true);
-
-        ImageData dst = new ImageData(imgPixels.width, imgPixels.height, 24,
-                new PaletteData(0xff0000, 0xff00, 0xff));
-
-        dst.setPixels(0, 0, inPixels.length, inPixels, 0);
-        offset = 0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (inPixels[offset] == -1) {
-                    dst.setAlpha(x, y, 0);
-                } else {
-                    int a = (inPixels[offset] >> 24) & 0xff;
-                    // if (a < 150) a = 0;
-                    dst.setAlpha(x, y, a);
-                }
-                offset++;
-            }
+            shadowColor = display.getSystemColor(SWT.COLOR_GRAY);
         }
-        return dst;
+        ShadowTextureCache.Key key = new ShadowTextureCache.Key(shadowColor.getRGB(), cornerSize,
+            parent.marginWidth, parent.marginHeight, parent.getTabHeight(),
+            parent.getParent().getBackground().getRGB());
+        shadowCache = ShadowTextureCache.get(display);
+        shadowImage = shadowCache.acquire(display, key, () -> renderShadow(display));
     }
 
-    private void convolve(final float[] kernel, final int[] inPixels, final int[] outPixels,
-            final int width, final int height, final boolean alpha) {
-        int kernelWidth = kernel.length;
-        int kernelMid = kernelWidth / 2;
-        for (int y = 0; y < height; y++) {
-            int index = y;
-            int currentLine = y * width;
-            for (int x = 0; x < width; x++) {
-                // do point
-                float a = 0, r = 0, g = 0, b = 0;
-                for (int k = -kernelMid; k <= kernelMid; k++) {
-                    float val = kernel[k + kernelMid];
-                    int xcoord = x + k;
-                    if (xcoord < 0) {
-                        xcoord = 0;
-                    }
-                    if (xcoord >= width) {
-                        xcoord = width - 1;
-                    }
-                    int pixel = inPixels[currentLine + xcoord];
-                    // float alp = ((pixel >> 24) & 0xff);
-                    a += val * ((pixel >> 24) & 0xff);
-                    r += val * (((pixel >> 16) & 0xff));
-                    g += val * (((pixel >> 8) & 0xff));
-                    b += val * (((pixel) & 0xff));
-                }
-                int ia = alpha ? clamp((int) (a + 0.5)) : 0xff;
-                int ir = clamp((int) (r + 0.5));
-                int ig = clamp((int) (g + 0.5));
-                int ib = clamp((int) (b + 0.5));
-                outPixels[index] = (ia << 24) | (ir << 16) | (ig << 8) | ib;
-                index += height;
-            }
+    private void releaseShadow() {
+        if (shadowImage != null && shadowCache != null) {
+            shadowCache.release(shadowImage);
         }
-
+        shadowImage = null;
     }
 
-    private int clamp(final int value) {
-        if (value > 255) {
-            return 255;
-        }
-        if (value < 0) {
-            return 0;
+    private ImageData renderShadow(final Display display) {
+        final ImageData data = new ImageData(60, 60, 32, new PaletteData(0xFF0000, 0xFF00, 0xFF));
+        // drawTabBody paints the shadow itself, so the temporary image serves as shadow while rendering
+        final Image tmpImage = shadowImage = new Image(display, data);
+        final GC gc = new GC(tmpImage);
+        // drawTabBody is re-entered from within drawTabBody here and must not clobber the caller's regions
+        final RendererResources outerResources = resources;
+        resources = new RendererResources();
+        try {
+            gc.setBackground(shadowColor);
+            drawTabBody(gc, new Rectangle(0, 0, 60, 60), SWT.None);
+            return blur(tmpImage, 5, 25);
+        } finally {
+            resources.dispose();
+            resources = outerResources;
+            shadowImage = null;
+            gc.dispose();
+            tmpImage.dispose();
         }
-        return value;
     }
 
-    private float[] create1DKernel(final int radius, final int sigma) {
-        // guideline: 3*sigma should be the radius
-        int size = radius * 2 + 1;
-        float[] kernel = new float[size];
-        int radiusSquare = radius * radius;
-        float sigmaSquare = 2 * sigma * sigma;
-        float piSigma = 2 * (float) Math.PI * sigma;
-        float sqrtSigmaPi2 = (float) Math.sqrt(piSigma);
-        int start = size / 2;
-        int index = 0;
-        float total = 0;
-        for (int i = -start; i <= start; i++) {
-            float d = i * i;
-            if (d > radiusSquare) {
-                kernel[index] = 0;
-            } else {
-                kernel[index] = (float) Math.exp(-(d) / sigmaSquare)
-                        / sqrtSigmaPi2;
-            }
-            total += kernel[index];
-            index++;
-        }
-        for (int i = 0; i < size; i++) {
-            kernel[i] /= total;
-        }
-        return kernel;
+    public ImageData blur(final Image src, final int radius, final int sigma) {
+        return ShadowBlur.blur(src.getImageData(), radius, sigma);
     }
 
     public Rectangle getPadding() {
@@ -1014,6 +911,7 @@ public void setPadding(final int paddingLeft, final int paddingRight, final int
     @Override
     public void setCornerRadius(final int radius) {
         cornerSize = radius;
+        releaseShadow();
         parent.redraw();
     }
 
@@ -1026,7 +924,8 @@ public void setShadowVisible(final boolean visible) {
     @Override
     public void setShadowColor(final Color color) {
         this.shadowColor = color;
-        createShadow(parent.getDisplay());
+        // the shared texture for the new color is acquired on the next paint
+        releaseShadow();
         parent.redraw();
     }
 
@@ -1068,6 +967,7 @@ public void setUnselectedTabsColor(final Color[] colors, final int[] percents) {
     @Override
     public void setTabOutline(final Color color) {
         this.tabOutlineColor = color;
+        resources.dispose();
         parent.redraw();
     }
 
@@ -1196,154 +1096,97 @@ private void drawChildBackground(final Composite composite,
         CTabFolderElement.setBackgroundOverriddenDuringRenderering(composite, background);
     }
 
-    private static class CTabFolderRendererWrapper extends
-    ReflectionSupport<CTabFolderRenderer> {
-        private Method drawBackgroundMethod;
+    private static class CTabFolderRendererWrapper {
+        private static final MethodHandle DRAW_BACKGROUND = InternalAccess.findVirtual(CTabFolderRenderer.class,
+            "drawBackground", MethodType.methodType(void.class, GC.class, int[].class, int.class, int.class, //$NON-NLS-1$
+                int.class, int.class, Color.class, Image.class, Color[].class, int[].class, boolean.class));
+
+        private final CTabFolderRenderer instance;
 
         public CTabFolderRendererWrapper(final CTabFolderRenderer instance) {
-            super(instance);
+            this.instance = instance;
         }
 
         public void drawBackground(final GC gc, final int x, final int y, final int width, final int height,
                 final Color defaultBackground, final Color[] colors, final int[] percents,
                 final boolean vertical) {
-            if (drawBackgroundMethod == null) {
-                drawBackgroundMethod = getMethod("drawBackground", //$NON-NLS-1$
-                        new Class<?>[] { GC.class, int[].class, int.class,
-                        int.class, int.class, int.class, Color.class,
-                        Image.class, Color[].class, int[].class,
-                        boolean.class });
+            if (DRAW_BACKGROUND == null) {
+                // SWT internals have changed, at least paint the background in a single color
+                gc.setBackground(((colors != null) && (colors.length > 0) && (colors[0] != null)) ? colors[0]
+                    : defaultBackground);
+                gc.fillRectangle(x, y, width, height);
+                return;
+            }
+            try {
+                DRAW_BACKGROUND.invokeExact(instance, gc, (int[])null, x, y, width, height, defaultBackground,
+                    (Image)null, colors, percents, vertical);
+            } catch (Throwable t) {
+                InternalAccess.rethrowUnchecked(t);
             }
-            executeMethod(drawBackgroundMethod, new Object[] { gc, null, x, y,
-                    width, height, defaultBackground, null, colors, percents,
-                    vertical });
         }
     }
 
-    private static class CTabFolderWrapper extends
-    ReflectionSupport<CTabFolder> {
-        private Field selectionGradientVerticalField;
+    private static class CTabFolderWrapper {
+        private static final MethodHandle SELECTION_GRADIENT_VERTICAL =
+            InternalAccess.findGetter(CTabFolder.class, "selectionGradientVertical"); //$NON-NLS-1$
+
+        private static final MethodHandle GRADIENT_VERTICAL =
+            InternalAccess.findGetter(CTabFolder.class, "gradientVertical"); //$NON-NLS-1$
 
-        private Field gradientVerticalField;
+        private static final MethodHandle SELECTION_GRADIENT_COLORS =
+            InternalAccess.findGetter(CTabFolder.class, "selectionGradientColors"); //$NON-NLS-1$
 
-        private Field selectionGradientColorsField;
+        private static final MethodHandle SELECTION_GRADIENT_PERCENTS =
+            InternalAccess.findGetter(CTabFolder.class, "selectionGradientPercents"); //$NON-NLS-1$
 
-        private Field selectionGradientPercentsField;
+        private static final MethodHandle GRADIENT_COLORS =
+            InternalAccess.findGetter(CTabFolder.class, "gradientColors"); //$NON-NLS-1$
 
-        private Field gradientColorsField;
+        private static final MethodHandle GRADIENT_PERCENTS =
+            InternalAccess.findGetter(CTabFolder.class, "gradientPercents"); //$NON-NLS-1$
 
-        private Field gradientPercentsField;
+        private final CTabFolder instance;
 
         public CTabFolderWrapper(final CTabFolder instance) {
-            super(instance);
+            this.instance = instance;
         }
 
         public boolean isSelectionGradientVertical() {
-            if (selectionGradientVerticalField == null) {
-                selectionGradientVerticalField = getField("selectionGradientVertical"); //$NON-NLS-1$
-            }
-            Boolean result = (Boolean) getFieldValue(selectionGradientVerticalField);
+            Boolean result = (Boolean) getFieldValue(SELECTION_GRADIENT_VERTICAL);
             return result != null ? result : true;
         }
 
         public boolean isGradientVertical() {
-            if (gradientVerticalField == null) {
-                gradientVerticalField = getField("gradientVertical"); //$NON-NLS-1$
-            }
-            Boolean result = (Boolean) getFieldValue(gradientVerticalField);
+            Boolean result = (Boolean) getFieldValue(GRADIENT_VERTICAL);
             return result != null ? result : true;
         }
 
         public Color[] getSelectionGradientColors() {
-            if (selectionGradientColorsField == null) {
-                selectionGradientColorsField = getField("selectionGradientColorsField"); //$NON-NLS-1$
-            }
-            return (Color[]) getFieldValue(selectionGradientColorsField);
+            return (Color[]) getFieldValue(SELECTION_GRADIENT_COLORS);
         }
 
         public int[] getSelectionGradientPercents() {
-            if (selectionGradientPercentsField == null) {
-                selectionGradientPercentsField = getField("selectionGradientPercents"); //$NON-NLS-1$
-            }
-            return (int[]) getFieldValue(selectionGradientPercentsField);
+            return (int[]) getFieldValue(SELECTION_GRADIENT_PERCENTS);
         }
 
         public Color[] getGradientColors() {
-            if (gradientColorsField == null) {
-                gradientColorsField = getField("gradientColors"); //$NON-NLS-1$
-            }
-            return (Color[]) getFieldValue(gradientColorsField);
+            return (Color[]) getFieldValue(GRADIENT_COLORS);
         }
 
         public int[] getGradientPercents() {
-            if (gradientPercentsField == null) {
-                gradientPercentsField = getField("gradientPercents"); //$NON-NLS-1$
-            }
-            return (int[]) getFieldValue(gradientPercentsField);
-        }
-    }
-
-    private static class ReflectionSupport<T> {
-        private T instance;
-
-        public ReflectionSupport(final T instance) {
-            this.instance = instance;
-        }
-
-        protected Object getFieldValue(final Field field) {
-            Object value = null;
-            if (field != null) {
-                boolean accessible = field.isAccessible();
-                try {
-                    field.setAccessible(true);
-                    value = field.get(instance);
-                } catch (Exception exc) {
-                    // do nothing
-                } finally {
-                    field.setAccessible(accessible);
-                }
-            }
-            return value;
+            return (int[]) getFieldValue(GRADIENT_PERCENTS);
         }
 
-        protected Field getField(final String name) {
-            Class<?> cls = instance.getClass();
-            while (!cls.equals(Object.class)) {
-                try {
-                    return cls.getDeclaredField(name);
-                } catch (Exception exc) {
-                    cls = cls.getSuperclass();
-                }
+        private Object getFieldValue(final MethodHandle getter) {
+            if (getter == null) {
+                return null;
             }
-            return null;
-        }
-
-        protected Object executeMethod(final Method method, final Object... params) {
-            Object value = null;
-            if (method != null) {
-                boolean accessible = method.isAccessible();
-                try {
-                    method.setAccessible(true);
-                    value = method.invoke(instance, params);
-                } catch (Exception exc) {
-                    // do nothing
-                } finally {
-                    method.setAccessible(accessible);
-                }
-            }
-            return value;
-        }
-
-        protected Method getMethod(final String name, final Class<?>... params) {
-            Class<?> cls = instance.getClass();
-            while (!cls.equals(Object.class)) {
-                try {
-                    return cls.getDeclaredMethod(name, params);
-                } catch (Exception exc) {
-                    cls = cls.getSuperclass();
-                }
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                InternalAccess.rethrowUnchecked(t);
+                return null;
             }
-            return null;
         }
     }
 }
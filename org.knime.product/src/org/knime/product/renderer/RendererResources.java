@@ -0,0 +1,236 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.renderer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Pattern;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.graphics.Region;
+import org.eclipse.swt.graphics.Resource;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Graphics resources used while painting a tab folder with {@link KNIMECTabFolderRenderer}. Colors, patterns and
+ * regions are native resources, and allocating them on every repaint is expensive, especially under GTK. Each
+ * renderer therefore keeps a small, fixed number of slots, and each slot holds one resource. The resource in a slot is
+ * reused as long as the requested colors and size match. Otherwise it is replaced, which happens after theme or size
+ * changes.
+ *
+ * <p>
+ * Native allocations and painted frames are counted for all renderers. With debug logging enabled, the average number
+ * of allocations per frame is logged every {@value #LOG_INTERVAL} frames.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RendererResources {
+    static final int COLOR_GRADIENT_LINE_TOP = 0;
+
+    static final int COLOR_HOT_TAB_BORDER = 1;
+
+    private static final int COLOR_SLOTS = 2;
+
+    static final int PATTERN_SELECTED_TAB_FOREGROUND = 0;
+
+    private static final int PATTERN_SLOTS = 1;
+
+    static final int REGION_CLIPPING = 0;
+
+    static final int REGION_SHAPE = 1;
+
+    private static final int REGION_SLOTS = 2;
+
+    private static final int LOG_INTERVAL = 1000;
+
+    private static final Rectangle EMPTY = new Rectangle(0, 0, 0, 0);
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RendererResources.class);
+
+    private static final AtomicLong ALLOCATIONS = new AtomicLong();
+
+    private static final AtomicLong FRAMES = new AtomicLong();
+
+    private static long lastLoggedAllocations;
+
+    private final Color[] m_colors = new Color[COLOR_SLOTS];
+
+    private final Pattern[] m_patterns = new Pattern[PATTERN_SLOTS];
+
+    private final int[] m_patternHeights = new int[PATTERN_SLOTS];
+
+    private final RGB[][] m_patternColors = new RGB[PATTERN_SLOTS][];
+
+    private final Region[] m_regions = new Region[REGION_SLOTS];
+
+    /**
+     * Returns the color with the given value.
+     *
+     * @param slot the slot, one of the <tt>COLOR_</tt> constants
+     * @param device the device on which the color is used
+     * @param rgb the color value
+     * @return a color owned by this object, which must not be disposed
+     */
+    Color getColor(final int slot, final Device device, final RGB rgb) {
+        Color color = m_colors[slot];
+        if ((color == null) || color.isDisposed() || !color.getRGB().equals(rgb)) {
+            dispose(color);
+            color = new Color(device, rgb);
+            ALLOCATIONS.incrementAndGet();
+            m_colors[slot] = color;
+        }
+        return color;
+    }
+
+    /**
+     * Returns a vertical gradient pattern from <tt>(0, 0)</tt> to <tt>(0, height)</tt>.
+     *
+     * @param slot the slot, one of the <tt>PATTERN_</tt> constants
+     * @param device the device on which the pattern is used
+     * @param height the height of the gradient
+     * @param top the color at the top
+     * @param bottom the color at the bottom
+     * @return a pattern owned by this object, which must not be disposed
+     */
+    Pattern getVerticalGradient(final int slot, final Device device, final int height, final Color top,
+        final Color bottom) {
+        Pattern pattern = m_patterns[slot];
+        RGB[] colors = m_patternColors[slot];
+        RGB topRGB = top.getRGB();
+        RGB bottomRGB = bottom.getRGB();
+        if ((pattern == null) || pattern.isDisposed() || (m_patternHeights[slot] != height)
+            || !colors[0].equals(topRGB) || !colors[1].equals(bottomRGB)) {
+            dispose(pattern);
+            pattern = new Pattern(device, 0, 0, 0, height, top, bottom);
+            ALLOCATIONS.incrementAndGet();
+            m_patterns[slot] = pattern;
+            m_patternHeights[slot] = height;
+            m_patternColors[slot] = new RGB[]{topRGB, bottomRGB};
+        }
+        return pattern;
+    }
+
+    /**
+     * Returns an empty region.
+     *
+     * @param slot the slot, one of the <tt>REGION_</tt> constants
+     * @return a region owned by this object, which must not be disposed
+     */
+    Region getRegion(final int slot) {
+        Region region = m_regions[slot];
+        if ((region == null) || region.isDisposed()) {
+            region = new Region();
+            ALLOCATIONS.incrementAndGet();
+            m_regions[slot] = region;
+        } else {
+            region.intersect(EMPTY);
+        }
+        return region;
+    }
+
+    /**
+     * Marks the start of a new frame, i.e. a repaint of the tab folder's body.
+     */
+    static void frame() {
+        long frames = FRAMES.incrementAndGet();
+        if (((frames % LOG_INTERVAL) == 0) && LOGGER.isDebugEnabled()) {
+            long allocations = ALLOCATIONS.get();
+            long delta;
+            synchronized (RendererResources.class) {
+                delta = allocations - lastLoggedAllocations;
+                lastLoggedAllocations = allocations;
+            }
+            LOGGER.debug(String.format("Tab renderer: %.2f native allocations per frame over the last %d frames, " //$NON-NLS-1$
+                + "%d allocations in %d frames in total", (double)delta / LOG_INTERVAL, LOG_INTERVAL, allocations, //$NON-NLS-1$
+                frames));
+        }
+    }
+
+    /**
+     * Returns the number of native resources allocated by all renderers so far.
+     *
+     * @return the number of allocations
+     */
+    static long getAllocationCount() {
+        return ALLOCATIONS.get();
+    }
+
+    /**
+     * Returns the number of frames painted by all renderers so far.
+     *
+     * @return the number of frames
+     */
+    static long getFrameCount() {
+        return FRAMES.get();
+    }
+
+    /**
+     * Disposes all resources. The object can still be used afterwards, resources are allocated again on demand.
+     */
+    void dispose() {
+        for (int i = 0; i < COLOR_SLOTS; i++) {
+            dispose(m_colors[i]);
+            m_colors[i] = null;
+        }
+        for (int i = 0; i < PATTERN_SLOTS; i++) {
+            dispose(m_patterns[i]);
+            m_patterns[i] = null;
+            m_patternColors[i] = null;
+        }
+        for (int i = 0; i < REGION_SLOTS; i++) {
+            dispose(m_regions[i]);
+            m_regions[i] = null;
+        }
+    }
+
+    private static void dispose(final Resource resource) {
+        if ((resource != null) && !resource.isDisposed()) {
+            resource.dispose();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.renderer;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+/**
+ * Gaussian blur used for the drop shadow of {@link KNIMECTabFolderRenderer}. The blur works on {@link ImageData} only
+ * and therefore does not need a display.
+ *
+ * <p>
+ * {@link #blur(ImageData, int, int)} reads 24 and 32 bit direct color images straight from the
+ * {@link ImageData#data} and {@link ImageData#alphaData} arrays and convolves with a 16.16 fixed-point kernel.
+ * {@link #blurReference(ImageData, int, int)} is the original per-pixel, floating-point implementation. It is kept as
+ * a reference for the benchmarks in <tt>org.knime.product.testing</tt>.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ShadowBlur {
+    private static final int FRACTION_BITS = 16;
+
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private static final int HALF = ONE >>> 1;
+
+    private ShadowBlur() {
+    }
+
+    /**
+     * Blurs the given image. Pure white pixels are treated as fully transparent. The result is a 24 bit image with
+     * alpha data.
+     *
+     * @param src the source image
+     * @param radius the radius of the kernel in pixels
+     * @param sigma the standard deviation of the Gaussian
+     * @return a new, blurred image
+     */
+    static ImageData blur(final ImageData src, final int radius, final int sigma) {
+        int width = src.width;
+        int height = src.height;
+
+        int[] pixels = readPixels(src);
+        int[] transposed = new int[pixels.length];
+        int[] kernel = createFixedPointKernel(radius, sigma);
+        // each pass writes its result transposed, so the second pass blurs the columns
+        convolve(kernel, pixels, transposed, width, height);
+        convolve(kernel, transposed, pixels, height, width);
+
+        ImageData dst = new ImageData(width, height, 24, new PaletteData(0xff0000, 0xff00, 0xff));
+        byte[] data = dst.data;
+        byte[] alphaData = new byte[width * height];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            int index = y * dst.bytesPerLine;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[offset];
+                data[index++] = (byte)(pixel >>> 16);
+                data[index++] = (byte)(pixel >>> 8);
+                data[index++] = (byte)pixel;
+                alphaData[offset] = (pixel == -1) ? 0 : (byte)(pixel >>> 24);
+                offset++;
+            }
+        }
+        dst.alphaData = alphaData;
+        return dst;
+    }
+
+    /**
+     * Returns the packed ARGB pixels of the image, with alpha 0 for pure white pixels.
+     */
+    private static int[] readPixels(final ImageData src) {
+        int width = src.width;
+        int height = src.height;
+        int[] pixels = new int[width * height];
+        PaletteData palette = src.palette;
+
+        int bytesPerPixel = src.depth / 8;
+        int redOffset = -1;
+        int greenOffset = -1;
+        int blueOffset = -1;
+        if (palette.isDirect && ((src.depth == 24) || (src.depth == 32))) {
+            redOffset = byteOffset(palette.redMask, bytesPerPixel);
+            greenOffset = byteOffset(palette.greenMask, bytesPerPixel);
+            blueOffset = byteOffset(palette.blueMask, bytesPerPixel);
+        }
+
+        if ((redOffset >= 0) && (greenOffset >= 0) && (blueOffset >= 0)) {
+            byte[] data = src.data;
+            byte[] alphaData = src.alphaData;
+            int offset = 0;
+            for (int y = 0; y < height; y++) {
+                int index = y * src.bytesPerLine;
+                for (int x = 0; x < width; x++) {
+                    int r = data[index + redOffset] & 0xff;
+                    int g = data[index + greenOffset] & 0xff;
+                    int b = data[index + blueOffset] & 0xff;
+                    int a = (alphaData != null) ? (alphaData[offset] & 0xff) : 0xff;
+                    pixels[offset++] = pack(a, r, g, b);
+                    index += bytesPerPixel;
+                }
+            }
+        } else {
+            // indexed or unusual layouts, still read line by line instead of pixel by pixel
+            int[] line = new int[width];
+            byte[] alphas = new byte[width];
+            int offset = 0;
+            for (int y = 0; y < height; y++) {
+                src.getPixels(0, y, width, line, 0);
+                src.getAlphas(0, y, width, alphas, 0);
+                for (int x = 0; x < width; x++) {
+                    RGB rgb = palette.getRGB(line[x]);
+                    pixels[offset++] = pack(alphas[x] & 0xff, rgb.red, rgb.green, rgb.blue);
+                }
+            }
+        }
+        return pixels;
+    }
+
+    private static int pack(final int a, final int r, final int g, final int b) {
+        if ((r == 255) && (g == 255) && (b == 255)) {
+            return (r << 16) | (g << 8) | b;
+        } else {
+            return (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    /**
+     * Returns the offset of the byte holding the channel with the given mask inside a pixel, or -1 if the channel
+     * does not occupy exactly one byte. Pixels of 24 and 32 bit images are stored most significant byte first.
+     */
+    private static int byteOffset(final int mask, final int bytesPerPixel) {
+        int shift = Integer.numberOfTrailingZeros(mask);
+        if ((Integer.bitCount(mask) != 8) || ((shift % 8) != 0)) {
+            return -1;
+        }
+        int offset = bytesPerPixel - 1 - shift / 8;
+        return (offset >= 0) ? offset : -1;
+    }
+
+    private static void convolve(final int[] kernel, final int[] inPixels, final int[] outPixels, final int width,
+        final int height) {
+        int kernelMid = kernel.length / 2;
+        for (int y = 0; y < height; y++) {
+            int index = y;
+            int currentLine = y * width;
+            for (int x = 0; x < width; x++) {
+                int a = HALF;
+                int r = HALF;
+                int g = HALF;
+                int b = HALF;
+                boolean inside = (x >= kernelMid) && (x + kernelMid < width);
+                for (int k = -kernelMid; k <= kernelMid; k++) {
+                    int xcoord = x + k;
+                    if (!inside) {
+                        xcoord = Math.min(Math.max(xcoord, 0), width - 1);
+                    }
+                    int pixel = inPixels[currentLine + xcoord];
+                    int weight = kernel[k + kernelMid];
+                    a += weight * (pixel >>> 24);
+                    r += weight * ((pixel >> 16) & 0xff);
+                    g += weight * ((pixel >> 8) & 0xff);
+                    b += weight * (pixel & 0xff);
+                }
+                // the weights are non-negative and sum up to ONE, so no clamping is necessary
+                outPixels[index] = ((a >>> FRACTION_BITS) << 24) | ((r >>> FRACTION_BITS) << 16)
+                    | ((g >>> FRACTION_BITS) << 8) | (b >>> FRACTION_BITS);
+                index += height;
+            }
+        }
+    }
+
+    /**
+     * Returns the Gaussian kernel of {@link #create1DKernel(int, int)} in 16.16 fixed-point. The weights sum up to
+     * exactly {@link #ONE}.
+     */
+    private static int[] createFixedPointKernel(final int radius, final int sigma) {
+        float[] kernel = create1DKernel(radius, sigma);
+        int[] result = new int[kernel.length];
+        int total = 0;
+        for (int i = 0; i < kernel.length; i++) {
+            result[i] = Math.round(kernel[i] * ONE);
+            total += result[i];
+        }
+        result[kernel.length / 2] += ONE - total;
+        return result;
+    }
+
+    /**
+     * The original blur of the tab renderer, which reads and writes single pixels and convolves with floats.
+     *
+     * @param src the source image
+     * @param radius the radius of the kernel in pixels
+     * @param sigma the standard deviation of the Gaussian
+     * @return a new, blurred image
+     */
+    static ImageData blurReference(final ImageData src, final int radius, final int sigma) {
+        float[] kernel = create1DKernel(radius, sigma);
+
+        ImageData imgPixels = src;
+        int width = imgPixels.width;
+        int height = imgPixels.height;
+
+        int[] inPixels = new int[width * height];
+        int[] outPixels = new int[width * height];
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                RGB rgb = imgPixels.palette.getRGB(imgPixels.getPixel(x, y));
+                if (rgb.red == 255 && rgb.green == 255 && rgb.blue == 255) {
+                    inPixels[offset] = (rgb.red << 16) | (rgb.green << 8)
+                            | rgb.blue;
+                } else {
+                    inPixels[offset] = (imgPixels.getAlpha(x, y) << 24)
+                            | (rgb.red << 16) | (rgb.green << 8) | rgb.blue;
+                }
+                offset++;
+            }
+        }
+
+        convolve(kernel, inPixels, outPixels, width, height, true);
+        convolve(kernel, outPixels, inPixels, height, width, true);
+
+        ImageData dst = new ImageData(imgPixels.width, imgPixels.height, 24,
+                new PaletteData(0xff0000, 0xff00, 0xff));
+
+        dst.setPixels(0, 0, inPixels.length, inPixels, 0);
+        offset = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (inPixels[offset] == -1) {
+                    dst.setAlpha(x, y, 0);
+                } else {
+                    int a = (inPixels[offset] >> 24) & 0xff;
+                    // if (a < 150) a = 0;
+                    dst.setAlpha(x, y, a);
+                }
+                offset++;
+            }
+        }
+        return dst;
+    }
+
+    private static void convolve(final float[] kernel, final int[] inPixels, final int[] outPixels,
+            final int width, final int height, final boolean alpha) {
+        int kernelWidth = kernel.length;
+        int kernelMid = kernelWidth / 2;
+        for (int y = 0; y < height; y++) {
+            int index = y;
+            int currentLine = y * width;
+            for (int x = 0; x < width; x++) {
+                // do point
+                float a = 0, r = 0, g = 0, b = 0;
+                for (int k = -kernelMid; k <= kernelMid; k++) {
+                    float val = kernel[k + kernelMid];
+                    int xcoord = x + k;
+                    if (xcoord < 0) {
+                        xcoord = 0;
+                    }
+                    if (xcoord >= width) {
+                        xcoord = width - 1;
+                    }
+                    int pixel = inPixels[currentLine + xcoord];
+                    // float alp = ((pixel >> 24) & 0xff);
+                    a += val * ((pixel >> 24) & 0xff);
+                    r += val * (((pixel >> 16) & 0xff));
+                    g += val * (((pixel >> 8) & 0xff));
+                    b += val * (((pixel) & 0xff));
+                }
+                int ia = alpha ? clamp((int) (a + 0.5)) : 0xff;
+                int ir = clamp((int) (r + 0.5));
+                int ig = clamp((int) (g + 0.5));
+                int ib = clamp((int) (b + 0.5));
+                outPixels[index] = (ia << 24) | (ir << 16) | (ig << 8) | ib;
+                index += height;
+            }
+        }
+
+    }
+
+    private static int clamp(final int value) {
+        if (value > 255) {
+            return 255;
+        }
+        if (value < 0) {
+            return 0;
+        }
+        return value;
+    }
+
+    private static float[] create1DKernel(final int radius, final int sigma) {
+        // guideline: 3*sigma should be the radius
+        int size = radius * 2 + 1;
+        float[] kernel = new float[size];
+        int radiusSquare = radius * radius;
+        float sigmaSquare = 2 * sigma * sigma;
+        float piSigma = 2 * (float) Math.PI * sigma;
+        float sqrtSigmaPi2 = (float) Math.sqrt(piSigma);
+        int start = size / 2;
+        int index = 0;
+        float total = 0;
+        for (int i = -start; i <= start; i++) {
+            float d = i * i;
+            if (d > radiusSquare) {
+                kernel[index] = 0;
+            } else {
+                kernel[index] = (float) Math.exp(-(d) / sigmaSquare)
+                        / sqrtSigmaPi2;
+            }
+            total += kernel[index];
+            index++;
+        }
+        for (int i = 0; i < size; i++) {
+            kernel[i] /= total;
+        }
+        return kernel;
+    }
+}
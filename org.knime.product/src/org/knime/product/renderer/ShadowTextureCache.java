@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.product.renderer;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Display-scoped cache for the blurred drop shadow textures of {@link KNIMECTabFolderRenderer}. Every tab folder in
+ * the workbench has its own renderer, but almost all of them use the same shadow configuration. The cache therefore
+ * hands out one shared image per configuration and counts how many renderers use it. The image is disposed once the
+ * last renderer has released it, or when the display is disposed.
+ *
+ * <p>
+ * All methods must be called from the display's UI thread.
+ * </p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ShadowTextureCache {
+    /**
+     * Everything that influences the rendered shadow texture.
+     */
+    static final class Key {
+        private final RGB m_shadowColor;
+
+        private final int m_cornerSize;
+
+        private final int m_marginWidth;
+
+        private final int m_marginHeight;
+
+        private final int m_tabHeight;
+
+        private final RGB m_parentBackground;
+
+        Key(final RGB shadowColor, final int cornerSize, final int marginWidth, final int marginHeight,
+            final int tabHeight, final RGB parentBackground) {
+            m_shadowColor = shadowColor;
+            m_cornerSize = cornerSize;
+            m_marginWidth = marginWidth;
+            m_marginHeight = marginHeight;
+            m_tabHeight = tabHeight;
+            m_parentBackground = parentBackground;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return (m_cornerSize == other.m_cornerSize) && (m_marginWidth == other.m_marginWidth)
+                && (m_marginHeight == other.m_marginHeight) && (m_tabHeight == other.m_tabHeight)
+                && Objects.equals(m_shadowColor, other.m_shadowColor)
+                && Objects.equals(m_parentBackground, other.m_parentBackground);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_shadowColor, m_cornerSize, m_marginWidth, m_marginHeight, m_tabHeight,
+                m_parentBackground);
+        }
+    }
+
+    private static final class Entry {
+        private final Key m_key;
+
+        private final Image m_image;
+
+        private int m_references;
+
+        Entry(final Key key, final Image image) {
+            m_key = key;
+            m_image = image;
+        }
+    }
+
+    private static final Map<Display, ShadowTextureCache> CACHES = new HashMap<>();
+
+    private final Map<Key, Entry> m_entries = new HashMap<>();
+
+    private final Map<Image, Entry> m_byImage = new IdentityHashMap<>();
+
+    private ShadowTextureCache() {
+    }
+
+    /**
+     * Returns the cache for the given display, creating it if necessary.
+     *
+     * @param display the display on which the shadow images are used
+     * @return the display's cache
+     */
+    static ShadowTextureCache get(final Display display) {
+        synchronized (CACHES) {
+            ShadowTextureCache cache = CACHES.get(display);
+            if (cache == null) {
+                final ShadowTextureCache newCache = new ShadowTextureCache();
+                CACHES.put(display, newCache);
+                display.disposeExec(() -> {
+                    synchronized (CACHES) {
+                        CACHES.remove(display);
+                    }
+                    newCache.disposeAll();
+                });
+                cache = newCache;
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the shadow image for the given configuration and increments its reference count. If no image exists
+     * yet, it is created from the image data returned by <tt>renderer</tt>.
+     *
+     * @param display the display on which the image is created
+     * @param key the shadow configuration
+     * @param renderer renders the blurred shadow texture if it is not cached
+     * @return the shared image, which must be given back with {@link #release(Image)} and never be disposed directly
+     */
+    Image acquire(final Display display, final Key key, final Supplier<ImageData> renderer) {
+        Entry entry = m_entries.get(key);
+        if ((entry == null) || entry.m_image.isDisposed()) {
+            if (entry != null) {
+                m_byImage.remove(entry.m_image);
+            }
+            entry = new Entry(key, new Image(display, renderer.get()));
+            m_entries.put(key, entry);
+            m_byImage.put(entry.m_image, entry);
+        }
+        entry.m_references++;
+        return entry.m_image;
+    }
+
+    /**
+     * Gives back a shadow image obtained from {@link #acquire(Display, Key, Supplier)}. The image is disposed once no
+     * renderer references it any more.
+     *
+     * @param image the image, may be <code>null</code>
+     */
+    void release(final Image image) {
+        if (image == null) {
+            return;
+        }
+        Entry entry = m_byImage.get(image);
+        if (entry == null) {
+            return;
+        }
+        if (--entry.m_references <= 0) {
+            m_byImage.remove(image);
+            m_entries.remove(entry.m_key);
+            if (!image.isDisposed()) {
+                image.dispose();
+            }
+        }
+    }
+
+    private void disposeAll() {
+        for (Entry entry : m_entries.values()) {
+            if (!entry.m_image.isDisposed()) {
+                entry.m_image.dispose();
+            }
+        }
+        m_entries.clear();
+        m_byImage.clear();
+    }
+}